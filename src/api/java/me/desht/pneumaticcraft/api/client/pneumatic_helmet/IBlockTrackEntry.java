@@ -57,6 +57,17 @@ public interface IBlockTrackEntry {
      */
     boolean shouldTrackWithThisEntry(BlockGetter world, BlockPos pos, BlockState state, BlockEntity te);
 
+    /**
+     * Return true if this entry can only ever track blocks which have a block entity. The block tracker finds
+     * such blocks directly from the loaded chunks' block entity lists, which is much cheaper than scanning every
+     * block in range; it only needs to scan every block if some enabled entry returns false here.
+     *
+     * @return true if this entry only tracks blocks with a block entity
+     */
+    default boolean requiresBlockEntity() {
+        return false;
+    }
+
     /**
      * This method controls whether to send server update requests, at 3 second intervals while the player is
      * looking at the block. This is specifically aimed at Block Entities, as the server will send an NBT
@@ -0,0 +1,153 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.api.heat;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.Fluid;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * A cheap pre-check for a {@link HeatBehaviour}, supplied when registering the behaviour with
+ * {@link IHeatRegistry#registerHeatBehaviour(ResourceLocation, Supplier, HeatBehaviourFilter)}. Heat behaviours are
+ * only created, initialized and asked {@link HeatBehaviour#isApplicable()} for neighbouring blocks which pass their
+ * filter, so a precise filter saves a lot of wasted work whenever a heat exchanger reconnects to its neighbours.
+ * <p>
+ * A block passes the filter if its blockstate matches any of the block, block class, block entity type, fluid or
+ * heat properties conditions (or if none of those have been added), <em>and</em> it passes the position test, if
+ * one has been set. The blockstate part of the check is cached per blockstate. A filter with no conditions at all
+ * passes every block. Filters must not be modified once registered.
+ */
+public class HeatBehaviourFilter {
+    private final Set<Block> blocks = new HashSet<>();
+    private final List<Class<?>> blockClasses = new ArrayList<>();
+    private final Set<BlockEntityType<?>> blockEntityTypes = new HashSet<>();
+    private final Set<Fluid> fluids = new HashSet<>();
+    private boolean heatProperties;
+    private BiPredicate<Level, BlockPos> positionTest;
+
+    /**
+     * Match any of the given blocks.
+     *
+     * @param blocks the blocks
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter blocks(Block... blocks) {
+        this.blocks.addAll(Arrays.asList(blocks));
+        return this;
+    }
+
+    /**
+     * Match any block which is an instance of the given class.
+     *
+     * @param blockClass the block class
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter blockClass(Class<? extends Block> blockClass) {
+        this.blockClasses.add(blockClass);
+        return this;
+    }
+
+    /**
+     * Match any blockstate which is valid for one of the given block entity types.
+     *
+     * @param types the block entity types
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter blockEntityTypes(BlockEntityType<?>... types) {
+        this.blockEntityTypes.addAll(Arrays.asList(types));
+        return this;
+    }
+
+    /**
+     * Match any blockstate containing one of the given fluids (source or flowing).
+     *
+     * @param fluids the fluids
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter fluids(Fluid... fluids) {
+        this.fluids.addAll(Arrays.asList(fluids));
+        return this;
+    }
+
+    /**
+     * Match any blockstate which has block heat properties, as defined by {@code pneumaticcraft:heat_properties}
+     * recipes (or defaulted for fluids).
+     *
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter withHeatProperties() {
+        this.heatProperties = true;
+        return this;
+    }
+
+    /**
+     * Set an additional test on the block's position, for behaviours which don't depend only on the blockstate (e.g.
+     * ones which look for a semiblock). This is called every time behaviours are discovered, so it should be cheap.
+     *
+     * @param positionTest the position test
+     * @return this filter, for chaining
+     */
+    public HeatBehaviourFilter position(BiPredicate<Level, BlockPos> positionTest) {
+        this.positionTest = positionTest;
+        return this;
+    }
+
+    /**
+     * Check the blockstate-only conditions of this filter, other than block heat properties.
+     *
+     * @param state the blockstate
+     * @return true if the blockstate matches, or if there are no blockstate conditions at all
+     */
+    public boolean matchesState(BlockState state) {
+        if (!hasStateConditions()) return true;
+
+        if (blocks.contains(state.getBlock())) return true;
+        for (Class<?> cls : blockClasses) {
+            if (cls.isInstance(state.getBlock())) return true;
+        }
+        for (BlockEntityType<?> type : blockEntityTypes) {
+            if (type.isValid(state)) return true;
+        }
+        return !fluids.isEmpty() && !state.getFluidState().isEmpty() && fluids.stream().anyMatch(f -> f.isSame(state.getFluidState().getType()));
+    }
+
+    /**
+     * Check if this filter has any blockstate conditions.
+     *
+     * @return true if there are blockstate conditions, false if it only has a position test (or nothing)
+     */
+    public boolean hasStateConditions() {
+        return heatProperties || !blocks.isEmpty() || !blockClasses.isEmpty() || !blockEntityTypes.isEmpty() || !fluids.isEmpty();
+    }
+
+    public boolean matchesHeatProperties() {
+        return heatProperties;
+    }
+
+    public boolean matchesPosition(Level level, BlockPos pos) {
+        return positionTest == null || positionTest.test(level, pos);
+    }
+}
@@ -42,9 +42,25 @@ public interface IHeatRegistry {
      * This is intended to add custom behaviours to certain block entities, similar to how the vanilla furnace is handled.
      * For general blockstate transitions (on excess heat added/removed), the correct way to do this is with datapack
      * recipes. See {@code data/pneumaticcraft/recipes/block_heat_properties/*.json} for examples.
+     * <p>
+     * A behaviour registered this way is created for every neighbouring block of every heat exchanger; where
+     * possible, use {@link #registerHeatBehaviour(ResourceLocation, Supplier, HeatBehaviourFilter)} instead.
+     *
+     * @param id a unique for this heat behaviour
+     * @param heatBehaviour a heat behaviour supplier
+     */
+    default void registerHeatBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> heatBehaviour) {
+        registerHeatBehaviour(id, heatBehaviour, new HeatBehaviourFilter());
+    }
+
+    /**
+     * Register a heat behaviour instance, along with a filter on the blocks it can apply to. Behaviours are only
+     * created for blocks which pass their filter; see {@link HeatBehaviourFilter}. The same registration rules as
+     * for {@link #registerHeatBehaviour(ResourceLocation, Supplier)} apply.
      *
      * @param id a unique for this heat behaviour
      * @param heatBehaviour a heat behaviour supplier
+     * @param filter a filter on the blocks which the behaviour might apply to
      */
-    void registerHeatBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> heatBehaviour);
+    void registerHeatBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> heatBehaviour, HeatBehaviourFilter filter);
 }
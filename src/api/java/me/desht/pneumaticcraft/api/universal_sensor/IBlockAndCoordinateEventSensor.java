@@ -43,4 +43,22 @@ public interface IBlockAndCoordinateEventSensor extends IBaseSensor {
      * @return a redstone pulse length, in ticks
      */
     int getRedstonePulseLength();
+
+    /**
+     * See {@link IEventSensorSetting#getEventTypes()}
+     *
+     * @return a set of event classes
+     */
+    default Set<Class<? extends Event>> getEventTypes() {
+        return IEventSensorSetting.ALL_EVENT_TYPES;
+    }
+
+    /**
+     * See {@link IEventSensorSetting#isRangeLimited()}
+     *
+     * @return true if this sensor ignores events outside its range
+     */
+    default boolean isRangeLimited() {
+        return false;
+    }
 }
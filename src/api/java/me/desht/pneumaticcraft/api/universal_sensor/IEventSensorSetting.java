@@ -23,7 +23,14 @@ import net.minecraftforge.event.entity.player.EntityItemPickupEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.eventbus.api.Event;
 
+import java.util.Set;
+
 public interface IEventSensorSetting extends ISensorSetting {
+    /**
+     * The event types which are delivered to event sensors by default.
+     */
+    Set<Class<? extends Event>> ALL_EVENT_TYPES = Set.of(PlayerInteractEvent.class, EntityItemPickupEvent.class, AttackEntityEvent.class);
+
     /**
      * This method is called when a Forge event of interest is triggered.  Events of interest are:
      * <ul>
@@ -45,4 +52,27 @@ public interface IEventSensorSetting extends ISensorSetting {
      * @return a redstone pulse length, in ticks
      */
     int getRedstonePulseLength();
+
+    /**
+     * Get the event types this sensor is interested in. Universal Sensors configured with this sensor will only be
+     * offered events which are instances of one of these types. The default is to receive every event type listed in
+     * {@link #emitRedstoneOnEvent(Event, BlockEntity, int, String)}; override this to narrow it down.
+     *
+     * @return a set of event classes
+     */
+    default Set<Class<? extends Event>> getEventTypes() {
+        return ALL_EVENT_TYPES;
+    }
+
+    /**
+     * Does this sensor only ever react to events which happen within the Universal Sensor's range? If so, events are
+     * only offered to sensors whose range covers the event position (the clicked block for a
+     * {@link PlayerInteractEvent}, or the player's position otherwise). The default is false, meaning the sensor is
+     * offered events from anywhere in the level.
+     *
+     * @return true if this sensor ignores events outside its range
+     */
+    default boolean isRangeLimited() {
+        return false;
+    }
 }
@@ -0,0 +1,343 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.client.gui;
+
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.common.drone.progwidgets.*;
+import me.desht.pneumaticcraft.lib.Log;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.chat.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Works out the errors and warnings for the widgets of a program shown in the Programmer GUI (or drone debugger).
+ * <p>
+ * Polling is cheap: it only compares widget identities and positions with the last snapshot taken. Changes to a
+ * widget's own settings aren't detected by polling; the GUI must report them with {@link #markChanged(IProgWidget)}.
+ * Only new and changed widgets are serialized, and the snapshot is validated on a background thread against private
+ * copies of the widgets (copies of unchanged widgets are kept from one validation to the next), so the GUI can carry
+ * on editing the live ones. Only widgets which have changed, or whose connections have changed, are revalidated,
+ * along with the widgets known to depend on them: everything in the same parameter chain, jumps when labels change
+ * (and vice versa), variable users when a variable-setting widget changes, and all Start widgets when any Start widget
+ * is added, removed or changed. Results for all other widgets are carried over from the previous validation, so a
+ * widget whose checks look at other parts of the program in some other way may show stale results until it's
+ * revalidated.
+ * <p>
+ * Some widgets' checks can't safely run off-thread: the Crafting widget looks up recipes in the client level, and
+ * widgets added by other mods make no promises about thread-safety. Those widgets are checked on the client thread,
+ * once the background part of the validation has completed.
+ * <p>
+ * Results are published when a validation completes, and are looked up by live widget identity, so they remain
+ * meaningful while the program is being edited.
+ */
+class ProgramValidator {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PneumaticCraft Program Validator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // client thread only
+    private IProgWidget[] lastWidgets = new IProgWidget[0];
+    private int[] lastX = new int[0], lastY = new int[0];
+    private final Set<IProgWidget> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private CompletableFuture<Void> pending;
+    private boolean polled;
+
+    // validation only: the background thread, then the client thread, never both at once
+    private final Map<IProgWidget, Entry> entries = new IdentityHashMap<>();
+    private final PuzzleConnectionBuilder connectionBuilder = new PuzzleConnectionBuilder();
+
+    private volatile boolean resync;
+    private volatile Results results = Results.NONE;
+
+    /**
+     * Note that the settings of the given widget have been changed in the GUI, so it must be revalidated.
+     *
+     * @param widget the live widget
+     */
+    void markChanged(IProgWidget widget) {
+        changed.add(widget);
+    }
+
+    /**
+     * Check the program for changes, and start a validation if there are any. Does nothing while a validation is
+     * already running; any changes will be picked up on a later poll.
+     *
+     * @param progWidgets the live program widgets
+     */
+    void poll(List<IProgWidget> progWidgets) {
+        if (pending != null && !pending.isDone()) return;
+
+        boolean full = !polled || resync;
+        if (!full && changed.isEmpty() && !moved(progWidgets)) return;
+
+        IProgWidget[] widgets = progWidgets.toArray(new IProgWidget[0]);
+        Set<IProgWidget> known = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!full) Collections.addAll(known, lastWidgets);
+        CompoundTag[] tags = new CompoundTag[widgets.length];
+        int[] xs = new int[widgets.length];
+        int[] ys = new int[widgets.length];
+        for (int i = 0; i < widgets.length; i++) {
+            IProgWidget widget = widgets[i];
+            if (!known.contains(widget) || changed.contains(widget)) {
+                // only new or edited widgets need to be serialized; copies of the rest are reused
+                tags[i] = new CompoundTag();
+                widget.writeToNBT(tags[i]);
+            }
+            xs[i] = widget.getX();
+            ys[i] = widget.getY();
+        }
+        changed.clear();
+        polled = true;
+        resync = false;
+        lastWidgets = widgets;
+        lastX = xs;
+        lastY = ys;
+        pending = CompletableFuture.supplyAsync(() -> validate(widgets, tags, xs, ys), EXECUTOR)
+                .thenAcceptAsync(this::finish, Minecraft.getInstance());
+    }
+
+    private boolean moved(List<IProgWidget> progWidgets) {
+        if (progWidgets.size() != lastWidgets.length) return true;
+        for (int i = 0; i < lastWidgets.length; i++) {
+            IProgWidget widget = progWidgets.get(i);
+            if (widget != lastWidgets[i] || widget.getX() != lastX[i] || widget.getY() != lastY[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if the published results are for the program as last polled.
+     *
+     * @return true if there's no validation in progress
+     */
+    boolean isUpToDate() {
+        return polled && (pending == null || pending.isDone());
+    }
+
+    List<Component> getErrors(IProgWidget widget) {
+        return results.errors.getOrDefault(widget, Collections.emptyList());
+    }
+
+    List<Component> getWarnings(IProgWidget widget) {
+        return results.warnings.getOrDefault(widget, Collections.emptyList());
+    }
+
+    int getTotalErrors() {
+        return results.totalErrors;
+    }
+
+    int getTotalWarnings() {
+        return results.totalWarnings;
+    }
+
+    private Validation validate(IProgWidget[] widgets, CompoundTag[] tags, int[] xs, int[] ys) {
+        try {
+            return doValidate(widgets, tags, xs, ys);
+        } catch (RuntimeException e) {
+            Log.error("program validation failed: " + e.getMessage());
+            entries.clear();
+            resync = true;
+            return null;
+        }
+    }
+
+    private Validation doValidate(IProgWidget[] widgets, CompoundTag[] tags, int[] xs, int[] ys) {
+        // private copies of the live widgets, connected up just as the live ones are
+        List<IProgWidget> copies = new ArrayList<>(widgets.length);
+        List<IProgWidget> live = new ArrayList<>(widgets.length);
+        BitSet settingsChanged = new BitSet(widgets.length);
+        Map<IProgWidget, IProgWidget> copyToLive = new IdentityHashMap<>();
+        for (int i = 0; i < widgets.length; i++) {
+            Entry entry = entries.get(widgets[i]);
+            IProgWidget copy;
+            if (tags[i] == null && entry != null) {
+                copy = entry.copy;
+            } else {
+                copy = tags[i] == null ? null : ProgWidget.fromNBT(tags[i]);
+                settingsChanged.set(copies.size());
+            }
+            if (copy != null) {
+                copy.setX(xs[i]);
+                copy.setY(ys[i]);
+                copies.add(copy);
+                live.add(widgets[i]);
+                copyToLive.put(copy, widgets[i]);
+            }
+        }
+        connectionBuilder.updateConnections(copies);
+
+        Map<IProgWidget, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < copies.size(); i++) {
+            index.put(copies.get(i), i);
+        }
+
+        // find widgets which are new, or whose own settings or connections have changed
+        BitSet dirty = new BitSet(copies.size());
+        IProgWidget[][] links = new IProgWidget[copies.size()][];
+        boolean variablesChanged = false;
+        boolean labelsChanged = false;
+        boolean jumpsChanged = false;
+        boolean startsChanged = false;
+        Set<IProgWidget> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(entries.keySet());
+        for (int i = 0; i < copies.size(); i++) {
+            IProgWidget copy = copies.get(i);
+            links[i] = getLinks(copy, copyToLive);
+            removed.remove(live.get(i));
+            Entry entry = entries.get(live.get(i));
+            if (entry == null || settingsChanged.get(i) || !sameLinks(entry.links, links[i])) {
+                dirty.set(i);
+                variablesChanged |= copy instanceof IVariableSetWidget || entry != null && entry.setsVariables;
+                labelsChanged |= copy instanceof ILabel;
+                jumpsChanged |= copy instanceof IJump;
+                startsChanged |= copy instanceof ProgWidgetStart;
+            }
+        }
+        for (IProgWidget widget : removed) {
+            Entry entry = entries.remove(widget);
+            variablesChanged |= entry.setsVariables;
+            startsChanged |= entry.copy instanceof ProgWidgetStart;
+        }
+
+        // spread to dependent widgets
+        Deque<IProgWidget> queue = new ArrayDeque<>();
+        dirty.stream().forEach(i -> queue.add(copies.get(i)));
+        while (!queue.isEmpty()) {
+            IProgWidget widget = queue.poll();
+            markDirty(widget.getParent(), index, dirty, queue);
+            if (widget.getConnectedParameters() != null) {
+                for (IProgWidget param : widget.getConnectedParameters()) {
+                    markDirty(param, index, dirty, queue);
+                }
+            }
+        }
+        for (int i = 0; i < copies.size(); i++) {
+            IProgWidget copy = copies.get(i);
+            if (variablesChanged && copy instanceof IVariableWidget
+                    || labelsChanged && copy instanceof IJump
+                    || jumpsChanged && copy instanceof ILabel
+                    || startsChanged && copy instanceof ProgWidgetStart) {
+                dirty.set(i);
+            }
+        }
+
+        BitSet clientChecks = new BitSet(copies.size());
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            IProgWidget copy = copies.get(i);
+            if (isThreadSafe(copy)) {
+                check(copy, copies, live.get(i), links[i]);
+            } else {
+                entries.put(live.get(i), new Entry(copy, links[i], copy instanceof IVariableSetWidget, Collections.emptyList(), Collections.emptyList()));
+                clientChecks.set(i);
+            }
+        }
+        return new Validation(copies, live, links, clientChecks);
+    }
+
+    /**
+     * Called on the client thread once the background part of a validation is done: check the widgets which can't
+     * be checked off-thread, and publish the results.
+     */
+    private void finish(Validation validation) {
+        if (validation == null) return;
+
+        try {
+            BitSet clientChecks = validation.clientChecks;
+            for (int i = clientChecks.nextSetBit(0); i >= 0; i = clientChecks.nextSetBit(i + 1)) {
+                check(validation.copies.get(i), validation.copies, validation.live.get(i), validation.links[i]);
+            }
+        } catch (RuntimeException e) {
+            Log.error("program validation failed: " + e.getMessage());
+            entries.clear();
+            resync = true;
+            return;
+        }
+
+        Map<IProgWidget, List<Component>> errors = new IdentityHashMap<>();
+        Map<IProgWidget, List<Component>> warnings = new IdentityHashMap<>();
+        int totalErrors = 0, totalWarnings = 0;
+        for (Map.Entry<IProgWidget, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (!entry.errors.isEmpty()) errors.put(e.getKey(), entry.errors);
+            if (!entry.warnings.isEmpty()) warnings.put(e.getKey(), entry.warnings);
+            totalErrors += entry.errors.size();
+            totalWarnings += entry.warnings.size();
+        }
+        results = new Results(errors, warnings, totalErrors, totalWarnings);
+    }
+
+    private void check(IProgWidget copy, List<IProgWidget> copies, IProgWidget live, IProgWidget[] links) {
+        List<Component> e = new ArrayList<>();
+        copy.addErrors(e, copies);
+        List<Component> w = new ArrayList<>();
+        copy.addWarnings(w, copies);
+        entries.put(live, new Entry(copy, links, copy instanceof IVariableSetWidget,
+                e.isEmpty() ? Collections.emptyList() : e, w.isEmpty() ? Collections.emptyList() : w));
+    }
+
+    private static boolean isThreadSafe(IProgWidget widget) {
+        // crafting widget checks its recipe against the client level; other mods' widgets are an unknown quantity
+        return !(widget instanceof ProgWidgetCrafting) && widget.getTypeID().getNamespace().equals(Names.MOD_ID);
+    }
+
+    private static void markDirty(IProgWidget widget, Map<IProgWidget, Integer> index, BitSet dirty, Deque<IProgWidget> queue) {
+        if (widget != null) {
+            Integer i = index.get(widget);
+            if (i != null && !dirty.get(i)) {
+                dirty.set(i);
+                queue.add(widget);
+            }
+        }
+    }
+
+    private static IProgWidget[] getLinks(IProgWidget copy, Map<IProgWidget, IProgWidget> copyToLive) {
+        IProgWidget[] params = copy.getConnectedParameters() != null ? copy.getConnectedParameters() : new IProgWidget[0];
+        IProgWidget[] res = new IProgWidget[params.length + 2];
+        for (int i = 0; i < params.length; i++) {
+            res[i] = copyToLive.get(params[i]);
+        }
+        res[params.length] = copyToLive.get(copy.getParent());
+        res[params.length + 1] = copy.hasStepOutput() ? copyToLive.get(copy.getOutputWidget()) : null;
+        return res;
+    }
+
+    private static boolean sameLinks(IProgWidget[] l1, IProgWidget[] l2) {
+        if (l1.length != l2.length) return false;
+        for (int i = 0; i < l1.length; i++) {
+            if (l1[i] != l2[i]) return false;
+        }
+        return true;
+    }
+
+    private record Entry(IProgWidget copy, IProgWidget[] links, boolean setsVariables, List<Component> errors, List<Component> warnings) {
+    }
+
+    private record Validation(List<IProgWidget> copies, List<IProgWidget> live, IProgWidget[][] links, BitSet clientChecks) {
+    }
+
+    private record Results(Map<IProgWidget, List<Component>> errors, Map<IProgWidget, List<Component>> warnings, int totalErrors, int totalWarnings) {
+        static final Results NONE = new Results(Map.of(), Map.of(), 0, 0);
+    }
+}
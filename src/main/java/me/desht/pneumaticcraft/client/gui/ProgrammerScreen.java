@@ -91,6 +91,9 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
     private BitSet filteredSpawnWidgets;
 
     private ProgrammerWidgetAreaRenderer programmerUnit;
+    // outlives the area renderer, which is recreated whenever the screen is resized or returned to
+    private final ProgramValidator validator = new ProgramValidator();
+    private final PuzzleConnectionBuilder puzzleConnections = new PuzzleConnectionBuilder();
     private IProgWidget draggingWidget;
     private int lastMouseX, lastMouseY;
     private double dragMouseStartX, dragMouseStartY;
@@ -129,7 +132,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
         if (pastebinGui != null && pastebinGui.outputTag != null) {
             if (pastebinGui.shouldMerge) {
                 List<IProgWidget> newWidgets = te.mergeWidgetsFromNBT(pastebinGui.outputTag);
-                ProgrammerBlockEntity.updatePuzzleConnections(newWidgets);
+                puzzleConnections.updateConnections(newWidgets);
                 te.setProgWidgets(newWidgets, ClientUtils.getClientPlayer());
             } else {
                 te.readProgWidgetsFromNBT(pastebinGui.outputTag);
@@ -147,7 +150,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
 
         Rect2i bounds = getProgrammerBounds();
         programmerUnit = new ProgrammerWidgetAreaRenderer(te.progWidgets, leftPos, topPos,
-                bounds, te.translatedX, te.translatedY, te.zoomState);
+                bounds, te.translatedX, te.translatedY, te.zoomState, validator);
         addRenderableWidget(programmerUnit.getScrollBar());
 
         int xStart = (width - imageWidth) / 2;
@@ -828,7 +831,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
         ItemStack programmedItem = te.getItemInProgrammingSlot();
         boolean isDeviceInserted = !programmedItem.isEmpty();
         importButton.active = isDeviceInserted;
-        exportButton.active = isDeviceInserted && programmerUnit.getTotalErrors() == 0;
+        exportButton.active = isDeviceInserted && programmerUnit.isValidated() && programmerUnit.getTotalErrors() == 0;
 
         updateExportButtonTooltip(programmedItem);
 
@@ -951,14 +954,20 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                     area.getPos(0).ifPresent(pos -> {
                         BlockPos offset = pos.subtract(baseCoord);
                         String var = makeOffsetVariable(offsetToVariableNames, baseWidget.getVariable(), offset);
-                        if (!simulate) area.setVarName(0, var);
+                        if (!simulate) {
+                            area.setVarName(0, var);
+                            validator.markChanged(area);
+                        }
                     });
                 }
                 if (area.getVarName(1).isEmpty()) {
                     area.getPos(1).ifPresent(pos -> {
                         BlockPos offset = pos.subtract(baseCoord);
                         String var = makeOffsetVariable(offsetToVariableNames, baseWidget.getVariable(), offset);
-                        if (!simulate) area.setVarName(1, var);
+                        if (!simulate) {
+                            area.setVarName(1, var);
+                            validator.markChanged(area);
+                        }
                     });
                 }
             } else if (widget instanceof ProgWidgetCoordinate coordinate && baseWidget.getConnectedParameters()[0] != widget) {
@@ -979,6 +988,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                             String var = makeOffsetVariable(offsetToVariableNames, baseWidget.getVariable(), offset);
                             coordinate.setVariable(var);
                             coordinate.setUsingVariable(true);
+                            validator.markChanged(coordinate);
                         }
                     }
                 }
@@ -1021,7 +1031,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
             }
             if (!simulate) {
                 NetworkHandler.sendToServer(new PacketProgrammerUpdate(te));
-                ProgrammerBlockEntity.updatePuzzleConnections(te.progWidgets);
+                puzzleConnections.updateConnections(te.progWidgets);
             }
         }
         return true;
@@ -1047,6 +1057,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                         while (c1.getConnectedParameters()[0] instanceof ProgWidgetCoordinate c2) {
                             BlockPos pos = c2.getCoordinate().orElse(BlockPos.ZERO);
                             c2.setCoordinate(new BlockPos(pos.getZ(), pos.getY(), -pos.getX()));
+                            validator.markChanged(c2);
                             c1 = c2;
                         }
                         changed = true;
@@ -1127,6 +1138,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                 tag.putInt("x", hovered.getX());
                 tag.putInt("y", hovered.getY());
                 hovered.readFromNBT(tag);
+                validator.markChanged(hovered);
                 NetworkHandler.sendToServer(new PacketProgrammerUpdate(te));
             } else if (heldItem.getItem() == ModItems.GPS_TOOL.get()) {
                 if (hovered instanceof ProgWidgetCoordinate) {
@@ -1139,6 +1151,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                     areaHovered.setVarName(0, GPSToolItem.getVariable(heldItem));
                     areaHovered.setVarName(1, GPSToolItem.getVariable(heldItem));
                 }
+                validator.markChanged(hovered);
                 NetworkHandler.sendToServer(new PacketProgrammerUpdate(te));
             }
         } else {
@@ -1191,6 +1204,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
             return true;
         } else if (hovered instanceof ProgWidgetItemFilter p) {
             p.setFilter(heldItem.copy());
+            validator.markChanged(p);
             NetworkHandler.sendToServer(new PacketProgrammerUpdate(te));
             return true;
         }
@@ -1246,7 +1260,7 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
                 }
             }
             NetworkHandler.sendToServer(new PacketProgrammerUpdate(te));
-            ProgrammerBlockEntity.updatePuzzleConnections(te.progWidgets);
+            puzzleConnections.updateConnections(te.progWidgets);
             draggingWidget = null;
         }
         return super.mouseReleased(mouseX, mouseY, button);
@@ -1300,6 +1314,16 @@ public class ProgrammerScreen extends AbstractPneumaticCraftContainerScreen<Prog
         return !programmerUnit.isOutsideProgrammingArea(w);
     }
 
+    /**
+     * Must be called whenever the settings of a widget in the program are changed in place (e.g. by its options
+     * screen), so that the widget gets revalidated.
+     *
+     * @param w the changed widget
+     */
+    public void markWidgetChanged(IProgWidget w) {
+        validator.markChanged(w);
+    }
+
     private static class FilterTextField extends WidgetTextField {
         FilterTextField(Font font, int x, int y, int width, int height) {
             super(font, x, y, width, height);
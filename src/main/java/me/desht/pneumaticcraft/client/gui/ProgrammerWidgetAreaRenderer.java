@@ -19,6 +19,10 @@ package me.desht.pneumaticcraft.client.gui;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.*;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import me.desht.pneumaticcraft.api.misc.Symbols;
 import me.desht.pneumaticcraft.client.gui.programmer.ProgWidgetGuiManager;
 import me.desht.pneumaticcraft.client.gui.widget.WidgetVerticalScrollbar;
@@ -38,6 +42,8 @@ import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.client.renderer.Rect2i;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
 import net.minecraft.world.phys.Vec3;
 import org.joml.Matrix4f;
 
@@ -47,6 +53,9 @@ import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
 
 public class ProgrammerWidgetAreaRenderer {
     private static final float SCALE_PER_STEP = 0.2F;
+    // below this scale, widgets are drawn as plain coloured boxes
+    private static final float LOD_SCALE = 0.5F;
+    private static final int INDEX_CELL_SHIFT = 6;
 
     private final List<IProgWidget> progWidgets;
     private final int guiLeft, guiTop;
@@ -54,13 +63,24 @@ public class ProgrammerWidgetAreaRenderer {
     private final WidgetVerticalScrollbar scaleScroll;
     private double translatedX, translatedY;
     private int lastZoom;
-    private final List<List<Component>> widgetErrors = new ArrayList<>();
-    private final List<List<Component>> widgetWarnings = new ArrayList<>();
-    private int totalErrors = 0;
-    private int totalWarnings = 0;
+    private final ProgramValidator validator;
+
+    // spatial index: widget list indices, keyed by the grid cells their rectangles overlap
+    private final Long2ObjectOpenHashMap<IntArrayList> widgetIndex = new Long2ObjectOpenHashMap<>();
+    private int indexedSize = -1;
+    private int indexedLayout;
+    private final IntArrayList visibleIdx = new IntArrayList();
+    private final List<IProgWidget> visibleWidgets = new ArrayList<>();
+    private final Map<ResourceLocation, List<IProgWidget>> visibleByTexture = new LinkedHashMap<>();
+    private float viewMinX, viewMinY, viewMaxX, viewMaxY;
 
     public ProgrammerWidgetAreaRenderer(List<IProgWidget> progWidgets, int guiLeft, int guiTop,
                                         Rect2i bounds, double translatedX, double translatedY, int lastZoom) {
+        this(progWidgets, guiLeft, guiTop, bounds, translatedX, translatedY, lastZoom, new ProgramValidator());
+    }
+
+    ProgrammerWidgetAreaRenderer(List<IProgWidget> progWidgets, int guiLeft, int guiTop, Rect2i bounds,
+                                 double translatedX, double translatedY, int lastZoom, ProgramValidator validator) {
         this.progWidgets = progWidgets;
         this.guiLeft = guiLeft;
         this.guiTop = guiTop;
@@ -71,6 +91,7 @@ public class ProgrammerWidgetAreaRenderer {
         this.translatedX = translatedX;
         this.translatedY = translatedY;
         this.lastZoom = lastZoom;
+        this.validator = validator;
 
         scaleScroll = new WidgetVerticalScrollbar(guiLeft + areaWidth + 8, guiTop + 40, areaHeight - 25)
                 .setStates((int)((2.0F / SCALE_PER_STEP) - 1))
@@ -110,10 +131,8 @@ public class ProgrammerWidgetAreaRenderer {
             if (progWidget != null && progWidget != tooltipExcludingWidget) {
                 List<Component> tooltip = new ArrayList<>();
                 progWidget.getTooltip(tooltip);
-                if (widgetErrors.size() == progWidgets.size())
-                    addMessages(tooltip, widgetErrors.get(idx), "pneumaticcraft.gui.programmer.errors", ChatFormatting.RED);
-                if (widgetWarnings.size() == progWidgets.size())
-                    addMessages(tooltip, widgetWarnings.get(idx), "pneumaticcraft.gui.programmer.warnings", ChatFormatting.YELLOW);
+                addMessages(tooltip, validator.getErrors(progWidget), "pneumaticcraft.gui.programmer.errors", ChatFormatting.RED);
+                addMessages(tooltip, validator.getWarnings(progWidget), "pneumaticcraft.gui.programmer.warnings", ChatFormatting.YELLOW);
                 addAdditionalInfoToTooltip(progWidget, tooltip);
                 if (!tooltip.isEmpty()) {
                     graphics.renderTooltip(font, GuiUtils.wrapTextComponentList(tooltip, areaWidth * 2 / 3, font), x - guiLeft, y - guiTop);
@@ -156,21 +175,112 @@ public class ProgrammerWidgetAreaRenderer {
     }
 
     public void tick() {
-        if ((ClientUtils.getClientLevel().getGameTime() & 0xf) == 0 || widgetErrors.size() != progWidgets.size() || widgetWarnings.size() != progWidgets.size()) {
-            widgetErrors.clear();
-            widgetWarnings.clear();
-            totalErrors = totalWarnings = 0;
-            for (IProgWidget widget : progWidgets) {
-                List<Component> e = new ArrayList<>();
-                widget.addErrors(e, progWidgets);
-                widgetErrors.add(e.isEmpty() ? Collections.emptyList() : e);
-                totalErrors += e.size();
-                List<Component> w = new ArrayList<>();
-                widget.addWarnings(w, progWidgets);
-                widgetWarnings.add(w.isEmpty() ? Collections.emptyList() : w);
-                totalWarnings += w.size();
+        // validation itself is incremental and runs off-thread; this just checks for program changes
+        if ((ClientUtils.getClientLevel().getGameTime() & 0x3) == 0) {
+            validator.poll(progWidgets);
+        }
+        if (getLayoutHash() != indexedLayout) {
+            indexedSize = -1;
+        }
+    }
+
+    private int getLayoutHash() {
+        int hash = progWidgets.size();
+        for (IProgWidget widget : progWidgets) {
+            hash = 31 * hash + System.identityHashCode(widget);
+            hash = 31 * hash + widget.getX();
+            hash = 31 * hash + widget.getY();
+        }
+        return hash;
+    }
+
+    /**
+     * Rebuild the spatial index if the program's layout has changed. Widget moves are picked up in {@link #tick()},
+     * widgets being added or removed immediately.
+     */
+    private void updateIndex() {
+        if (indexedSize == progWidgets.size()) return;
+
+        widgetIndex.values().forEach(IntArrayList::clear);
+        for (int i = 0; i < progWidgets.size(); i++) {
+            IProgWidget widget = progWidgets.get(i);
+            int cx1 = widget.getX() >> INDEX_CELL_SHIFT, cx2 = getRight(widget) >> INDEX_CELL_SHIFT;
+            int cy1 = widget.getY() >> INDEX_CELL_SHIFT, cy2 = getBottom(widget) >> INDEX_CELL_SHIFT;
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cy = cy1; cy <= cy2; cy++) {
+                    widgetIndex.computeIfAbsent(cellKey(cx, cy), k -> new IntArrayList()).add(i);
+                }
+            }
+        }
+        widgetIndex.values().removeIf(IntArrayList::isEmpty);
+        indexedSize = progWidgets.size();
+        indexedLayout = getLayoutHash();
+    }
+
+    /**
+     * Work out which widgets are at least partly inside the visible part of the programming area, in program order.
+     */
+    private void findVisibleWidgets(float scale) {
+        updateIndex();
+
+        viewMinX = (guiLeft + startX - (float) translatedX) / scale - guiLeft;
+        viewMinY = (guiTop + startY - (float) translatedY) / scale - guiTop;
+        viewMaxX = viewMinX + areaWidth / scale;
+        viewMaxY = viewMinY + areaHeight / scale;
+
+        visibleIdx.clear();
+        int cx1 = Mth.floor(viewMinX) >> INDEX_CELL_SHIFT, cx2 = Mth.floor(viewMaxX) >> INDEX_CELL_SHIFT;
+        int cy1 = Mth.floor(viewMinY) >> INDEX_CELL_SHIFT, cy2 = Mth.floor(viewMaxY) >> INDEX_CELL_SHIFT;
+        if ((long) (cx2 - cx1 + 1) * (cy2 - cy1 + 1) > widgetIndex.size()) {
+            // view covers more cells than are in use; quicker to check every occupied cell
+            for (Long2ObjectMap.Entry<IntArrayList> entry : widgetIndex.long2ObjectEntrySet()) {
+                int cx = (int) (entry.getLongKey() >> 32), cy = (int) entry.getLongKey();
+                if (cx >= cx1 && cx <= cx2 && cy >= cy1 && cy <= cy2) {
+                    addVisible(entry.getValue(), cx, cy, cx1, cy1);
+                }
+            }
+        } else {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cy = cy1; cy <= cy2; cy++) {
+                    IntArrayList l = widgetIndex.get(cellKey(cx, cy));
+                    if (l != null) addVisible(l, cx, cy, cx1, cy1);
+                }
             }
         }
+        IntArrays.quickSort(visibleIdx.elements(), 0, visibleIdx.size());
+
+        visibleWidgets.clear();
+        for (int i = 0; i < visibleIdx.size(); i++) {
+            visibleWidgets.add(progWidgets.get(visibleIdx.getInt(i)));
+        }
+    }
+
+    private void addVisible(IntArrayList cell, int cx, int cy, int cx1, int cy1) {
+        for (int n = 0; n < cell.size(); n++) {
+            int i = cell.getInt(n);
+            IProgWidget widget = progWidgets.get(i);
+            // a widget spanning several cells is only added from the first of those cells which is in view
+            if (Math.max(widget.getX() >> INDEX_CELL_SHIFT, cx1) == cx && Math.max(widget.getY() >> INDEX_CELL_SHIFT, cy1) == cy
+                    && isInView(widget.getX(), widget.getY(), getRight(widget), getBottom(widget))) {
+                visibleIdx.add(i);
+            }
+        }
+    }
+
+    private boolean isInView(float x1, float y1, float x2, float y2) {
+        return x2 >= viewMinX && x1 <= viewMaxX && y2 >= viewMinY && y1 <= viewMaxY;
+    }
+
+    private static int getRight(IProgWidget widget) {
+        return widget.getX() + (widget.getWidth() + 10) / 2;
+    }
+
+    private static int getBottom(IProgWidget widget) {
+        return widget.getY() + (widget.getHeight() + 10) / 2;
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return (long) cx << 32 | (cy & 0xFFFFFFFFL);
     }
 
     public void render(GuiGraphics graphics, int x, int y, boolean showFlow, boolean showInfo) {
@@ -192,25 +302,29 @@ public class ProgrammerWidgetAreaRenderer {
         float scale = getScale();
         poseStack.scale(scale, scale, 1);
 
+        findVisibleWidgets(scale);
+        boolean simplified = scale < LOD_SCALE;
+
         if (showFlow) showFlow(graphics);
 
-//        RenderSystem.enableBlend();
-//        RenderSystem.blendFunc(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA);
-        for (IProgWidget widget : progWidgets) {
-            poseStack.pushPose();
-            poseStack.translate(widget.getX() + guiLeft, widget.getY() + guiTop, 0);
-            poseStack.scale(0.5f, 0.5f, 1.0f);
-            ProgWidgetRenderer.renderProgWidget2d(graphics, widget);
-            poseStack.popPose();
+        if (simplified) {
+            ProgWidgetRenderer.renderProgWidgetBoxes2d(graphics, visibleWidgets, guiLeft, guiTop);
+        } else {
+            // one draw call per widget texture, rather than per widget
+            visibleByTexture.values().forEach(List::clear);
+            for (IProgWidget widget : visibleWidgets) {
+                visibleByTexture.computeIfAbsent(widget.getTexture(), k -> new ArrayList<>()).add(widget);
+            }
+            visibleByTexture.forEach((texture, widgets) -> {
+                if (!widgets.isEmpty()) ProgWidgetRenderer.renderProgWidgets2d(graphics, texture, widgets, guiLeft, guiTop);
+            });
         }
 
-        if (widgetErrors.size() == progWidgets.size() && widgetWarnings.size() == progWidgets.size()) {
-            for (int i = 0; i < progWidgets.size(); i++) {
-                if (!widgetErrors.get(i).isEmpty()) {
-                    drawBorder(graphics, progWidgets.get(i), 0xFFFF0000);
-                } else if (!widgetWarnings.get(i).isEmpty()) {
-                    drawBorder(graphics, progWidgets.get(i), 0xFFFFFF00);
-                }
+        for (IProgWidget widget : visibleWidgets) {
+            if (!validator.getErrors(widget).isEmpty()) {
+                drawBorder(graphics, widget, 0xFFFF0000);
+            } else if (!validator.getWarnings(widget).isEmpty()) {
+                drawBorder(graphics, widget, 0xFFFFFF00);
             }
         }
 
@@ -218,8 +332,8 @@ public class ProgrammerWidgetAreaRenderer {
 
 //        RenderSystem.disableBlend();
 
-        if (showInfo) {
-            for (IProgWidget widget : progWidgets) {
+        if (showInfo && !simplified) {
+            for (IProgWidget widget : visibleWidgets) {
                 poseStack.pushPose();
                 poseStack.translate(widget.getX() + guiLeft, widget.getY() + guiTop, 0);
                 poseStack.scale(0.5f, 0.5f, 1.0f);
@@ -290,6 +404,7 @@ public class ProgrammerWidgetAreaRenderer {
                         int y1 = widget.getY() + widget.getHeight() / 4;
                         int x2 = labelWidget.getX() + labelWidget.getWidth() / 4;
                         int y2 = labelWidget.getY() + labelWidget.getHeight() / 4;
+                        if (!isInView(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2))) continue;
                         float midX = (x2 + x1) / 2F;
                         float midY = (y2 + y1) / 2F;
                         wr.vertex(posMat,guiLeft + x1, guiTop + y1, 0.0f).endVertex();
@@ -335,10 +450,19 @@ public class ProgrammerWidgetAreaRenderer {
     }
 
     public int getTotalErrors() {
-        return totalErrors;
+        return validator.getTotalErrors();
     }
 
     public int getTotalWarnings() {
-        return totalWarnings;
+        return validator.getTotalWarnings();
+    }
+
+    /**
+     * Check if the error and warning counts are up to date with the program, i.e. no validation is in progress.
+     *
+     * @return true if validation results are current
+     */
+    public boolean isValidated() {
+        return validator.isUpToDate();
     }
 }
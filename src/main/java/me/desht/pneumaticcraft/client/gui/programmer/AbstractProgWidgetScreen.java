@@ -70,6 +70,7 @@ public abstract class AbstractProgWidgetScreen<P extends IProgWidget> extends Ab
         // progwidget BEFORE calling super.close() !
 
         if (guiProgrammer != null) {
+            guiProgrammer.markWidgetChanged(progWidget);
             NetworkHandler.sendToServer(new PacketProgrammerUpdate(guiProgrammer.te));
         } else {
             super.removed();
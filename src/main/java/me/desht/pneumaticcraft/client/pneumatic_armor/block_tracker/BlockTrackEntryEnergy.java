@@ -37,6 +37,11 @@ import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
 public class BlockTrackEntryEnergy implements IBlockTrackEntry {
     public static final ResourceLocation ID = RL("block_tracker.module.energy");
 
+    @Override
+    public boolean requiresBlockEntity() {
+        return true;
+    }
+
     @Override
     public boolean shouldTrackWithThisEntry(BlockGetter world, BlockPos pos, BlockState state, BlockEntity te) {
         return te != null
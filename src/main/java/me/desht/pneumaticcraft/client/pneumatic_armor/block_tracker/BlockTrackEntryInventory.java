@@ -53,6 +53,11 @@ import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
 public class BlockTrackEntryInventory implements IBlockTrackEntry {
     public static final ResourceLocation ID = RL("block_tracker.module.inventories");
 
+    @Override
+    public boolean requiresBlockEntity() {
+        return true;
+    }
+
     @Override
     public boolean shouldTrackWithThisEntry(BlockGetter world, BlockPos pos, BlockState state, BlockEntity te) {
         if (te instanceof ChestBlockEntity && state.hasProperty(ChestBlock.TYPE) && state.getValue(ChestBlock.TYPE) == ChestType.RIGHT) {
@@ -45,6 +45,11 @@ import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
 public class BlockTrackEntryMobSpawner implements IBlockTrackEntry {
     public static final ResourceLocation ID = RL("block_tracker.module.spawner");
 
+    @Override
+    public boolean requiresBlockEntity() {
+        return true;
+    }
+
     @Override
     public boolean shouldTrackWithThisEntry(BlockGetter world, BlockPos pos, BlockState state, BlockEntity te) {
         return state.getBlock() == Blocks.SPAWNER;
@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public enum BlockTrackHandler {
@@ -69,17 +70,53 @@ public enum BlockTrackHandler {
     }
 
     public List<IBlockTrackEntry> getEntriesForCoordinate(BlockGetter blockAccess, BlockPos pos, BlockEntity te) {
+        return getEntriesForCoordinate(blockAccess, pos, te, tracker -> true);
+    }
+
+    /**
+     * Get the enabled entries which want to track the given position, considering only those entries which do (or
+     * don't) require a block entity.
+     *
+     * @param blockAccess the world
+     * @param pos the blockpos
+     * @param te the block entity at the pos, may be null
+     * @param blockEntityEntries true to check only entries which require a block entity, false to check only those
+     *                           which don't
+     * @return a list of entries
+     */
+    public List<IBlockTrackEntry> getEntriesForCoordinate(BlockGetter blockAccess, BlockPos pos, BlockEntity te, boolean blockEntityEntries) {
+        return getEntriesForCoordinate(blockAccess, pos, te, tracker -> tracker.requiresBlockEntity() == blockEntityEntries);
+    }
+
+    private List<IBlockTrackEntry> getEntriesForCoordinate(BlockGetter blockAccess, BlockPos pos, BlockEntity te, Predicate<IBlockTrackEntry> filter) {
         final BlockState state = blockAccess.getBlockState(pos);
         List<IBlockTrackEntry> trackers = new ArrayList<>();
         for (IBlockTrackEntry tracker : this.trackers) {
-            WidgetCheckBox checkBox = WidgetKeybindCheckBox.get(tracker.getEntryID());
-            if (checkBox != null && checkBox.isChecked() && tracker.shouldTrackWithThisEntry(blockAccess, pos, state, te)) {
+            if (filter.test(tracker) && isEnabled(tracker) && tracker.shouldTrackWithThisEntry(blockAccess, pos, state, te)) {
                 trackers.add(tracker);
             }
         }
         return trackers;
     }
 
+    /**
+     * Check if any enabled entry can track blocks without a block entity; if not, there's no need for the block
+     * tracker to scan every block in range.
+     *
+     * @return true if a full block scan is needed
+     */
+    public boolean anyEnabledEntryTracksPlainBlocks() {
+        for (IBlockTrackEntry tracker : trackers) {
+            if (!tracker.requiresBlockEntity() && isEnabled(tracker)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isEnabled(IBlockTrackEntry tracker) {
+        WidgetCheckBox checkBox = WidgetKeybindCheckBox.get(tracker.getEntryID());
+        return checkBox != null && checkBox.isChecked();
+    }
+
     public Collection<ResourceLocation> getIDs() {
         return ImmutableList.copyOf(pendingTrackers.keySet());
     }
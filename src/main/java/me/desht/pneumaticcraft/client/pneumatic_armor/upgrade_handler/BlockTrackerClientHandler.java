@@ -41,6 +41,7 @@ import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.Mth;
@@ -50,6 +51,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.Vec3;
@@ -72,7 +74,13 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
     private final Map<BlockPos, RenderBlockTarget> blockTargets = new Object2ObjectOpenHashMap<>();
     private IGuiAnimatedStat blockTrackInfo;
     private final Object2IntMap<ResourceLocation> blockTypeCount = new Object2IntOpenHashMap<>();
-    private final Object2IntMap<ResourceLocation> blockTypeCountPartial = new Object2IntOpenHashMap<>();
+    // counts from the block entity scan and the full block scan, which complete their cycles independently
+    private final Object2IntMap<ResourceLocation> blockEntityCount = new Object2IntOpenHashMap<>();
+    private final Object2IntMap<ResourceLocation> blockEntityCountPartial = new Object2IntOpenHashMap<>();
+    private final Object2IntMap<ResourceLocation> blockScanCount = new Object2IntOpenHashMap<>();
+    private final Object2IntMap<ResourceLocation> blockScanCountPartial = new Object2IntOpenHashMap<>();
+    private final List<BlockEntity> chunkBlockEntities = new ArrayList<>();
+    private int beChunkCursor = 0;
     private int xOff = 0, yOff = 0, zOff = 0;
     private RenderBlockTarget focusedTarget = null;
     private Direction focusedFace = null;
@@ -88,7 +96,8 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
         int blockTrackRange = BLOCK_TRACKING_RANGE + Math.min(armorHandler.getUpgradeCount(EquipmentSlot.HEAD, ModUpgrades.RANGE.get()), 5) * PneumaticValues.RANGE_UPGRADE_HELMET_RANGE_INCREASE;
         int blockTrackRangeSq = blockTrackRange * blockTrackRange;
 
-        long now = System.nanoTime();
+        // 1% of a tick = 500,000ns
+        long deadline = System.nanoTime() + ConfigHelper.client().armor.blockTrackerMaxTimePerTick.get() * 500_000L;
 
         Player player = armorHandler.getPlayer();
         Level world = armorHandler.getPlayer().level();
@@ -96,10 +105,69 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
         SearchClientHandler searcher = ClientArmorRegistry.getInstance()
                 .getClientHandler(CommonUpgradeHandlers.searchHandler, SearchClientHandler.class);
 
+        // blocks with block entities are found from the loaded chunks' block entity maps
+        scanBlockEntities(world, player, blockTrackRange, blockTrackRangeSq, deadline, searcher);
+
+        // every block in range only needs to be scanned if some enabled tracker can track blocks with no block entity
+        if (BlockTrackHandler.getInstance().anyEnabledEntryTracksPlainBlocks()) {
+            scanBlocks(world, player, blockTrackRange, blockTrackRangeSq, deadline, searcher);
+        } else if (!blockScanCount.isEmpty() || !blockScanCountPartial.isEmpty()) {
+            blockScanCountPartial.clear();
+            blockScanCount.clear();
+            updateBlockTypeCounts();
+        }
+
+        checkBlockFocus(player, blockTrackRange);
+
+        processTrackerEntries(blockTrackRange);
+
+        updateTrackerText();
+    }
+
+    private void scanBlockEntities(Level world, Player player, int blockTrackRange, int blockTrackRangeSq, long deadline, SearchClientHandler searcher) {
+        int chunkRange = SectionPos.blockToSectionCoord(blockTrackRange) + 1;
+        int chunksPerSide = chunkRange * 2 + 1;
+        int nChunks = chunksPerSide * chunksPerSide;
+        BlockPos playerPos = player.blockPosition();
+        int playerChunkX = SectionPos.blockToSectionCoord(playerPos.getX());
+        int playerChunkZ = SectionPos.blockToSectionCoord(playerPos.getZ());
+
+        for (int n = 0; n < nChunks; n++) {
+            if (n > 0 && System.nanoTime() > deadline) break;
+
+            if (beChunkCursor >= nChunks) beChunkCursor = 0;  // range may have shrunk
+            int cx = playerChunkX + beChunkCursor % chunksPerSide - chunkRange;
+            int cz = playerChunkZ + beChunkCursor / chunksPerSide - chunkRange;
+            LevelChunk chunk = world.getChunkSource().getChunk(cx, cz, false);
+            if (chunk != null) {
+                // copy, since trackers may cause block entities to be created while we're processing them
+                chunkBlockEntities.addAll(chunk.getBlockEntities().values());
+                for (BlockEntity te : chunkBlockEntities) {
+                    BlockPos pos = te.getBlockPos();
+                    if (!te.isRemoved()
+                            && Math.abs(pos.getX() - playerPos.getX()) <= blockTrackRange
+                            && Math.abs(pos.getY() - playerPos.getY()) <= blockTrackRange
+                            && Math.abs(pos.getZ() - playerPos.getZ()) <= blockTrackRange) {
+                        trackPosition(world, player, pos, te, true, blockTrackRangeSq, searcher);
+                    }
+                }
+                chunkBlockEntities.clear();
+            }
+
+            if (++beChunkCursor >= nChunks) {
+                beChunkCursor = 0;
+                blockEntityCount.clear();
+                blockEntityCount.putAll(blockEntityCountPartial);
+                blockEntityCountPartial.clear();
+                updateBlockTypeCounts();
+            }
+        }
+    }
+
+    private void scanBlocks(Level world, Player player, int blockTrackRange, int blockTrackRangeSq, long deadline, SearchClientHandler searcher) {
         BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         for (int i = 0; i < HARD_MAX_BLOCKS_PER_TICK; i++) {
-            // 1% of a tick = 500,000ns
-            if ((i & 0xff) == 0 && System.nanoTime() - now > ConfigHelper.client().armor.blockTrackerMaxTimePerTick.get() * 500_000L) {
+            if ((i & 0xff) == 0 && System.nanoTime() > deadline) {
                 break;
             }
 
@@ -109,35 +177,36 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
 
             if (world.isEmptyBlock(pos)) continue;
 
-            BlockEntity te = world.getBlockEntity(pos);
+            trackPosition(world, player, pos, world.getBlockEntity(pos), false, blockTrackRangeSq, searcher);
+        }
+    }
 
-            if (!MinecraftForge.EVENT_BUS.post(new BlockTrackEvent(world, pos, te))) {
-                if (te != null && te.getCapability(ForgeCapabilities.ITEM_HANDLER).isPresent()) {
-                    searcher.onBlockTrackStart(te);
-                }
-                List<IBlockTrackEntry> entries = BlockTrackHandler.getInstance().getEntriesForCoordinate(world, pos, te);
-                if (!entries.isEmpty()) {
-                    entries.forEach(entry -> blockTypeCountPartial.mergeInt(entry.getEntryID(), 1, Integer::sum));
-
-                    // there's at least one tracker type relevant to this blockpos
-                    RenderBlockTarget blockTarget = blockTargets.get(pos);
-                    if (blockTarget != null) {
-                        // we already have a tracker active for this pos so just ensure that it stays valid
-                        blockTarget.markValid();
-                        blockTarget.setTileEntity(te);
-                    } else if (pos.distSqr(player.blockPosition()) < blockTrackRangeSq) {
-                        // no tracker currently active for this pos - add a new one
-                        addBlockTarget(new RenderBlockTarget(world, player, pos.immutable(), te, this));
-                    }
+    /**
+     * Check the given position against either those trackers which need a block entity (found via the block entity
+     * scan), or those which don't (found via the full block scan).
+     */
+    private void trackPosition(Level world, Player player, BlockPos pos, BlockEntity te, boolean blockEntityEntries, int blockTrackRangeSq, SearchClientHandler searcher) {
+        if (!MinecraftForge.EVENT_BUS.post(new BlockTrackEvent(world, pos, te))) {
+            if (blockEntityEntries && te.getCapability(ForgeCapabilities.ITEM_HANDLER).isPresent()) {
+                searcher.onBlockTrackStart(te);
+            }
+            List<IBlockTrackEntry> entries = BlockTrackHandler.getInstance().getEntriesForCoordinate(world, pos, te, blockEntityEntries);
+            if (!entries.isEmpty()) {
+                Object2IntMap<ResourceLocation> counts = blockEntityEntries ? blockEntityCountPartial : blockScanCountPartial;
+                entries.forEach(entry -> counts.mergeInt(entry.getEntryID(), 1, Integer::sum));
+
+                // there's at least one tracker type relevant to this blockpos
+                RenderBlockTarget blockTarget = blockTargets.get(pos);
+                if (blockTarget != null) {
+                    // we already have a tracker active for this pos so just ensure that it stays valid
+                    blockTarget.markValid();
+                    blockTarget.setTileEntity(te);
+                } else if (pos.distSqr(player.blockPosition()) < blockTrackRangeSq) {
+                    // no tracker currently active for this pos - add a new one
+                    addBlockTarget(new RenderBlockTarget(world, player, pos.immutable(), te, this));
                 }
             }
         }
-
-        checkBlockFocus(player, blockTrackRange);
-
-        processTrackerEntries(blockTrackRange);
-
-        updateTrackerText();
     }
 
     private void checkBlockFocus(Player player, int blockTrackRange) {
@@ -184,7 +253,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = 0;
                         if (++zOff > range) {
                             zOff = -range;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -196,7 +265,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = 0;
                         if (++zOff > range) {
                             zOff = -range;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -208,7 +277,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = -range;
                         if (++zOff > range) {
                             zOff = -range;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -220,7 +289,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = -range;
                         if (++zOff > range) {
                             zOff = -range;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -232,7 +301,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = -range;
                         if (--zOff < -range) {
                             zOff = 0;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -244,7 +313,7 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
                         yOff = -range;
                         if (++zOff > range) {
                             zOff = 0;
-                            updateBlockTypeCounts();
+                            finishBlockScan();
                         }
                     }
                 }
@@ -255,10 +324,17 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
         pos.set(player.getX() + xOff, Mth.clamp(player.getY() + yOff, minY, maxY), player.getZ() + zOff);
     }
 
+    private void finishBlockScan() {
+        blockScanCount.clear();
+        blockScanCount.putAll(blockScanCountPartial);
+        blockScanCountPartial.clear();
+        updateBlockTypeCounts();
+    }
+
     private void updateBlockTypeCounts() {
         blockTypeCount.clear();
-        blockTypeCount.putAll(blockTypeCountPartial);
-        blockTypeCountPartial.clear();
+        blockTypeCount.putAll(blockEntityCount);
+        blockScanCount.forEach((id, count) -> blockTypeCount.mergeInt(id, count, Integer::sum));
     }
 
     /**
@@ -314,8 +390,13 @@ public class BlockTrackerClientHandler extends IArmorUpgradeClientHandler.Abstra
 
     @Override
     public void reset() {
-        blockTypeCountPartial.clear();
+        blockEntityCountPartial.clear();
+        blockEntityCount.clear();
+        blockScanCountPartial.clear();
+        blockScanCount.clear();
         blockTypeCount.clear();
+        chunkBlockEntities.clear();
+        beChunkCursor = 0;
         blockTargets.clear();
         blockTrackInfo = null;
     }
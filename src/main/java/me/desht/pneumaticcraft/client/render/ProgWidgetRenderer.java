@@ -31,6 +31,7 @@ import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.FormattedCharSequence;
 import net.minecraft.world.item.ItemStack;
 import org.apache.commons.lang3.tuple.Pair;
@@ -79,6 +80,67 @@ public class ProgWidgetRenderer {
         renderProgWidget2d(graphics, progWidget, 255);
     }
 
+    /**
+     * Render a batch of progwidgets which all use the same texture with a single draw call. Widgets are drawn at half
+     * size, at their position in the programming area plus the given offset, as the Programmer GUI lays them out.
+     *
+     * @param graphics the matrix stack
+     * @param texture the texture shared by all the widgets
+     * @param progWidgets the progwidgets
+     * @param offsetX X offset to add to each widget's position
+     * @param offsetY Y offset to add to each widget's position
+     */
+    public static void renderProgWidgets2d(GuiGraphics graphics, ResourceLocation texture, List<IProgWidget> progWidgets, int offsetX, int offsetY) {
+        RenderSystem.setShader(GameRenderer::getPositionColorTexShader);
+        RenderSystem.setShaderTexture(0, texture);
+        RenderSystem.setShaderColor(1f, 1f, 1f, 1f);
+        Matrix4f posMat = graphics.pose().last().pose();
+        BufferBuilder wr = Tesselator.getInstance().getBuilder();
+        wr.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_COLOR_TEX);
+        for (IProgWidget progWidget : progWidgets) {
+            float x = offsetX + progWidget.getX();
+            float y = offsetY + progWidget.getY();
+            float width = (progWidget.getWidth() + (progWidget.getParameters().isEmpty() ? 0 : 10)) / 2f;
+            float height = (progWidget.getHeight() + (progWidget.hasStepOutput() ? 10 : 0)) / 2f;
+            Pair<Float,Float> maxUV = progWidget.getMaxUV();
+            float u = maxUV.getLeft();
+            float v = maxUV.getRight();
+            wr.vertex(posMat, x, y, 0).color(255, 255, 255, 255).uv(0, 0).endVertex();
+            wr.vertex(posMat, x, y + height, 0).color(255, 255, 255, 255).uv(0, v).endVertex();
+            wr.vertex(posMat, x + width, y + height, 0).color(255, 255, 255, 255).uv(u, v).endVertex();
+            wr.vertex(posMat, x + width, y, 0).color(255, 255, 255, 255).uv(u, 0).endVertex();
+        }
+        Tesselator.getInstance().end();
+    }
+
+    /**
+     * Render a batch of progwidgets as plain boxes in the widgets' colours, with a single draw call. Used when the
+     * Programmer GUI is zoomed too far out for widget details to be visible.
+     *
+     * @param graphics the matrix stack
+     * @param progWidgets the progwidgets
+     * @param offsetX X offset to add to each widget's position
+     * @param offsetY Y offset to add to each widget's position
+     */
+    public static void renderProgWidgetBoxes2d(GuiGraphics graphics, List<IProgWidget> progWidgets, int offsetX, int offsetY) {
+        RenderSystem.setShader(GameRenderer::getPositionColorShader);
+        Matrix4f posMat = graphics.pose().last().pose();
+        BufferBuilder wr = Tesselator.getInstance().getBuilder();
+        wr.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_COLOR);
+        for (IProgWidget progWidget : progWidgets) {
+            float x = offsetX + progWidget.getX();
+            float y = offsetY + progWidget.getY();
+            float width = progWidget.getWidth() / 2f;
+            float height = progWidget.getHeight() / 2f;
+            float[] cols = progWidget.getColor().getTextureDiffuseColors();
+            wr.vertex(posMat, x, y, 0).color(cols[0], cols[1], cols[2], 1f).endVertex();
+            wr.vertex(posMat, x, y + height, 0).color(cols[0], cols[1], cols[2], 1f).endVertex();
+            wr.vertex(posMat, x + width, y + height, 0).color(cols[0], cols[1], cols[2], 1f).endVertex();
+            wr.vertex(posMat, x + width, y, 0).color(cols[0], cols[1], cols[2], 1f).endVertex();
+        }
+        Tesselator.getInstance().end();
+    }
+
     /**
      * Handle in-world progwidget rendering (e.g. for drone debugging)
      *
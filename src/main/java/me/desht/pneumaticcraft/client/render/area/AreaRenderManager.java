@@ -109,6 +109,8 @@ public enum AreaRenderManager {
         maybeRenderCoordinateTracker(matrixStack, buffer, player, event.getPartialTick());
 
         matrixStack.popPose();
+
+        AreaRenderer.endFrame();
     }
 
     @SubscribeEvent
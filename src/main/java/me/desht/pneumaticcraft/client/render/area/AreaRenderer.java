@@ -17,25 +17,51 @@
 
 package me.desht.pneumaticcraft.client.render.area;
 
-import com.mojang.blaze3d.vertex.PoseStack;
-import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.*;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import me.desht.pneumaticcraft.client.render.ModRenderTypes;
 import me.desht.pneumaticcraft.client.util.ClientUtils;
 import me.desht.pneumaticcraft.client.util.RenderUtils;
 import me.desht.pneumaticcraft.common.block.AbstractCamouflageBlock;
+import me.desht.pneumaticcraft.common.util.DirectionUtil;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.shapes.CollisionContext;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.joml.Matrix4f;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Renders a set of block positions as highlighted cubes (or block shapes).
+ * <p>
+ * Small areas are simply drawn each frame. Larger areas are built once into GPU vertex buffers, which are only
+ * rebuilt when the set of positions changes (and periodically, if what's drawn depends on the blocks in the world).
+ * Faces shared between adjacent full-size cubes are culled, so only the hull of the area is drawn; if even the hull
+ * is too large, the area is instead drawn as the outlines of a set of merged boxes. Buffers which haven't been drawn
+ * for a while are released, and will be rebuilt if needed again.
+ */
 public class AreaRenderer {
+    // areas smaller than this are just drawn directly every frame
+    private static final int MIN_BUFFERED_SIZE = 64;
+    // areas with more hull faces than this are drawn as merged boxes
+    private static final int MAX_HULL_FACES = 100_000;
+    // how often to rebuild buffered geometry which depends on the blocks in the world
+    private static final int WORLD_REFRESH_TICKS = 20;
+    private static final int RELEASE_AFTER_FRAMES = 200;
+
+    private static final List<AreaRenderer> buffered = new ArrayList<>();
+    private static int frameCount;
+
     private final Set<BlockPos> showingPositions;
     private final int color;
     private final float size;
@@ -44,6 +70,16 @@ public class AreaRenderer {
     private final boolean drawFaces;
     private final boolean disableWriteMask;
 
+    private VertexBuffer faceBuffer;
+    private VertexBuffer lineBuffer;
+    private BlockPos origin;
+    private boolean built;
+    // copy of the positions the buffers were built from; the shown set may be modified by its owner at any time
+    private final LongOpenHashSet builtPositions = new LongOpenHashSet();
+    private long lastBuildTick;
+    private long lastCheckTick = Long.MIN_VALUE;
+    private int lastRenderFrame;
+
     private AreaRenderer(Set<BlockPos> area, int color, float size, boolean disableDepthTest, boolean drawShapes, boolean disableWriteMask, boolean drawFaces) {
         this.showingPositions = area;
         this.color = color;
@@ -59,109 +95,306 @@ public class AreaRenderer {
 //    }
 
     public void render(PoseStack matrixStack, MultiBufferSource buffer) {
+        if (showingPositions.isEmpty()) return;
+
+        Level level = ClientUtils.getClientLevel();
+        if (showingPositions.size() < MIN_BUFFERED_SIZE) {
+            renderDirect(matrixStack, buffer, new Geometry(level));
+            return;
+        }
+
+        if (needsRebuild(level)) {
+            rebuild(level);
+        }
+        lastRenderFrame = frameCount;
+        if (origin == null) return;
+
+        matrixStack.pushPose();
+        matrixStack.translate(origin.getX(), origin.getY(), origin.getZ());
+        if (drawFaces) {
+            drawBuffer(faceBuffer, ModRenderTypes.getBlockHilightFace(disableDepthTest, disableWriteMask), matrixStack);
+        }
+        drawBuffer(lineBuffer, ModRenderTypes.getBlockHilightLine(disableDepthTest, disableWriteMask), matrixStack);
+        matrixStack.popPose();
+    }
+
+    /**
+     * Called once per frame, after all area rendering is done, to release buffers which are no longer being drawn.
+     */
+    static void endFrame() {
+        frameCount++;
+        buffered.removeIf(renderer -> {
+            if (frameCount - renderer.lastRenderFrame > RELEASE_AFTER_FRAMES) {
+                renderer.releaseBuffers();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void renderDirect(PoseStack matrixStack, MultiBufferSource buffer, Geometry geometry) {
+        if (geometry.origin == null) return;
+
+        matrixStack.pushPose();
+        matrixStack.translate(geometry.origin.getX(), geometry.origin.getY(), geometry.origin.getZ());
+        Matrix4f posMat = matrixStack.last().pose();
         if (drawFaces) {
             RenderType type = ModRenderTypes.getBlockHilightFace(disableDepthTest, disableWriteMask);
-            render(matrixStack, buffer.getBuffer(type));
+            geometry.emit(buffer.getBuffer(type), null, posMat);
             RenderUtils.finishBuffer(buffer, type);
         }
 
         RenderType type = ModRenderTypes.getBlockHilightLine(disableDepthTest, disableWriteMask);
-        render(matrixStack, buffer.getBuffer(type));
+        geometry.emit(null, buffer.getBuffer(type), posMat);
         RenderUtils.finishBuffer(buffer, type);
+        matrixStack.popPose();
     }
 
-    private void render(PoseStack matrixStack, VertexConsumer builder) {
-        int[] cols = RenderUtils.decomposeColor(color);
+    private boolean needsRebuild(Level level) {
+        if (!built) return true;
+
+        long now = level.getGameTime();
+        if (now == lastCheckTick) return false;
+        lastCheckTick = now;
+
+        boolean worldDependent = drawShapes || !isXray();
+        return worldDependent && now - lastBuildTick >= WORLD_REFRESH_TICKS
+                || !isSameAsBuilt();
+    }
+
+    private boolean isSameAsBuilt() {
+        if (showingPositions.size() != builtPositions.size()) return false;
         for (BlockPos pos : showingPositions) {
-            matrixStack.pushPose();
-            if (drawShapes) {
-                matrixStack.translate(pos.getX(), pos.getY(), pos.getZ());
+            if (!builtPositions.contains(pos.asLong())) return false;
+        }
+        return true;
+    }
+
+    private void rebuild(Level level) {
+        releaseBuffers();
+        if (!buffered.contains(this)) buffered.add(this);
+
+        built = true;
+        showingPositions.forEach(pos -> builtPositions.add(pos.asLong()));
+        lastBuildTick = level.getGameTime();
+
+        Geometry geometry = new Geometry(level);
+        origin = geometry.origin;
+        if (origin == null) return;
+
+        Matrix4f identity = new Matrix4f();
+        BufferBuilder builder = Tesselator.getInstance().getBuilder();
+        if (drawFaces) {
+            builder.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_COLOR);
+            geometry.emit(builder, null, identity);
+            faceBuffer = upload(builder.end());
+        }
+        builder.begin(VertexFormat.Mode.DEBUG_LINES, DefaultVertexFormat.POSITION_COLOR);
+        geometry.emit(null, builder, identity);
+        lineBuffer = upload(builder.end());
+    }
+
+    private static VertexBuffer upload(BufferBuilder.RenderedBuffer renderedBuffer) {
+        VertexBuffer vertexBuffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+        vertexBuffer.bind();
+        vertexBuffer.upload(renderedBuffer);
+        VertexBuffer.unbind();
+        return vertexBuffer;
+    }
+
+    private static void drawBuffer(VertexBuffer vertexBuffer, RenderType type, PoseStack matrixStack) {
+        if (vertexBuffer == null) return;
+
+        type.setupRenderState();
+        vertexBuffer.bind();
+        vertexBuffer.drawWithShader(matrixStack.last().pose(), RenderSystem.getProjectionMatrix(), RenderSystem.getShader());
+        VertexBuffer.unbind();
+        type.clearRenderState();
+    }
+
+    private void releaseBuffers() {
+        if (faceBuffer != null) {
+            faceBuffer.close();
+            faceBuffer = null;
+        }
+        if (lineBuffer != null) {
+            lineBuffer.close();
+            lineBuffer = null;
+        }
+        origin = null;
+        built = false;
+        builtPositions.clear();
+        builtPositions.trim();
+    }
+
+    private boolean isXray() {
+        return disableDepthTest || disableWriteMask;
+    }
+
+    /**
+     * The geometry of the area at a point in time: which positions are actually drawn, and how.
+     */
+    private class Geometry {
+        private final Level level;
+        private final long[] positions;
+        private final LongOpenHashSet drawn = new LongOpenHashSet();
+        private final BlockPos origin;
+        private final boolean cullHull;
+        private final List<int[]> boxes;  // merged boxes, as min & max corners; only used for very large areas
+        private final int[] cols = RenderUtils.decomposeColor(color);
+
+        Geometry(Level level) {
+            this.level = level;
+
+            boolean xray = isXray();
+            for (BlockPos pos : showingPositions) {
+                if (xray || level.getBlockState(pos).canBeReplaced()) {
+                    drawn.add(pos.asLong());
+                }
+            }
+            positions = drawn.toLongArray();
+            LongArrays.quickSort(positions);
+            origin = positions.length == 0 ? null : BlockPos.of(positions[0]);
+
+            // faces can only be culled when adjacent cubes actually touch
+            cullHull = !drawShapes && size >= 1f;
+            boxes = !drawShapes && countVisibleFaces() > MAX_HULL_FACES ? mergeBoxes() : null;
+        }
+
+        private int countVisibleFaces() {
+            if (!cullHull) return positions.length * 6;
+
+            int n = 0;
+            for (long l : positions) {
+                n += Integer.bitCount(visibleFaces(l));
+            }
+            return n;
+        }
+
+        private int visibleFaces(long packedPos) {
+            if (!cullHull) return 0x3f;
+
+            int mask = 0;
+            for (Direction dir : DirectionUtil.VALUES) {
+                if (!drawn.contains(BlockPos.offset(packedPos, dir))) mask |= 1 << dir.get3DDataValue();
+            }
+            return mask;
+        }
+
+        /**
+         * Greedily merge the drawn positions into boxes: extend along X, then Z, then Y.
+         */
+        private List<int[]> mergeBoxes() {
+            List<int[]> res = new ArrayList<>();
+            LongOpenHashSet remaining = new LongOpenHashSet(drawn);
+            for (long l : positions) {
+                if (!remaining.contains(l)) continue;
+                int x1 = BlockPos.getX(l), y1 = BlockPos.getY(l), z1 = BlockPos.getZ(l);
+                int x2 = x1, y2 = y1, z2 = z1;
+                while (remaining.contains(BlockPos.asLong(x2 + 1, y1, z1))) x2++;
+                while (allPresent(remaining, x1, x2, y1, y1, z2 + 1, z2 + 1)) z2++;
+                while (allPresent(remaining, x1, x2, y2 + 1, y2 + 1, z1, z2)) y2++;
+                for (int x = x1; x <= x2; x++) {
+                    for (int y = y1; y <= y2; y++) {
+                        for (int z = z1; z <= z2; z++) {
+                            remaining.remove(BlockPos.asLong(x, y, z));
+                        }
+                    }
+                }
+                res.add(new int[] { x1, y1, z1, x2, y2, z2 });
+            }
+            return res;
+        }
+
+        private static boolean allPresent(LongOpenHashSet set, int x1, int x2, int y1, int y2, int z1, int z2) {
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    for (int z = z1; z <= z2; z++) {
+                        if (!set.contains(BlockPos.asLong(x, y, z))) return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Add vertices for the area, relative to the origin position.
+         *
+         * @param faces consumer for face quads, or null to skip faces
+         * @param lines consumer for edge lines, or null to skip lines
+         * @param posMat the pose matrix
+         */
+        void emit(VertexConsumer faces, VertexConsumer lines, Matrix4f posMat) {
+            int ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+            float start = drawShapes ? 0f : (1 - size) / 2f;
+            if (boxes != null) {
+                for (int[] box : boxes) {
+                    addCube(faces, lines, posMat, box[0] - ox + start, box[1] - oy + start, box[2] - oz + start,
+                            box[3] - ox + 1 - start, box[4] - oy + 1 - start, box[5] - oz + 1 - start, 0x3f);
+                }
+            } else if (drawShapes) {
+                BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+                for (long l : positions) {
+                    pos.set(l);
+                    BlockState state = level.getBlockState(pos);
+                    VoxelShape shape = state.getBlock() instanceof AbstractCamouflageBlock c ?
+                            c.getUncamouflagedShape(state, level, pos, CollisionContext.empty()) :
+                            state.getShape(level, pos, CollisionContext.empty());
+                    float dx = pos.getX() - ox, dy = pos.getY() - oy, dz = pos.getZ() - oz;
+                    shape.forAllBoxes((x1, y1, z1, x2, y2, z2) -> addCube(faces, lines, posMat,
+                            dx + (float) x1, dy + (float) y1, dz + (float) z1, dx + (float) x2, dy + (float) y2, dz + (float) z2, 0x3f));
+                }
             } else {
-                double start = (1 - size) / 2.0;
-                matrixStack.translate(pos.getX() + start, pos.getY() + start, pos.getZ() + start);
+                for (long l : positions) {
+                    float x = BlockPos.getX(l) - ox + start, y = BlockPos.getY(l) - oy + start, z = BlockPos.getZ(l) - oz + start;
+                    addCube(faces, lines, posMat, x, y, z, x + size, y + size, z + size, visibleFaces(l));
+                }
             }
-            Matrix4f posMat = matrixStack.last().pose();
-            addVertices(builder, posMat, pos, cols);
-            matrixStack.popPose();
         }
-    }
 
-    private void addVertices(VertexConsumer wr, Matrix4f posMat, BlockPos pos, int[] cols) {
-        Level level = ClientUtils.getClientLevel();
-        BlockState state = level.getBlockState(pos);
-        boolean xray = disableDepthTest || disableWriteMask;
-        if (!xray && !state.canBeReplaced()) return;
-        if (drawShapes) {
-            VoxelShape shape = state.getBlock() instanceof AbstractCamouflageBlock c ?
-                    c.getUncamouflagedShape(state, level, pos, CollisionContext.empty()) :
-                    state.getShape(level, pos, CollisionContext.empty());
-            shape.forAllBoxes((x1d, y1d, z1d, x2d, y2d, z2d) -> {
-                float x1 = (float) x1d;
-                float x2 = (float) x2d;
-                float y1 = (float) y1d;
-                float y2 = (float) y2d;
-                float z1 = (float) z1d;
-                float z2 = (float) z2d;
-                wr.vertex(posMat, x1, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-                wr.vertex(posMat, x2, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-                wr.vertex(posMat, x1, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-                wr.vertex(posMat, x2, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-                wr.vertex(posMat, x1, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y1, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y1, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-                wr.vertex(posMat, x1, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y2, z2).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x2, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-                wr.vertex(posMat, x1, y2, z1).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            });
-        } else {
-            wr.vertex(posMat, 0, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-            wr.vertex(posMat, size, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-            wr.vertex(posMat, 0, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-            wr.vertex(posMat, size, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-            wr.vertex(posMat, 0, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, 0, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, 0, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-
-            wr.vertex(posMat, 0, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, size, size).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, size, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
-            wr.vertex(posMat, 0, size, 0).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+        private void addCube(VertexConsumer faces, VertexConsumer lines, Matrix4f m, float x1, float y1, float z1, float x2, float y2, float z2, int visible) {
+            if (visible == 0) return;
+
+            boolean down = (visible & 0x01) != 0, up = (visible & 0x02) != 0;
+            boolean north = (visible & 0x04) != 0, south = (visible & 0x08) != 0;
+            boolean west = (visible & 0x10) != 0, east = (visible & 0x20) != 0;
+
+            if (faces != null) {
+                if (north) quad(faces, m, x1, y1, z1, x1, y2, z1, x2, y2, z1, x2, y1, z1);
+                if (south) quad(faces, m, x2, y1, z2, x2, y2, z2, x1, y2, z2, x1, y1, z2);
+                if (west) quad(faces, m, x1, y1, z1, x1, y1, z2, x1, y2, z2, x1, y2, z1);
+                if (east) quad(faces, m, x2, y2, z1, x2, y2, z2, x2, y1, z2, x2, y1, z1);
+                if (down) quad(faces, m, x1, y1, z1, x2, y1, z1, x2, y1, z2, x1, y1, z2);
+                if (up) quad(faces, m, x1, y2, z2, x2, y2, z2, x2, y2, z1, x1, y2, z1);
+            }
+            if (lines != null) {
+                // each edge is drawn if either of the faces it borders is visible
+                if (down || north) line(lines, m, x1, y1, z1, x2, y1, z1);
+                if (down || south) line(lines, m, x1, y1, z2, x2, y1, z2);
+                if (up || north) line(lines, m, x1, y2, z1, x2, y2, z1);
+                if (up || south) line(lines, m, x1, y2, z2, x2, y2, z2);
+                if (west || north) line(lines, m, x1, y1, z1, x1, y2, z1);
+                if (east || north) line(lines, m, x2, y1, z1, x2, y2, z1);
+                if (west || south) line(lines, m, x1, y1, z2, x1, y2, z2);
+                if (east || south) line(lines, m, x2, y1, z2, x2, y2, z2);
+                if (west || down) line(lines, m, x1, y1, z1, x1, y1, z2);
+                if (east || down) line(lines, m, x2, y1, z1, x2, y1, z2);
+                if (west || up) line(lines, m, x1, y2, z1, x1, y2, z2);
+                if (east || up) line(lines, m, x2, y2, z1, x2, y2, z2);
+            }
+        }
+
+        private void quad(VertexConsumer wr, Matrix4f m, float xa, float ya, float za, float xb, float yb, float zb,
+                          float xc, float yc, float zc, float xd, float yd, float zd) {
+            wr.vertex(m, xa, ya, za).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+            wr.vertex(m, xb, yb, zb).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+            wr.vertex(m, xc, yc, zc).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+            wr.vertex(m, xd, yd, zd).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+        }
+
+        private void line(VertexConsumer wr, Matrix4f m, float xa, float ya, float za, float xb, float yb, float zb) {
+            wr.vertex(m, xa, ya, za).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
+            wr.vertex(m, xb, yb, zb).color(cols[1], cols[2], cols[3], cols[0]).endVertex();
         }
     }
 
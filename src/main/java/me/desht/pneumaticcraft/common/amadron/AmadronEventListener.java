@@ -85,7 +85,7 @@ public class AmadronEventListener {
         if (offer instanceof AmadronPlayerOffer || offer.getMaxStock() >= 0) {
             // restore stock to previous level (we reduced stock in AmadronMenu#retrieveOrderItems())
             offer.setStock(offer.getStock() + drone.getOfferTimes());
-            if (offer instanceof AmadronPlayerOffer) AmadronPlayerOffers.save();
+            AmadronPlayerOffers.offerChanged(offer);
             NetworkHandler.sendNonLocal(new PacketAmadronStockUpdate(offer.getId(), offer.getStock()));
         }
     }
@@ -113,7 +113,8 @@ public class AmadronEventListener {
                 NetworkHandler.sendNonLocal(new PacketAmadronStockUpdate(playerOffer.getId(), playerOffer.getStock()));
                 playerOffer.notifyRestock();
             }
-            AmadronPlayerOffers.save();
+            AmadronPlayerOffers.offerChanged(offer);
+            AmadronPlayerOffers.offerChanged(playerOffer);
         }
     }
 
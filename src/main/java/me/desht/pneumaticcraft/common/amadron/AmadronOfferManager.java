@@ -105,7 +105,7 @@ public enum AmadronOfferManager {
         addOffer(allOffers, offer);
         addOffer(allOffers, offer.getReversedOffer());
         NetworkHandler.sendNonLocal(new PacketSyncAmadronOffers(true));
-        saveAll();
+        AmadronPlayerOffers.offerChanged(offer);
         return true;
     }
 
@@ -115,7 +115,7 @@ public enum AmadronOfferManager {
             allOffers.remove(offer.getId());
             allOffers.remove(AmadronPlayerOffer.getReversedId(offer.getId()));
             NetworkHandler.sendNonLocal(new PacketSyncAmadronOffers(true));
-            saveAll();
+            AmadronPlayerOffers.offerRemoved(offer.getId());
             return true;
         } else {
             return false;
@@ -193,7 +193,6 @@ public enum AmadronOfferManager {
      * any pending payments for custom offers.
      */
     public void tryRestockPlayerOffers() {
-        boolean needSave = false;
         for (AmadronPlayerOffer offer : getPlayerOffers().values()) {
             AmadronPlayerOffer reversed = offer.getReversedOffer();
             BlockEntity provider = offer.getProvidingTileEntity();
@@ -209,9 +208,8 @@ public enum AmadronOfferManager {
                             "Restock", AmadroneEntity.AmadronAction.RESTOCKING);
                 }
             }
-            if (offer.payout()) needSave = true;
+            if (offer.payout()) AmadronPlayerOffers.offerChanged(offer);
         }
-        if (needSave) saveAll();
     }
 
     /**
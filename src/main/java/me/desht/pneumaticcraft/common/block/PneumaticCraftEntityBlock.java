@@ -1,6 +1,7 @@
 package me.desht.pneumaticcraft.common.block;
 
 import me.desht.pneumaticcraft.common.block.entity.AbstractTickingBlockEntity;
+import me.desht.pneumaticcraft.common.debug.TickProfiler;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.EntityBlock;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -16,6 +17,7 @@ public interface PneumaticCraftEntityBlock extends EntityBlock {
     default <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level pLevel, BlockState pState, BlockEntityType<T> pBlockEntityType) {
         return (level1, blockPos, blockState, t) -> {
             if (t instanceof AbstractTickingBlockEntity tickable) {
+                long start = TickProfiler.start();
                 tickable.tickCommonPre();
                 if (level1.isClientSide()) {
                     tickable.tickClient();
@@ -23,6 +25,7 @@ public interface PneumaticCraftEntityBlock extends EntityBlock {
                     tickable.tickServer();
                 }
                 tickable.tickCommonPost();
+                TickProfiler.recordBlockEntity(tickable, start);
             }
         };
     }
@@ -21,6 +21,7 @@ import me.desht.pneumaticcraft.common.block.OmnidirectionalHopperBlock;
 import me.desht.pneumaticcraft.common.network.DescSynced;
 import me.desht.pneumaticcraft.common.network.GuiSynced;
 import me.desht.pneumaticcraft.common.upgrades.ModUpgrades;
+import me.desht.pneumaticcraft.common.util.PickupEntityIndex;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
@@ -35,7 +36,6 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public abstract class AbstractHopperBlockEntity<T extends BlockEntity & IRedstoneControl<T>> extends AbstractTickingBlockEntity
@@ -93,11 +93,11 @@ public abstract class AbstractHopperBlockEntity<T extends BlockEntity & IRedston
             if (--entityScanCooldown <= 0) {
                 cachedInputEntities.clear();
                 if (shouldScanForEntities(inputDir)) {
-                    cachedInputEntities.addAll(nonNullLevel().getEntitiesOfClass(Entity.class, inputAABB, EntitySelector.ENTITY_STILL_ALIVE));
+                    scanForEntities(inputAABB, cachedInputEntities);
                 }
                 cachedOutputEntities.clear();
                 if (shouldScanForEntities(getRotation())) {
-                    cachedOutputEntities.addAll(nonNullLevel().getEntitiesOfClass(Entity.class, outputAABB, EntitySelector.ENTITY_STILL_ALIVE));
+                    scanForEntities(outputAABB, cachedOutputEntities);
                 }
                 entityScanCooldown = BASE_TICK_RATE;
             }
@@ -200,8 +200,15 @@ public abstract class AbstractHopperBlockEntity<T extends BlockEntity & IRedston
         return true;
     }
 
-    List<ItemEntity> getNeighborItems(AABB aabb) {
-        return aabb == null ? Collections.emptyList() : level.getEntitiesOfClass(ItemEntity.class, aabb, EntitySelector.ENTITY_STILL_ALIVE);
+    private void scanForEntities(AABB aabb, List<Entity> out) {
+        if (getUpgrades(ModUpgrades.ENTITY_TRACKER.get()) > 0) {
+            // any entity with an item or fluid capability can be interacted with
+            out.addAll(nonNullLevel().getEntitiesOfClass(Entity.class, aabb, EntitySelector.ENTITY_STILL_ALIVE));
+        } else {
+            // only item entities are of interest; share the per-tick pickup index with other hoppers and magnets
+            PickupEntityIndex.getEntities(nonNullLevel(), aabb, out);
+            out.removeIf(e -> !(e instanceof ItemEntity));
+        }
     }
 
     abstract boolean shouldScanForEntities(Direction dir);
@@ -17,6 +17,8 @@
 
 package me.desht.pneumaticcraft.common.block.entity;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import me.desht.pneumaticcraft.api.PNCCapabilities;
 import me.desht.pneumaticcraft.api.PneumaticRegistry;
 import me.desht.pneumaticcraft.api.heat.IHeatExchangerLogic;
@@ -85,6 +87,9 @@ public abstract class AbstractPneumaticCraftBlockEntity extends BlockEntity
     private Component customName = null;
     private boolean forceFullSync;
     private BitSet fieldsToSync;  // tracks which synced fields have changed and need to be synced on the next tick
+    private int[] polledFieldIndices;  // synced fields which aren't @PushSynced, and so must be checked every tick
+    private DescSyncStats syncStats;
+    private boolean syncQueued;  // true if queued for the end-of-tick description batch
 
     public AbstractPneumaticCraftBlockEntity(BlockEntityType type, BlockPos pos, BlockState state) {
         this(type, pos, state, 0);
@@ -130,6 +135,7 @@ public abstract class AbstractPneumaticCraftBlockEntity extends BlockEntity
     @Override
     public CompoundTag getUpdateTag() {
         CompoundTag compound = super.getUpdateTag();
+        refreshPushedFields(true);
         return new PacketDescription(this, true).writeNBT(compound);
     }
 
@@ -159,26 +165,96 @@ public abstract class AbstractPneumaticCraftBlockEntity extends BlockEntity
         if (descriptionFields == null) {
             descriptionFields = NetworkUtils.getSyncedFields(this, DescSynced.class);
             fieldsToSync = new BitSet(descriptionFields.size());
+            IntList polled = new IntArrayList(descriptionFields.size());
             for (int i = 0; i < descriptionFields.size(); i++) {
                 SyncedField<?> field = descriptionFields.get(i);
                 if (field.update()) fieldsToSync.set(i);
+                if (!field.isPushed()) polled.add(i);
             }
+            polledFieldIndices = polled.toIntArray();
+            syncStats = DescSyncStats.forType(getType());
         }
         return descriptionFields;
     }
 
+    /**
+     * Mark a {@link PushSynced} description field as changed, so that it will be sync'd to clients on the next
+     * server tick. Non-ticking block entities should call {@link #sendDescriptionPacket()} themselves afterwards.
+     *
+     * @param idx index of the field in {@link #getDescriptionFields()}
+     */
+    public void markFieldDirty(int idx) {
+        if (level != null && level.isClientSide) return;
+
+        getDescriptionFields();
+        fieldsToSync.set(idx);
+        syncStats.recordPush();
+    }
+
+    /**
+     * Get the index of one of this block entity's own description fields; for array fields, this is the index of
+     * the first element, with subsequent elements following on consecutively.
+     *
+     * @param fieldName the field name
+     * @return the field index, suitable for passing to {@link #markFieldDirty(int)}
+     * @throws IllegalArgumentException if there is no such @DescSynced field
+     */
+    protected int getDescriptionFieldIndex(String fieldName) {
+        List<SyncedField<?>> descFields = getDescriptionFields();
+        for (int i = 0; i < descFields.size(); i++) {
+            if (descFields.get(i).isFieldOf(this, fieldName)) return i;
+        }
+        throw new IllegalArgumentException("no @DescSynced field '" + fieldName + "' in " + getClass().getName());
+    }
+
+    /**
+     * Pull the current values of push-sync'd fields, so the description packet doesn't send stale data.
+     *
+     * @param all true to refresh every pushed field (full sync), false to refresh only those marked dirty
+     */
+    private void refreshPushedFields(boolean all) {
+        List<SyncedField<?>> descFields = getDescriptionFields();
+        if (all) {
+            for (SyncedField<?> field : descFields) {
+                if (field.isPushed()) field.update();
+            }
+        } else {
+            for (int i = fieldsToSync.nextSetBit(0); i >= 0; i = fieldsToSync.nextSetBit(i + 1)) {
+                if (descFields.get(i).isPushed()) descFields.get(i).update();
+            }
+        }
+    }
+
     /**
      * Force a sync of this BE to the client right now.
      */
     public final void sendDescriptionPacket() {
         if (level == null || level.isClientSide) return;
 
-        PacketDescription descPacket = new PacketDescription(this, forceFullSync);
-        if (descPacket.hasData()) {
+        PacketDescription descPacket = createDescriptionPacket();
+        if (descPacket != null) {
             NetworkHandler.sendToAllTracking(descPacket, this);
         }
+    }
+
+    /**
+     * Called by {@link DescriptionPacketBatcher} at the end of the server tick, if this BE was queued for a sync.
+     *
+     * @return a description packet, or null if there's nothing (any longer) to sync
+     */
+    @Nullable
+    public final PacketDescription takeQueuedDescriptionPacket() {
+        syncQueued = false;
+        return isRemoved() || level == null ? null : createDescriptionPacket();
+    }
+
+    @Nullable
+    private PacketDescription createDescriptionPacket() {
+        refreshPushedFields(forceFullSync);
+        PacketDescription descPacket = new PacketDescription(this, forceFullSync);
         fieldsToSync.clear();
         forceFullSync = false;
+        return descPacket.hasData() ? descPacket : null;
     }
 
     /**
@@ -204,14 +280,19 @@ public abstract class AbstractPneumaticCraftBlockEntity extends BlockEntity
                 ejector.autoExportFluid(this);
             }
 
-            for (int i = 0; i < getDescriptionFields().size(); i++) {
-                if (getDescriptionFields().get(i).update()) {
-                    fieldsToSync.set(i);
+            List<SyncedField<?>> descFields = getDescriptionFields();
+            int nChanged = 0;
+            for (int idx : polledFieldIndices) {
+                if (descFields.get(idx).update()) {
+                    fieldsToSync.set(idx);
+                    nChanged++;
                 }
             }
+            syncStats.recordPoll(polledFieldIndices.length, nChanged);
 
-            if (forceFullSync || !fieldsToSync.isEmpty()) {
-                sendDescriptionPacket();
+            if ((forceFullSync || !fieldsToSync.isEmpty()) && !syncQueued) {
+                syncQueued = true;
+                DescriptionPacketBatcher.queue(this);
             }
         }
     }
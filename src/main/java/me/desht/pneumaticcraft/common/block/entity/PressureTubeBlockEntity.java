@@ -23,9 +23,12 @@ import me.desht.pneumaticcraft.api.tileentity.IAirHandlerMachine;
 import me.desht.pneumaticcraft.api.tileentity.IAirListener;
 import me.desht.pneumaticcraft.api.tileentity.IManoMeasurable;
 import me.desht.pneumaticcraft.common.block.PressureTubeBlock;
+import me.desht.pneumaticcraft.common.capabilities.MachineAirHandler;
 import me.desht.pneumaticcraft.common.core.ModBlockEntities;
 import me.desht.pneumaticcraft.common.item.TubeModuleItem;
 import me.desht.pneumaticcraft.common.network.DescSynced;
+import me.desht.pneumaticcraft.common.network.PushSynced;
+import me.desht.pneumaticcraft.common.pressure.PressureNetwork;
 import me.desht.pneumaticcraft.common.tubemodules.AbstractTubeModule;
 import me.desht.pneumaticcraft.common.tubemodules.IInfluenceDispersing;
 import me.desht.pneumaticcraft.common.util.DirectionUtil;
@@ -60,7 +63,9 @@ import java.util.stream.Stream;
 
 public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity implements IAirListener, IManoMeasurable, CamouflageableBlockEntity {
     @DescSynced
+    @PushSynced
     private final boolean[] sidesClosed = new boolean[6];
+    private int sidesClosedSyncIdx = -1;
     private final EnumMap<Direction, AbstractTubeModule> modules = new EnumMap<>(Direction.class);
     private BlockState camoState;
     private AABB renderBoundingBox = null;
@@ -68,6 +73,7 @@ public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity impl
     private final List<Direction> neighbourDirections = new ArrayList<>();
     private VoxelShape cachedTubeShape = null; // important for performance
     private int pendingCacheShapeClear = 0;
+    private PressureNetwork pressureNetwork = null;  // server-side only
 
     public PressureTubeBlockEntity(BlockPos pos, BlockState state) {
         this(ModBlockEntities.PRESSURE_TUBE.get(), pos, state, PressureTier.TIER_ONE, PneumaticValues.VOLUME_PRESSURE_TUBE);
@@ -177,6 +183,11 @@ public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity impl
 
     @Override
     public void tickCommonPre() {
+        if (!nonNullLevel().isClientSide) {
+            // must be done before the air handler ticks
+            tickPressureNetwork();
+        }
+
         super.tickCommonPre();
 
         if (pendingCacheShapeClear > 0 && --pendingCacheShapeClear == 0) {
@@ -184,6 +195,39 @@ public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity impl
         }
     }
 
+    private void tickPressureNetwork() {
+        boolean canPool = PressureNetwork.isEnabled() && modules.isEmpty() && airHandler instanceof MachineAirHandler;
+        if (pressureNetwork != null && !canPool) {
+            pressureNetwork.dissolve();
+        } else if (pressureNetwork == null && canPool) {
+            PressureNetwork.join(this);
+        }
+        if (pressureNetwork != null) {
+            pressureNetwork.tick(nonNullLevel().getGameTime());
+        }
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+
+        if (pressureNetwork != null) pressureNetwork.dissolve();
+    }
+
+    @Nullable
+    public PressureNetwork getPressureNetwork() {
+        return pressureNetwork;
+    }
+
+    public void setPressureNetwork(@Nullable PressureNetwork pressureNetwork) {
+        this.pressureNetwork = pressureNetwork;
+        if (airHandler instanceof MachineAirHandler m) m.setPooled(pressureNetwork != null);
+    }
+
+    public IAirHandlerMachine getAirHandler() {
+        return airHandler;
+    }
+
     @Override
     public void tickClient() {
         super.tickClient();
@@ -253,6 +297,9 @@ public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity impl
     public void setSideClosed(Direction side, boolean closed) {
         if (sidesClosed[side.get3DDataValue()] != closed) {
             sidesClosed[side.get3DDataValue()] = closed;
+            if (sidesClosedSyncIdx < 0) sidesClosedSyncIdx = getDescriptionFieldIndex("sidesClosed");
+            markFieldDirty(sidesClosedSyncIdx + side.get3DDataValue());
+            if (pressureNetwork != null) pressureNetwork.dissolve();
             initializeHullAirHandlers();
             discoverConnectedNeighbors();
         }
@@ -321,6 +368,7 @@ public class PressureTubeBlockEntity extends AbstractAirHandlingBlockEntity impl
     }
 
     private void discoverConnectedNeighbors() {
+        if (pressureNetwork != null) pressureNetwork.markEdgesDirty();
         neighbourDirections.clear();
         airHandler.getConnectedAirHandlers(this).forEach(connection -> neighbourDirections.add(connection.getDirection()));
     }
@@ -17,7 +17,6 @@
 
 package me.desht.pneumaticcraft.common.block.entity;
 
-import me.desht.pneumaticcraft.api.drone.ProgWidgetType;
 import me.desht.pneumaticcraft.api.item.IProgrammable;
 import me.desht.pneumaticcraft.client.render.area.AreaRenderManager;
 import me.desht.pneumaticcraft.common.advancements.AdvancementTriggers;
@@ -35,7 +34,6 @@ import me.desht.pneumaticcraft.common.util.PneumaticCraftUtils;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.ListTag;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundSource;
@@ -85,13 +83,10 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
     @DescSynced
     public ItemStack displayedStack = ItemStack.EMPTY;
 
-    private ListTag history = new ListTag(); //Used to undo/redo.
-    private int historyIndex;
+    private final ProgrammerHistory history = new ProgrammerHistory();
 
     public ProgrammerBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.PROGRAMMER.get(), pos, state);
-
-        saveToHistory();
     }
 
     @Override
@@ -101,16 +96,18 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
         inventory.deserializeNBT(tag.getCompound("Items"));
         displayedStack = inventory.getStackInSlot(0);
         programOnInsert = tag.getBoolean("ProgramOnInsert");
-        history = tag.getList("history", 10);
-        if (history.size() == 0) saveToHistory();
         readProgWidgetsFromNBT(tag);
+        // older saves have a list of full snapshots here, which is just discarded
+        history.load(tag.getCompound("history"), progWidgets);
+        canUndo = history.canUndo();
+        canRedo = history.canRedo();
     }
 
     @Override
     public void saveAdditional(CompoundTag tag) {
         super.saveAdditional(tag);
         tag.put("Items", inventory.serializeNBT());
-        tag.put("history", history);
+        tag.put("history", history.save());
         tag.putBoolean("ProgramOnInsert", programOnInsert);
         writeProgWidgetsToNBT(tag);
     }
@@ -182,70 +179,7 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
     }
 
     public static void updatePuzzleConnections(List<IProgWidget> progWidgets) {
-        for (IProgWidget widget : progWidgets) {
-            widget.setParent(null);
-            List<ProgWidgetType<?>> parameters = widget.getParameters();
-            for (int i = 0; i < parameters.size() * 2; i++) {
-                widget.setParameter(i, null);
-            }
-            if (widget.hasStepOutput()) widget.setOutputWidget(null);
-        }
-
-        for (IProgWidget checkedWidget : progWidgets) {
-            // check for connection to the right of the checked widget.
-            List<ProgWidgetType<?>> parameters = checkedWidget.getParameters();
-            if (!parameters.isEmpty()) {
-                for (IProgWidget widget : progWidgets) {
-                    if (widget != checkedWidget && checkedWidget.getX() + checkedWidget.getWidth() / 2 == widget.getX()) {
-                        for (int i = 0; i < parameters.size(); i++) {
-                            if (checkedWidget.canSetParameter(i)
-                                    && parameters.get(i) == widget.returnType()
-                                    && checkedWidget.getY() + i * 11 == widget.getY())
-                            {
-                                checkedWidget.setParameter(i, widget);
-                                widget.setParent(checkedWidget);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // check for connection to the bottom of the checked widget.
-            if (checkedWidget.hasStepOutput()) {
-                for (IProgWidget widget : progWidgets) {
-                    if (widget.hasStepInput()
-                            && widget.getX() == checkedWidget.getX()
-                            && widget.getY() == checkedWidget.getY() + checkedWidget.getHeight() / 2)
-                    {
-                        checkedWidget.setOutputWidget(widget);
-                    }
-                }
-            }
-        }
-
-        // go again for the blacklist (as those are mirrored)
-        for (IProgWidget checkedWidget : progWidgets) {
-            if (checkedWidget.returnType() == null) {
-                // this is a program widget rather than a parameter widget (area, item filter).
-                List<ProgWidgetType<?>> parameters = checkedWidget.getParameters();
-                for (int i = 0; i < parameters.size(); i++) {
-                    if (checkedWidget.canSetParameter(i)) {
-                        for (IProgWidget widget : progWidgets) {
-                            if (parameters.get(i) == widget.returnType()
-                                    && widget != checkedWidget
-                                    && widget.getX() + widget.getWidth() / 2 == checkedWidget.getX()
-                                    && widget.getY() == checkedWidget.getY() + i * 11) {
-                                IProgWidget root = widget;
-                                while (root.getParent() != null) {
-                                    root = root.getParent();
-                                }
-                                checkedWidget.setParameter(i + parameters.size(), root);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        new PuzzleConnectionBuilder().updateConnections(progWidgets);
     }
 
     @Override
@@ -477,24 +411,15 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
         }
     }
 
-    private void saveToHistory() {
-        CompoundTag tag = new CompoundTag();
-        writeProgWidgetsToNBT(tag);
-        if (history.size() == 0 || !history.getCompound(historyIndex).equals(tag)) {
-            while (history.size() > historyIndex + 1) {
-                history.remove(historyIndex + 1);
-            }
-            history.add(tag);
-            if (history.size() > 20) history.remove(0); // Only save up to 20 steps back.
-            historyIndex = history.size() - 1;
+    private void saveToHistory(@Nullable List<byte[]> encodedWidgets) {
+        if (history.record(progWidgets, encodedWidgets)) {
             updateUndoRedoState();
         }
     }
 
     private void undo() {
         if (canUndo) {
-            historyIndex--;
-            readProgWidgetsFromNBT(history.getCompound(historyIndex));
+            if (history.undo(progWidgets)) updatePuzzleConnections(progWidgets);
             updateUndoRedoState();
             syncToClient(null);
         }
@@ -502,16 +427,15 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
 
     private void redo() {
         if (canRedo) {
-            historyIndex++;
-            readProgWidgetsFromNBT(history.getCompound(historyIndex));
+            if (history.redo(progWidgets)) updatePuzzleConnections(progWidgets);
             updateUndoRedoState();
             syncToClient(null);
         }
     }
 
     private void updateUndoRedoState() {
-        canUndo = historyIndex > 0;
-        canRedo = historyIndex < history.size() - 1;
+        canUndo = history.canUndo();
+        canRedo = history.canRedo();
         setChanged();
     }
 
@@ -528,12 +452,23 @@ public class ProgrammerBlockEntity extends AbstractTickingBlockEntity implements
      * @param player player who just made this change, may be null (used for syncing - ignored clientside)
      */
     public void setProgWidgets(List<IProgWidget> widgets, Player player) {
+        setProgWidgets(widgets, null, player);
+    }
+
+    /**
+     * Replace the prog widget list with widgets received in a packet.
+     *
+     * @param widgets the new widget list
+     * @param encodedWidgets the encoded form of each widget, as received, or null if not known
+     * @param player player who just made this change, may be null (used for syncing - ignored clientside)
+     */
+    public void setProgWidgets(List<IProgWidget> widgets, @Nullable List<byte[]> encodedWidgets, Player player) {
         progWidgets.clear();
         progWidgets.addAll(widgets);
         updatePuzzleConnections(progWidgets);
         if (!nonNullLevel().isClientSide) {
             setChanged();
-            saveToHistory();
+            saveToHistory(encodedWidgets);
             syncToClient(player);
         }
     }
@@ -0,0 +1,253 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.block.entity;
+
+import me.desht.pneumaticcraft.common.drone.progwidgets.IProgWidget;
+import me.desht.pneumaticcraft.common.drone.progwidgets.ProgWidget;
+import me.desht.pneumaticcraft.common.drone.progwidgets.WidgetSerializer;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Undo/redo history for the Programmer. Rather than a full snapshot of the program per step, each step is stored as
+ * a delta: the range of widgets which changed, with the widgets in that range before and after the change. Most
+ * edits (moving, adding or removing a widget) touch only one or two widgets, so steps are small, and undo/redo only
+ * needs to deserialize the widgets which actually changed.
+ * <p>
+ * Changed widgets are found by comparing each widget's encoded packet form (which the server gets for free when a
+ * program is received from a client) with that of the previous version, so only the widgets which changed are
+ * serialized to NBT when a step is recorded.
+ * <p>
+ * History is bounded both by number of steps and by the total number of widgets stored in deltas; the oldest steps
+ * are dropped first.
+ */
+class ProgrammerHistory {
+    private static final int MAX_STEPS = 20;
+    private static final int MAX_STORED_WIDGETS = 2000;
+
+    // serialized and encoded forms of the program as it currently is (a new programmer has an empty program)
+    private List<CompoundTag> current = new ArrayList<>();
+    private List<byte[]> currentEncoded = new ArrayList<>();
+    private final Deque<Delta> undoSteps = new ArrayDeque<>();
+    private final Deque<Delta> redoSteps = new ArrayDeque<>();
+    private int storedWidgets;
+
+    /**
+     * Record the program's current state as a new step, if it differs from the last recorded state.
+     *
+     * @param widgets the program
+     * @param encoded the encoded form of each widget (see {@link WidgetSerializer#encodeWidget(IProgWidget)}) if
+     *                already known, e.g. because the program was just received in a packet; otherwise null
+     * @return true if a new step was recorded
+     */
+    boolean record(List<IProgWidget> widgets, @Nullable List<byte[]> encoded) {
+        if (encoded == null || encoded.size() != widgets.size()) {
+            encoded = encode(widgets);
+        }
+
+        int max = Math.min(currentEncoded.size(), encoded.size());
+        int prefix = 0;
+        while (prefix < max && Arrays.equals(currentEncoded.get(prefix), encoded.get(prefix))) {
+            prefix++;
+        }
+        if (prefix == currentEncoded.size() && prefix == encoded.size()) return false;
+        int suffix = 0;
+        while (suffix < max - prefix && Arrays.equals(currentEncoded.get(currentEncoded.size() - 1 - suffix), encoded.get(encoded.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        // only the changed widgets need serializing
+        int end = current.size() - suffix;
+        List<CompoundTag> after = serialize(widgets.subList(prefix, widgets.size() - suffix));
+        Delta delta = new Delta(prefix, new ArrayList<>(current.subList(prefix, end)), after);
+        current.subList(prefix, end).clear();
+        current.addAll(prefix, after);
+        currentEncoded = new ArrayList<>(encoded);
+
+        redoSteps.forEach(d -> storedWidgets -= d.size());
+        redoSteps.clear();
+        undoSteps.addLast(delta);
+        storedWidgets += delta.size();
+        while (undoSteps.size() > MAX_STEPS || storedWidgets > MAX_STORED_WIDGETS && undoSteps.size() > 1) {
+            storedWidgets -= undoSteps.removeFirst().size();
+        }
+        return true;
+    }
+
+    boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /**
+     * Undo the last step, updating the program in place.
+     *
+     * @param widgets the program, which must be in the last recorded state
+     * @return true if the program was changed
+     */
+    boolean undo(List<IProgWidget> widgets) {
+        Delta delta = undoSteps.pollLast();
+        if (delta == null) return false;
+        if (!apply(widgets, delta.start, delta.after, delta.before)) return false;
+        redoSteps.addLast(delta);
+        return true;
+    }
+
+    /**
+     * Redo the last undone step, updating the program in place.
+     *
+     * @param widgets the program, which must be in the last recorded state
+     * @return true if the program was changed
+     */
+    boolean redo(List<IProgWidget> widgets) {
+        Delta delta = redoSteps.pollLast();
+        if (delta == null) return false;
+        if (!apply(widgets, delta.start, delta.before, delta.after)) return false;
+        undoSteps.addLast(delta);
+        return true;
+    }
+
+    private boolean apply(List<IProgWidget> widgets, int start, List<CompoundTag> expected, List<CompoundTag> replacement) {
+        List<IProgWidget> newWidgets = new ArrayList<>(replacement.size());
+        for (CompoundTag tag : replacement) {
+            IProgWidget widget = ProgWidget.fromNBT(tag);
+            if (widget == null || !widget.isAvailable()) {
+                clear();
+                return false;
+            }
+            newWidgets.add(widget);
+        }
+        int end = start + expected.size();
+        if (end > current.size() || end > widgets.size() || !current.subList(start, end).equals(expected)) {
+            // history doesn't match the program (e.g. widgets became unavailable since it was saved)
+            clear();
+            return false;
+        }
+
+        current.subList(start, end).clear();
+        current.addAll(start, replacement);
+        currentEncoded.subList(start, end).clear();
+        currentEncoded.addAll(start, encode(newWidgets));
+        widgets.subList(start, end).clear();
+        widgets.addAll(start, newWidgets);
+        return true;
+    }
+
+    private void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        storedWidgets = 0;
+    }
+
+    private static List<CompoundTag> serialize(List<IProgWidget> widgets) {
+        List<CompoundTag> tags = new ArrayList<>(widgets.size());
+        for (IProgWidget widget : widgets) {
+            CompoundTag tag = new CompoundTag();
+            widget.writeToNBT(tag);
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private static List<byte[]> encode(List<IProgWidget> widgets) {
+        List<byte[]> res = new ArrayList<>(widgets.size());
+        for (IProgWidget widget : widgets) {
+            res.add(WidgetSerializer.encodeWidget(widget));
+        }
+        return res;
+    }
+
+    CompoundTag save() {
+        CompoundTag tag = new CompoundTag();
+        tag.put("undo", saveSteps(undoSteps));
+        tag.put("redo", saveSteps(redoSteps));
+        return tag;
+    }
+
+    /**
+     * Load saved history steps. Saved steps apply to the program as it was saved, so the program must have been
+     * loaded first.
+     *
+     * @param tag the saved history
+     * @param widgets the program
+     */
+    void load(CompoundTag tag, List<IProgWidget> widgets) {
+        clear();
+        current = serialize(widgets);
+        currentEncoded = encode(widgets);
+        loadSteps(tag.getList("undo", Tag.TAG_COMPOUND), undoSteps);
+        loadSteps(tag.getList("redo", Tag.TAG_COMPOUND), redoSteps);
+    }
+
+    private static ListTag saveSteps(Deque<Delta> steps) {
+        ListTag list = new ListTag();
+        steps.forEach(delta -> list.add(delta.toNBT()));
+        return list;
+    }
+
+    private void loadSteps(ListTag list, Deque<Delta> steps) {
+        for (int i = 0; i < list.size(); i++) {
+            Delta delta = Delta.fromNBT(list.getCompound(i));
+            steps.addLast(delta);
+            storedWidgets += delta.size();
+        }
+    }
+
+    /**
+     * One step of history: widgets from index {@code start} were {@code before}, and were replaced with
+     * {@code after}.
+     */
+    private record Delta(int start, List<CompoundTag> before, List<CompoundTag> after) {
+        int size() {
+            return before.size() + after.size();
+        }
+
+        CompoundTag toNBT() {
+            CompoundTag tag = new CompoundTag();
+            tag.putInt("start", start);
+            tag.put("before", toList(before));
+            tag.put("after", toList(after));
+            return tag;
+        }
+
+        static Delta fromNBT(CompoundTag tag) {
+            return new Delta(tag.getInt("start"), fromList(tag.getList("before", Tag.TAG_COMPOUND)), fromList(tag.getList("after", Tag.TAG_COMPOUND)));
+        }
+
+        private static ListTag toList(List<CompoundTag> tags) {
+            ListTag list = new ListTag();
+            list.addAll(tags);
+            return list;
+        }
+
+        private static List<CompoundTag> fromList(ListTag list) {
+            List<CompoundTag> tags = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                tags.add(list.getCompound(i));
+            }
+            return tags;
+        }
+    }
+}
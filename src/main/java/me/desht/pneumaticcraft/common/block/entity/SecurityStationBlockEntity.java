@@ -104,6 +104,7 @@ public class SecurityStationBlockEntity extends AbstractTickingBlockEntity imple
     public static final int INV_ROWS = 7;
     public static final int INV_COLS = 5;
     private static final int INVENTORY_SIZE = INV_ROWS * INV_COLS;
+    private static final int PLACEMENT_MARGIN = 16;  // min. distance between coverage of stations with different owners
 
     private final SecurityStationHandler inventory = new SecurityStationHandler();
     private final LazyOptional<IItemHandler> invCap = LazyOptional.of(() -> inventory);
@@ -126,12 +127,21 @@ public class SecurityStationBlockEntity extends AbstractTickingBlockEntity imple
     public void setRemoved() {
         super.setRemoved();
         GlobalBlockEntityCacheManager.getInstance(getLevel()).getSecurityStations().remove(this);
+        GlobalBlockEntityCacheManager.getInstance(getLevel()).getSecurityStationIndex().remove(this);
     }
 
     @Override
     public void clearRemoved() {
         super.clearRemoved();
         GlobalBlockEntityCacheManager.getInstance(getLevel()).getSecurityStations().add(this);
+        updateSpatialIndex();
+    }
+
+    private void updateSpatialIndex() {
+        if (level != null && !isRemoved()) {
+            GlobalBlockEntityCacheManager.getInstance(level).getSecurityStationIndex()
+                    .update(this, getSecurityCoverage().inflate(PLACEMENT_MARGIN));
+        }
     }
 
     @Override
@@ -166,7 +176,11 @@ public class SecurityStationBlockEntity extends AbstractTickingBlockEntity imple
             updateNeighbours();
         }
 
-        rangeManager.setRange(Math.min(2 + getUpgrades(ModUpgrades.RANGE.get()), BlockEntityConstants.SECURITY_STATION_MAX_RANGE));
+        int newRange = Math.min(2 + getUpgrades(ModUpgrades.RANGE.get()), BlockEntityConstants.SECURITY_STATION_MAX_RANGE);
+        if (newRange != rangeManager.getRange()) {
+            rangeManager.setRange(newRange);
+            updateSpatialIndex();
+        }
     }
 
     private boolean isOwner(Player player) {
@@ -642,7 +656,7 @@ public class SecurityStationBlockEntity extends AbstractTickingBlockEntity imple
     }
 
     static Stream<SecurityStationBlockEntity> getSecurityStations(final Level level, final BlockPos pos, final boolean isPlacingSecurityStation) {
-        return GlobalBlockEntityCacheManager.getInstance(level).getSecurityStations().stream()
+        return GlobalBlockEntityCacheManager.getInstance(level).getSecurityStationIndex().getCandidates(level, pos).stream()
                 .filter(station -> isValidAndInRange(level, pos, isPlacingSecurityStation, station));
     }
 
@@ -650,7 +664,7 @@ public class SecurityStationBlockEntity extends AbstractTickingBlockEntity imple
         if (!teSS.isRemoved() && teSS.nonNullLevel().dimension().compareTo(world.dimension()) == 0 && teSS.hasValidNetwork()) {
             AABB aabb = teSS.getSecurityCoverage();
             // prevent security stations of different owners from being placed too near each other
-            if (isPlacingSecurityStation) aabb = aabb.inflate(16);
+            if (isPlacingSecurityStation) aabb = aabb.inflate(PLACEMENT_MARGIN);
             // can't just use AxisAlignedBB#contains here; it will miss blocks on the positive X/Z edges of the box
             return aabb.minX <= pos.getX() && aabb.maxX >= pos.getX()
                     && aabb.minY <= pos.getY() && aabb.maxY >= pos.getY()
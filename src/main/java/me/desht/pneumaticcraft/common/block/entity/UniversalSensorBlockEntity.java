@@ -241,6 +241,13 @@ public class UniversalSensorBlockEntity extends AbstractAirHandlingBlockEntity i
         if (getLevel() != null && getLevel().isClientSide) {
             UniversalSensorScreen.refreshIfOpen();
         }
+        updateEventRegistration();
+    }
+
+    private void updateEventRegistration() {
+        if (level != null && !level.isClientSide) {
+            GlobalBlockEntityCacheManager.getInstance(level).getUniversalSensorEvents().update(this);
+        }
     }
 
     private boolean setSensorSetting(ISensorSetting sensor) {
@@ -323,7 +330,11 @@ public class UniversalSensorBlockEntity extends AbstractAirHandlingBlockEntity i
     public void onUpgradesChanged() {
         super.onUpgradesChanged();
 
+        int prevRange = rangeManager.getRange();
         rangeManager.setRange(getUpgrades(ModUpgrades.RANGE.get()) + BASE_RANGE);
+        if (rangeManager.getRange() != prevRange) {
+            updateEventRegistration();
+        }
         setupGPSPositions();
     }
 
@@ -523,12 +534,14 @@ public class UniversalSensorBlockEntity extends AbstractAirHandlingBlockEntity i
     public void setRemoved(){
         super.setRemoved();
         GlobalBlockEntityCacheManager.getInstance(getLevel()).getUniversalSensors().remove(this);
+        GlobalBlockEntityCacheManager.getInstance(getLevel()).getUniversalSensorEvents().remove(this);
     }
 
     @Override
     public void clearRemoved(){
         super.clearRemoved();
         GlobalBlockEntityCacheManager.getInstance(getLevel()).getUniversalSensors().add(this);
+        updateEventRegistration();
     }
 
     @Nullable
@@ -27,6 +27,7 @@ import me.desht.pneumaticcraft.api.tileentity.IAirListener;
 import me.desht.pneumaticcraft.api.tileentity.IManoMeasurable;
 import me.desht.pneumaticcraft.client.sound.MovingSounds;
 import me.desht.pneumaticcraft.common.core.ModSounds;
+import me.desht.pneumaticcraft.common.debug.TickProfiler;
 import me.desht.pneumaticcraft.common.network.NetworkHandler;
 import me.desht.pneumaticcraft.common.network.PacketUpdatePressureBlock;
 import me.desht.pneumaticcraft.common.particle.AirParticleData;
@@ -53,26 +54,37 @@ import java.util.function.Predicate;
  * which have lower pressure than it does.
  */
 public class MachineAirHandler extends BasicAirHandler implements IAirHandlerMachine, IManoMeasurable {
+    private static final int ABSENT_NEIGHBOUR_RECHECK_INTERVAL = 20;
+
     private final PressureTier tier;
     private int volumeUpgrades = 0;
     private final BitSet connectedFaces = new BitSet(6);
     private Direction leakDir = null;
     private Direction prevLeakDir = null;
     private int prevAir;
-    private final Map<Direction, LazyOptional<IAirHandlerMachine>> neighbourAirHandlers = new EnumMap<>(Direction.class);
+
+    // cached neighbour handlers, by face index; only valid where the corresponding bit in neighboursKnown is set
+    private final IAirHandlerMachine[] neighbourAirHandlers = new IAirHandlerMachine[6];
+    private final BitSet neighboursKnown = new BitSet(6);
+    private int absentNeighbourRecheck;
+
+    // scratch space for disperseAir(), reused every tick
+    private final List<IAirHandlerMachine> extraHandlers = new ArrayList<>();
+    private IAirHandlerMachine[] targetHandlers = new IAirHandlerMachine[6];
+    private Direction[] targetDirs = new Direction[6];
+    private int[] targetAir = new int[6];
 
     // note: leaks due to security upgrade are tracked separately from leaks due to disconnection
     private boolean safetyLeaking;   // is the handler venting right now?
     private Direction safetyLeakDir; // direction handler would vent in (non-null does not mean actively venting)
     private FloatPredicate safetyPredicate;  // for determining when safety venting is needed
 
+    private boolean pooled;  // air dispersal is being done by a pressure network
+
     public MachineAirHandler(PressureTier tier, int volume) {
         super(volume);
 
         this.tier = tier;
-        for (Direction dir : DirectionUtil.VALUES) {
-            this.neighbourAirHandlers.put(dir, LazyOptional.empty());
-        }
     }
 
     @Override
@@ -124,18 +136,33 @@ public class MachineAirHandler extends BasicAirHandler implements IAirHandlerMac
         sides.forEach(side -> connectedFaces.set(side.get3DDataValue()));
 
         // invalidate cached neighbour data
-        for (Direction dir : DirectionUtil.VALUES) {
-            this.neighbourAirHandlers.put(dir, LazyOptional.empty());
-        }
+        neighboursKnown.clear();
+        Arrays.fill(neighbourAirHandlers, null);
+    }
+
+    /**
+     * Mark this handler as being part of a {@link me.desht.pneumaticcraft.common.pressure.PressureNetwork}, which
+     * takes care of dispersing its air. Leaks, safety venting and overpressure checks are unaffected.
+     *
+     * @param pooled true if air dispersal is handled by a pressure network
+     */
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
     }
 
     @Override
     public void tick(BlockEntity ownerTE) {
+        long start = TickProfiler.start();
+        tickAir(ownerTE);
+        TickProfiler.recordAirHandler(ownerTE, start);
+    }
+
+    private void tickAir(BlockEntity ownerTE) {
         Level world = Objects.requireNonNull(ownerTE.getLevel());
         Direction actualLeakDir = leakDir;
         if (!world.isClientSide) {
             // server
-            disperseAir(ownerTE);
+            if (!pooled) disperseAir(ownerTE);
 
             BlockPos pos = ownerTE.getBlockPos();
             if (safetyLeakDir != null) {
@@ -241,63 +268,107 @@ public class MachineAirHandler extends BasicAirHandler implements IAirHandlerMac
         return this.leakDir;
     }
 
-    private LazyOptional<IAirHandlerMachine> getNeighbourAirHandler(BlockEntity ownerTE, Direction dir) {
-        if (!connectedFaces.get(dir.get3DDataValue())) return LazyOptional.empty();
+    @Nullable
+    private IAirHandlerMachine getNeighbourAirHandler(BlockEntity ownerTE, Direction dir) {
+        int idx = dir.get3DDataValue();
+        if (!connectedFaces.get(idx)) return null;
 
-        if (!neighbourAirHandlers.get(dir).isPresent()) {
+        if (!neighboursKnown.get(idx)) {
+            IAirHandlerMachine handler = null;
             BlockEntity te1 = Objects.requireNonNull(ownerTE.getLevel()).getBlockEntity(ownerTE.getBlockPos().relative(dir));
             if (te1 != null) {
                 LazyOptional<IAirHandlerMachine> cap = te1.getCapability(PNCCapabilities.AIR_HANDLER_MACHINE_CAPABILITY, dir.getOpposite());
-                if (cap.isPresent()) {
-                    neighbourAirHandlers.put(dir, cap);
-                    neighbourAirHandlers.get(dir).addListener(l -> neighbourAirHandlers.put(dir, LazyOptional.empty()));
+                handler = cap.orElse(null);
+                if (handler != null) {
+                    IAirHandlerMachine cached = handler;
+                    cap.addListener(l -> {
+                        if (neighbourAirHandlers[idx] == cached) {
+                            neighbourAirHandlers[idx] = null;
+                            neighboursKnown.clear(idx);
+                        }
+                    });
                 }
-            } else {
-                neighbourAirHandlers.put(dir, LazyOptional.empty());
             }
+            neighbourAirHandlers[idx] = handler;
+            neighboursKnown.set(idx);
         }
-        return neighbourAirHandlers.get(dir);
+        return neighbourAirHandlers[idx];
     }
 
     private void disperseAir(BlockEntity ownerTE) {
-        // 1. build a list of all neighbouring and otherwise connected air handlers with a lower pressure than us
-        List<IAirHandlerMachine.Connection> neighbours = getConnectedAirHandlers(ownerTE, true);
+        if (++absentNeighbourRecheck >= ABSENT_NEIGHBOUR_RECHECK_INTERVAL) {
+            // a neighbour can appear without a block update, e.g. when its chunk loads
+            absentNeighbourRecheck = 0;
+            for (int i = 0; i < 6; i++) {
+                if (neighbourAirHandlers[i] == null) neighboursKnown.clear(i);
+            }
+        }
 
-        // 2. get the total volume and air amount in this and all connected handlers
+        // 1. build a list of all neighbouring and otherwise connected air handlers with a lower pressure than us,
+        //    and get the total volume and air amount in this and all those handlers
+        float pressure = getPressure();
         int totalVolume = this.getVolume();
         int totalAir = this.getAir();
-        for (IAirHandlerMachine.Connection neighbour : neighbours) {
-            totalVolume += neighbour.getAirHandler().getVolume();
-            totalAir += neighbour.getAirHandler().getAir();
+        int nTargets = 0;
+        for (Direction dir : DirectionUtil.VALUES) {
+            IAirHandlerMachine neighbour = getNeighbourAirHandler(ownerTE, dir);
+            if (neighbour != null && neighbour.getPressure() < pressure) {
+                addTarget(nTargets++, dir, neighbour);
+                totalVolume += neighbour.getVolume();
+                totalAir += neighbour.getAir();
+            }
+        }
+        if (ownerTE instanceof IAirListener listener) {
+            extraHandlers.clear();
+            List<IAirHandlerMachine> extra = listener.addConnectedPneumatics(extraHandlers);
+            for (int i = 0; i < extra.size(); i++) {
+                IAirHandlerMachine neighbour = extra.get(i);
+                if (neighbour.getPressure() < pressure) {
+                    addTarget(nTargets++, null, neighbour);
+                    totalVolume += neighbour.getVolume();
+                    totalAir += neighbour.getAir();
+                }
+            }
+            extraHandlers.clear();
         }
 
-        // 3. figure out how much air will be dispersed to each neighbour
-        for (IAirHandlerMachine.Connection neighbour: neighbours) {
-            int totalMachineAir = (int) ((long) totalAir * neighbour.getAirHandler().getVolume() / totalVolume);
-            neighbour.setMaxDispersion(getMaxDispersion(ownerTE, neighbour.getDirection()));
-            neighbour.setAirToDisperse(Math.max(0, totalMachineAir - neighbour.getAirHandler().getAir()));  // no backflow
+        // 2. figure out how much air will be dispersed to each neighbour
+        for (int i = 0; i < nTargets; i++) {
+            IAirHandlerMachine neighbour = targetHandlers[i];
+            int totalMachineAir = (int) ((long) totalAir * neighbour.getVolume() / totalVolume);
+            int toDisperse = Math.max(0, totalMachineAir - neighbour.getAir());  // no backflow
+            targetAir[i] = Math.min(getMaxDispersion(ownerTE, targetDirs[i]), toDisperse);
         }
 
-        // 4. finally, actually disperse the air
-        for (IAirHandlerMachine.Connection neighbour : neighbours) {
-            int air = Math.min(neighbour.getMaxDispersion(), neighbour.getDispersedAir());
+        // 3. finally, actually disperse the air
+        for (int i = 0; i < nTargets; i++) {
+            int air = targetAir[i];
             if (air != 0) {
-                onAirDispersion(ownerTE, neighbour.getDirection(), air);
-                neighbour.getAirHandler().addAir(air);
+                onAirDispersion(ownerTE, targetDirs[i], air);
+                targetHandlers[i].addAir(air);
                 addAir(-air);
             }
+            targetHandlers[i] = null;  // don't hang on to neighbours between ticks
+        }
+    }
+
+    private void addTarget(int idx, @Nullable Direction dir, IAirHandlerMachine handler) {
+        if (idx >= targetHandlers.length) {
+            int newSize = targetHandlers.length * 2;
+            targetHandlers = Arrays.copyOf(targetHandlers, newSize);
+            targetDirs = Arrays.copyOf(targetDirs, newSize);
+            targetAir = Arrays.copyOf(targetAir, newSize);
         }
+        targetHandlers[idx] = handler;
+        targetDirs[idx] = dir;
     }
 
     private List<Connection> getConnectedAirHandlers(BlockEntity ownerTE, boolean onlyLowerPressure) {
         List<IAirHandlerMachine.Connection> neighbours = new ArrayList<>();
         for (Direction dir : DirectionUtil.VALUES) {
-            if (connectedFaces.get(dir.get3DDataValue())) {
-                getNeighbourAirHandler(ownerTE, dir).ifPresent(h -> {
-                    if ((!onlyLowerPressure || h.getPressure() < getPressure())) {
-                        neighbours.add(new ConnectedAirHandler(dir, h));
-                    }
-                });
+            IAirHandlerMachine h = getNeighbourAirHandler(ownerTE, dir);
+            if (h != null && (!onlyLowerPressure || h.getPressure() < getPressure())) {
+                neighbours.add(new ConnectedAirHandler(dir, h));
             }
         }
         neighbours.addAll(addExtraConnectedHandlers(ownerTE).stream()
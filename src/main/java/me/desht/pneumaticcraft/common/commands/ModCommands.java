@@ -20,6 +20,7 @@ package me.desht.pneumaticcraft.common.commands;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -28,10 +29,14 @@ import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.datafixers.util.Either;
 import me.desht.pneumaticcraft.api.PneumaticRegistry;
 import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.common.debug.TickProfiler;
+import me.desht.pneumaticcraft.common.drone.ai.DroneAreaSorter;
+import me.desht.pneumaticcraft.common.network.DescSyncStats;
 import me.desht.pneumaticcraft.common.network.NetworkHandler;
 import me.desht.pneumaticcraft.common.network.PacketSetGlobalVariable;
 import me.desht.pneumaticcraft.common.util.GlobalPosHelper;
 import me.desht.pneumaticcraft.common.util.IOHelper;
+import me.desht.pneumaticcraft.common.util.PickupEntityIndex;
 import me.desht.pneumaticcraft.common.util.PneumaticCraftUtils;
 import me.desht.pneumaticcraft.common.variables.GlobalVariableHelper;
 import me.desht.pneumaticcraft.common.variables.GlobalVariableManager;
@@ -54,13 +59,22 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraftforge.fml.loading.FMLPaths;
 import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.ForgeRegistries;
 import net.minecraftforge.registries.RegistryObject;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -112,6 +126,45 @@ public class ModCommands {
                                 .executes(ModCommands::listGlobalVars)
                         )
                 )
+                .then(literal("sync_stats")
+                        .requires(cs -> cs.hasPermission(2))
+                        .executes(ModCommands::showSyncStats)
+                        .then(literal("reset")
+                                .executes(ModCommands::resetSyncStats)
+                        )
+                )
+                .then(literal("drone_sort_stats")
+                        .requires(cs -> cs.hasPermission(2))
+                        .executes(ModCommands::showDroneSortStats)
+                        .then(literal("reset")
+                                .executes(ModCommands::resetDroneSortStats)
+                        )
+                )
+                .then(literal("pickup_index_stats")
+                        .requires(cs -> cs.hasPermission(2))
+                        .executes(ModCommands::showPickupIndexStats)
+                        .then(literal("reset")
+                                .executes(ModCommands::resetPickupIndexStats)
+                        )
+                )
+                .then(literal("profile")
+                        .requires(cs -> cs.hasPermission(2))
+                        .then(literal("start")
+                                .executes(ModCommands::startProfiling)
+                        )
+                        .then(literal("stop")
+                                .executes(ModCommands::stopProfiling)
+                        )
+                        .then(literal("report")
+                                .executes(ctx -> profileReport(ctx, 10))
+                                .then(argument("count", IntegerArgumentType.integer(1, 100))
+                                        .executes(ctx -> profileReport(ctx, IntegerArgumentType.getInteger(ctx, "count")))
+                                )
+                        )
+                        .then(literal("export")
+                                .executes(ModCommands::profileExport)
+                        )
+                )
                 .then(literal("amadrone_deliver")
                         .requires(cs -> cs.hasPermission(2))
                         .then(argument("toPos", BlockPosArgument.blockPos())
@@ -150,6 +203,106 @@ public class ModCommands {
         return 0;
     }
 
+    private static int showSyncStats(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        source.sendSuccess(() -> Component.literal("Desc sync stats (polled / changed / pushed):").withStyle(ChatFormatting.GREEN, ChatFormatting.UNDERLINE), false);
+        DescSyncStats.getAllStats().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<BlockEntityType<?>, DescSyncStats> e) -> e.getValue().getWastedPolls()).reversed())
+                .forEach(e -> {
+                    String id = PneumaticCraftUtils.getRegistryName(ForgeRegistries.BLOCK_ENTITY_TYPES, e.getKey()).map(ResourceLocation::toString).orElse("?");
+                    DescSyncStats stats = e.getValue();
+                    source.sendSuccess(() -> Component.literal(String.format("%s: %d / %d / %d", id, stats.getPolled(), stats.getChanged(), stats.getPushed())), false);
+                });
+        return 1;
+    }
+
+    private static int resetSyncStats(CommandContext<CommandSourceStack> ctx) {
+        DescSyncStats.resetAll();
+        ctx.getSource().sendSuccess(() -> Component.literal("Desc sync stats reset"), false);
+        return 1;
+    }
+
+    private static int showDroneSortStats(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        source.sendSuccess(() -> Component.literal("Drone area sorter stats:").withStyle(ChatFormatting.GREEN, ChatFormatting.UNDERLINE), false);
+        source.sendSuccess(() -> Component.literal(String.format("Queued / active: %d / %d", DroneAreaSorter.getQueueDepth(), DroneAreaSorter.getActiveCount())), false);
+        source.sendSuccess(() -> Component.literal(String.format("Sorts: %d (avg %.2fms, max %.2fms)", DroneAreaSorter.getSortsCompleted(), DroneAreaSorter.getAverageLatencyMs(), DroneAreaSorter.getMaxLatencyMs())), false);
+        source.sendSuccess(() -> Component.literal(String.format("Cache hits: %d, rejected: %d", DroneAreaSorter.getCacheHits(), DroneAreaSorter.getRejected())), false);
+        return 1;
+    }
+
+    private static int resetDroneSortStats(CommandContext<CommandSourceStack> ctx) {
+        DroneAreaSorter.resetStats();
+        ctx.getSource().sendSuccess(() -> Component.literal("Drone area sorter stats reset"), false);
+        return 1;
+    }
+
+    private static int showPickupIndexStats(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        long filled = PickupEntityIndex.getSectionsFilled();
+        long shared = PickupEntityIndex.getSectionsShared();
+        source.sendSuccess(() -> Component.literal("Pickup entity index stats:").withStyle(ChatFormatting.GREEN, ChatFormatting.UNDERLINE), false);
+        source.sendSuccess(() -> Component.literal(String.format("Queries: %d", PickupEntityIndex.getQueries())), false);
+        source.sendSuccess(() -> Component.literal(String.format("Sections scanned: %d, reused: %d (%.1f%% saved)",
+                filled, shared, filled + shared == 0 ? 0.0 : 100.0 * shared / (filled + shared))), false);
+        return 1;
+    }
+
+    private static int resetPickupIndexStats(CommandContext<CommandSourceStack> ctx) {
+        PickupEntityIndex.resetStats();
+        ctx.getSource().sendSuccess(() -> Component.literal("Pickup entity index stats reset"), false);
+        return 1;
+    }
+
+    private static int startProfiling(CommandContext<CommandSourceStack> ctx) {
+        TickProfiler.startProfiling();
+        ctx.getSource().sendSuccess(() -> Component.literal("PneumaticCraft tick profiling started"), true);
+        return 1;
+    }
+
+    private static int stopProfiling(CommandContext<CommandSourceStack> ctx) {
+        if (!TickProfiler.isProfiling()) {
+            ctx.getSource().sendFailure(Component.literal("Profiling is not running"));
+            return 0;
+        }
+        TickProfiler.stopProfiling();
+        ctx.getSource().sendSuccess(() -> Component.literal(String.format("PneumaticCraft tick profiling stopped after %.1fs", TickProfiler.getElapsedNanos() / 1.0E9)), true);
+        return 1;
+    }
+
+    private static int profileReport(CommandContext<CommandSourceStack> ctx, int count) {
+        CommandSourceStack source = ctx.getSource();
+        double seconds = Math.max(1.0E-3, TickProfiler.getElapsedNanos() / 1.0E9);
+        source.sendSuccess(() -> Component.literal(String.format("Tick profile (%.1fs%s):", seconds, TickProfiler.isProfiling() ? ", running" : ""))
+                .withStyle(ChatFormatting.GREEN, ChatFormatting.UNDERLINE), false);
+        TickProfiler.getTypeStats().stream().limit(count).forEach(e -> source.sendSuccess(() ->
+                Component.literal(String.format("%s: %.2fms/s (%d ticks, mean %dns, max %dns)", e.getKey(),
+                        e.getValue().getTotalNanos() / 1.0E6 / seconds, e.getValue().getCount(), e.getValue().getMeanNanos(), e.getValue().getMaxNanos())), false));
+        source.sendSuccess(() -> Component.literal("Worst positions:").withStyle(ChatFormatting.YELLOW), false);
+        TickProfiler.getWorstPositions(count).forEach(e -> source.sendSuccess(() ->
+                Component.literal(String.format("%s %s @ %s %s: %.2fms/s (max %dns)", e.getKey().category().getName(), e.getKey().type(),
+                        e.getKey().pos().dimension().location(), PneumaticCraftUtils.posToString(e.getKey().pos().pos()),
+                        e.getValue().getTotalNanos() / 1.0E6 / seconds, e.getValue().getMaxNanos())), false));
+        source.sendSuccess(() -> Component.literal("Drone widget hotspots:").withStyle(ChatFormatting.YELLOW), false);
+        TickProfiler.getWidgetStats().stream().limit(count).forEach(e -> source.sendSuccess(() ->
+                Component.literal(String.format("%s: %.2fms/s (%d ticks)", e.getKey(),
+                        e.getValue().getTotalNanos() / 1.0E6 / seconds, e.getValue().getCount())), false));
+        return 1;
+    }
+
+    private static int profileExport(CommandContext<CommandSourceStack> ctx) {
+        Path file = FMLPaths.GAMEDIR.get().resolve("logs").resolve("pneumaticcraft-profile-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+        try {
+            TickProfiler.exportCSV(file);
+        } catch (IOException e) {
+            ctx.getSource().sendFailure(Component.literal("Can't write " + file + ": " + e.getMessage()));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("Tick profile exported to " + file), false);
+        return 1;
+    }
+
     private static int amadroneDeliver(CommandSourceStack source, BlockPos toPos, BlockPos fromPos) {
         BlockEntity te = source.getLevel().getBlockEntity(fromPos);
 
@@ -89,6 +89,8 @@ public class CommonConfig {
         public ForgeConfigSpec.IntValue pressureSyncPrecision;
         public ForgeConfigSpec.BooleanValue dontUpdateInfiniteWaterSources;
         public ForgeConfigSpec.BooleanValue nbtToClientModification;
+        public ForgeConfigSpec.BooleanValue pressureNetworks;
+        public ForgeConfigSpec.BooleanValue sharedDronePrograms;
     }
     public static class Micromissiles {
         public ForgeConfigSpec.DoubleValue baseExplosionDamage;
@@ -149,6 +151,7 @@ public class CommonConfig {
         public ForgeConfigSpec.DoubleValue ambientTemperatureBiomeModifier;
         public ForgeConfigSpec.DoubleValue ambientTemperatureHeightModifier;
         public ForgeConfigSpec.DoubleValue airThermalResistance;
+        public ForgeConfigSpec.BooleanValue networkSolver;
     }
     public static class Logistics {
         public ForgeConfigSpec.DoubleValue itemTransportCost;
@@ -158,6 +161,7 @@ public class CommonConfig {
     public static class Jackhammer {
         public ForgeConfigSpec.IntValue baseAirUsage;
         public ForgeConfigSpec.IntValue maxVeinMinerRange;
+        public ForgeConfigSpec.IntValue veinBlocksPerTick;
     }
     public static class Villagers {
         public ForgeConfigSpec.IntValue mechanicHouseWeight;
@@ -402,6 +406,13 @@ public class CommonConfig {
         advanced.nbtToClientModification = builder
                 .comment("When set to true, server will strip NBT data from pressurizable items (pneumatic armor, drones...) which the client doesn't care about. Good for saving on network chatter, but can cause players to be kicked under some circumstances. If this occurs, set this config value to false.")
                 .define("nbt_to_client_modification", true);
+        advanced.pressureNetworks = builder
+                .comment("When set to true, connected runs of Pressure Tubes without tube modules are treated as a single volume of air, which is equalized every tick. Air moves through long tube runs much faster, and large tube networks are cheaper to tick. Machines, leaks and tube modules behave as normal.")
+                .define("pressure_networks", false);
+        advanced.sharedDronePrograms = builder
+                .comment("When set to true, drone programs are saved once per world and referenced by drones, rather than being saved in full with every drone. Saves a lot of space and loading time when many drones run the same program. Worlds saved with this enabled can't be loaded by older versions of the mod without drones losing their programs.")
+                .translation("pneumaticcraft.config.common.advanced.shared_drone_programs")
+                .define("shared_drone_programs", false);
         builder.pop();
 
         builder.push("Micromissile Properties");
@@ -640,6 +651,10 @@ public class CommonConfig {
                 .comment("Automatically register heat properties for all detected modded fluids based on their self-defined temperature? (note: vanilla lava and water are always added)")
                 .translation("pneumaticcraft.config.common.blockHeatDefaults.addDefaultFluidEntries")
                 .define("addDefaultFluidEntries", true);
+        heat.networkSolver = builder
+                .comment("When true, heat exchange between connected heat-handling blocks is done in a single pass over all heat exchangers at the end of each server tick, rather than by each block as it ticks. Can be noticeably faster with very large heat sink or vortex tube arrays. Since exchanges happen in a different order, temperatures may differ very slightly from normal heat exchange.")
+                .translation("pneumaticcraft.config.common.blockHeatDefaults.networkSolver")
+                .define("networkSolver", false);
         builder.pop();
 
         builder.push("Logistics");
@@ -662,6 +677,10 @@ public class CommonConfig {
                 .comment("Max veinmining range (distance from mined block) for Vein Miner Plus mode")
                 .translation("pneumaticcraft.config.common.jackhammer.maxVeinMinerRange")
                 .defineInRange("max_vein_miner_range", 10, 1, 32);
+        jackhammer.veinBlocksPerTick = builder
+                .comment("Max blocks broken per tick, per player, when vein mining with the Jackhammer. Larger veins are broken over several ticks.")
+                .translation("pneumaticcraft.config.common.jackhammer.veinBlocksPerTick")
+                .defineInRange("vein_blocks_per_tick", 16, 1, 1024);
         jackhammer.baseAirUsage = builder
                 .comment("Base Jackhammer air usage per block broken (speed upgrades increase this)")
                 .translation("pneumaticcraft.config.common.jackhammer.baseAirUsage")
@@ -20,22 +20,40 @@ package me.desht.pneumaticcraft.common.config.subconfig;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
+import me.desht.pneumaticcraft.api.crafting.recipe.AmadronRecipe;
 import me.desht.pneumaticcraft.common.amadron.AmadronOfferManager;
 import me.desht.pneumaticcraft.common.recipes.amadron.AmadronPlayerOffer;
+import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.resources.ResourceLocation;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Persistent storage for player-to-player Amadron offers. Offers change constantly on a busy server (stock levels,
+ * pending payments), so individual changes are appended to a journal file alongside the main config file, rather
+ * than rewriting every offer each time. The journal is replayed over the main file on load, and is compacted back
+ * into it once it grows large, and when the server stops. All file writes are done in the background by
+ * {@link AuxConfigWriter}.
+ */
 public class AmadronPlayerOffers extends AuxConfigJson {
     public static final AmadronPlayerOffers INSTANCE = new AmadronPlayerOffers();
 
+    private static final int MAX_JOURNAL_ENTRIES = 256;
+
     private static final String DESC =
             "Stores all the current player-to-player Amadron trades,"
             + "along with stock information, pending payments etc.";
 
     private final Map<ResourceLocation, AmadronPlayerOffer> playerOffers = new HashMap<>();
+    private int journalEntries;
 
     private AmadronPlayerOffers() {
         super(false);
@@ -50,13 +68,114 @@ public class AmadronPlayerOffers extends AuxConfigJson {
         return playerOffers;
     }
 
+    /**
+     * Write all offers to the main config file and clear the journal, waiting until that's done.
+     */
     public static void save() {
-        INSTANCE.tryWriteToFile();
+        INSTANCE.compact();
+        AuxConfigWriter.flush();
+    }
+
+    /**
+     * Record a change to a player offer (a new offer, or a change of stock or pending payments). Does nothing if the
+     * offer isn't a stored player offer (e.g. it's the reversed copy of one).
+     *
+     * @param offer the changed offer
+     */
+    public static void offerChanged(AmadronRecipe offer) {
+        AmadronPlayerOffer stored = INSTANCE.playerOffers.get(offer.getId());
+        if (stored != null) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("op", "put");
+            entry.add("offer", stored.toJson(new JsonObject()));
+            INSTANCE.appendToJournal(entry);
+        }
+    }
+
+    /**
+     * Record the removal of a player offer.
+     *
+     * @param id the removed offer's ID
+     */
+    public static void offerRemoved(ResourceLocation id) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("op", "remove");
+        entry.addProperty("id", id.toString());
+        INSTANCE.appendToJournal(entry);
+    }
+
+    private File getJournalFile() {
+        return new File(file.getParentFile(), getConfigFilename() + ".journal");
+    }
+
+    private void appendToJournal(JsonObject entry) {
+        if (file == null) return;
+
+        File journal = getJournalFile();
+        AuxConfigWriter.submit(() -> Files.writeString(journal.toPath(), entry + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        if (++journalEntries >= MAX_JOURNAL_ENTRIES) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        if (file == null) return;
+
+        // serialized now, so that it covers exactly the journal entries queued so far, which it then replaces
+        JsonObject root = new JsonObject();
+        writeToJson(root);
+        File mainFile = file;
+        File journal = getJournalFile();
+        AuxConfigWriter.submit(() -> {
+            AuxConfigWriter.writeNow(mainFile, root);
+            Files.deleteIfExists(journal.toPath());
+        });
+        journalEntries = 0;
+    }
+
+    private void replayJournal() {
+        File journal = getJournalFile();
+        if (!journal.exists()) return;
+
+        int n = 0;
+        try {
+            for (String line : Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                    switch (entry.get("op").getAsString()) {
+                        case "put" -> {
+                            AmadronPlayerOffer offer = AmadronPlayerOffer.fromJson(entry.getAsJsonObject("offer"));
+                            if (offer != null) playerOffers.put(offer.getId(), offer);
+                        }
+                        case "remove" -> playerOffers.remove(new ResourceLocation(entry.get("id").getAsString()));
+                        default -> Log.warning("Unknown Amadron offer journal operation: " + entry.get("op"));
+                    }
+                    n++;
+                } catch (RuntimeException e) {
+                    // most likely a partly-written last line, if the server went down mid-write
+                    Log.warning("Skipping bad Amadron offer journal entry: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Log.error("Can't read Amadron offer journal " + journal + ": " + e.getMessage());
+        }
+        if (n > 0) Log.info("Replayed " + n + " Amadron player offer change(s) from " + journal);
+    }
+
+    @Override
+    public void writeToFile() throws IOException {
+        // only called when the file is loaded, at which point the journal has been replayed into the offers
+        super.writeToFile();
+        Files.deleteIfExists(getJournalFile().toPath());
+        journalEntries = 0;
     }
 
     @Override
     public void clear() {
         playerOffers.clear();
+        journalEntries = 0;
     }
 
     @Override
@@ -81,6 +200,7 @@ public class AmadronPlayerOffers extends AuxConfigJson {
                 e.printStackTrace();
             }
         }
+        replayJournal();
         // need to get the newly-read offers into the offer manager, which has already loaded static & villager offers
         AmadronOfferManager.getInstance().addPlayerOffers();
     }
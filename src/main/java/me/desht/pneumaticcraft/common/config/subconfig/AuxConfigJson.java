@@ -18,7 +18,8 @@
 package me.desht.pneumaticcraft.common.config.subconfig;
 
 import com.google.common.base.Charsets;
-import com.google.gson.*;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import me.desht.pneumaticcraft.lib.Log;
 import org.apache.commons.io.FileUtils;
 
@@ -51,6 +52,8 @@ public abstract class AuxConfigJson implements IAuxConfig {
     }
 
     private void processFile() throws IOException {
+        // make sure any background writes from an earlier load (e.g. a previous single-player world) have landed
+        AuxConfigWriter.flush();
         if (file.exists()) {
             readFromFile();
             writeToFile();
@@ -62,20 +65,27 @@ public abstract class AuxConfigJson implements IAuxConfig {
         }
     }
 
+    /**
+     * Write the config file immediately, on the calling thread.
+     *
+     * @throws IOException if the file couldn't be written
+     */
     public void writeToFile() throws IOException {
         JsonObject root = new JsonObject();
         writeToJson(root);
-        String jsonString = root.toString();
-
-        JsonElement el = JsonParser.parseString(jsonString);
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        FileUtils.write(file, gson.toJson(el), Charsets.UTF_8);
+        AuxConfigWriter.writeNow(file, root);
     }
 
+    /**
+     * Save the config in the background. The config is serialized to JSON right away, but the file is written
+     * later by {@link AuxConfigWriter}, coalescing with any other pending write of this config.
+     */
     public void tryWriteToFile() {
         try {
-            writeToFile();
-        } catch (IOException | NoSuchElementException e) {
+            JsonObject root = new JsonObject();
+            writeToJson(root);
+            AuxConfigWriter.write(file, root);
+        } catch (NoSuchElementException e) {
             Log.stacktrace("Failed to save config", e);
         }
     }
@@ -0,0 +1,136 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.config.subconfig;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import me.desht.pneumaticcraft.lib.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Writes auxiliary config files on a background thread, so that saving configs doesn't stall the server or client
+ * thread.
+ * <p>
+ * Callers build the JSON on their own thread (so it's a consistent snapshot), and hand it over here to be
+ * stringified and written. Whole-file writes are coalesced per file: if a write is still queued when another comes
+ * in, only the newest JSON is written. Files are written to a temporary file which is then atomically renamed over
+ * the original, so a crash mid-write can never leave a truncated config behind.
+ * <p>
+ * Other file operations (e.g. journal appends) can be queued with {@link #submit(IORunnable)}; all tasks run on a
+ * single thread, in submission order.
+ */
+class AuxConfigWriter {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final long FLUSH_TIMEOUT_SECONDS = 30L;
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    private static final Map<File, JsonObject> pendingWrites = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AuxConfigWriter::flush, "PneumaticCraft Config Writer Shutdown"));
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "PneumaticCraft Config Writer");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Queue a write of the given JSON to the given file, replacing any write of that file which is still queued.
+     *
+     * @param file the file
+     * @param json the JSON, which must not be modified after this call
+     */
+    static void write(File file, JsonObject json) {
+        if (pendingWrites.put(file, json) == null) {
+            submit(() -> {
+                JsonObject latest = pendingWrites.remove(file);
+                if (latest != null) writeNow(file, latest);
+            });
+        }
+    }
+
+    /**
+     * Queue some other file operation, to run after all previously-queued writes and operations.
+     *
+     * @param task the file operation
+     */
+    static void submit(IORunnable task) {
+        EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                Log.error("Failed to save config: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Wait for all queued writes and operations to complete.
+     */
+    static void flush() {
+        Future<?> done = EXECUTOR.submit(() -> {});
+        try {
+            done.get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            Log.error("Timed out waiting for config files to be written!");
+        } catch (ExecutionException e) {
+            Log.error("Failed waiting for config files to be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the given JSON to the given file on the calling thread, via a temporary file and an atomic rename.
+     *
+     * @param file the file
+     * @param json the JSON
+     * @throws IOException if the file couldn't be written
+     */
+    static void writeNow(File file, JsonObject json) throws IOException {
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, GSON.toJson(json), StandardCharsets.UTF_8);
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @FunctionalInterface
+    interface IORunnable {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.debug;
+
+import me.desht.pneumaticcraft.common.drone.IDroneBase;
+import me.desht.pneumaticcraft.common.drone.progwidgets.IProgWidget;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.GlobalPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Server-side profiler for PneumaticCraft's ticking subsystems, controlled with {@code /pncr profile}. Instrumented
+ * code calls {@link #start()} before doing its work and one of the {@code record...} methods afterwards; while the
+ * profiler is stopped, {@link #start()} just returns 0 and the record methods return immediately, so the only cost
+ * is a field read.
+ * <p>
+ * Times are kept per subsystem type (block entity type, air handler owner type, heat exchanger, drone type), per
+ * position, and per drone program widget type, each with a log2-bucketed histogram of tick times. Note that block
+ * entity tick times include the time spent ticking that block entity's air handlers and heat exchangers, which are
+ * also recorded separately.
+ * <p>
+ * Only ticks on the thread which started profiling (the server thread) are recorded.
+ */
+public class TickProfiler {
+    public static final int HISTOGRAM_BUCKETS = 24;  // from under 256ns up to ~2s
+
+    private static volatile boolean enabled;
+    private static Thread profilingThread;
+    private static long startedAt;
+    private static long stoppedAt;
+
+    private static final Map<String, Stats> byType = new HashMap<>();
+    private static final Map<PosKey, Stats> byPos = new HashMap<>();
+    private static final Map<String, Stats> byWidget = new HashMap<>();
+
+    public enum Category {
+        BLOCK_ENTITY("block_entity"),
+        AIR_HANDLER("air_handler"),
+        HEAT("heat"),
+        DRONE("drone");
+
+        private final String name;
+
+        Category(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Start profiling, discarding any previously collected data. Must be called on the server thread.
+     */
+    public static void startProfiling() {
+        byType.clear();
+        byPos.clear();
+        byWidget.clear();
+        profilingThread = Thread.currentThread();
+        startedAt = System.nanoTime();
+        enabled = true;
+    }
+
+    public static void stopProfiling() {
+        if (enabled) {
+            enabled = false;
+            stoppedAt = System.nanoTime();
+        }
+    }
+
+    public static boolean isProfiling() {
+        return enabled;
+    }
+
+    /**
+     * Get the elapsed time of the current (or last) profiling session.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public static long getElapsedNanos() {
+        return (enabled ? System.nanoTime() : stoppedAt) - startedAt;
+    }
+
+    /**
+     * Call before doing some work which may be recorded.
+     *
+     * @return a start timestamp to pass to one of the record methods, or 0 if profiling isn't active
+     */
+    public static long start() {
+        return enabled && Thread.currentThread() == profilingThread ? System.nanoTime() : 0L;
+    }
+
+    public static void recordBlockEntity(BlockEntity te, long start) {
+        if (start != 0L && enabled) {
+            record(Category.BLOCK_ENTITY, typeName(te), te.getLevel(), te.getBlockPos(), System.nanoTime() - start);
+        }
+    }
+
+    public static void recordAirHandler(BlockEntity owner, long start) {
+        if (start != 0L && enabled) {
+            record(Category.AIR_HANDLER, typeName(owner), owner.getLevel(), owner.getBlockPos(), System.nanoTime() - start);
+        }
+    }
+
+    public static void recordHeat(long start) {
+        if (start != 0L && enabled) {
+            // heat exchangers don't know where they are; they're also included in their owner's block entity times
+            record(Category.HEAT, "heat_exchanger", null, null, System.nanoTime() - start);
+        }
+    }
+
+    public static void recordDrone(IDroneBase drone, IProgWidget activeWidget, long start) {
+        if (start != 0L && enabled) {
+            long nanos = System.nanoTime() - start;
+            record(Category.DRONE, drone.getClass().getSimpleName(), drone.world(), BlockPos.containing(drone.getDronePos()), nanos);
+            if (activeWidget != null) {
+                byWidget.computeIfAbsent(activeWidget.getTypeID().toString(), k -> new Stats()).add(nanos);
+            }
+        }
+    }
+
+    private static void record(Category category, String type, Level level, BlockPos pos, long nanos) {
+        byType.computeIfAbsent(category.getName() + "/" + type, k -> new Stats()).add(nanos);
+        if (level != null && pos != null) {
+            byPos.computeIfAbsent(new PosKey(category, type, GlobalPos.of(level.dimension(), pos.immutable())), k -> new Stats()).add(nanos);
+        }
+    }
+
+    private static String typeName(BlockEntity te) {
+        return Objects.toString(ForgeRegistries.BLOCK_ENTITY_TYPES.getKey(te.getType()), te.getClass().getSimpleName());
+    }
+
+    public static List<Map.Entry<String, Stats>> getTypeStats() {
+        return sorted(byType);
+    }
+
+    public static List<Map.Entry<PosKey, Stats>> getWorstPositions(int n) {
+        List<Map.Entry<PosKey, Stats>> res = sorted(byPos);
+        return res.subList(0, Math.min(n, res.size()));
+    }
+
+    public static List<Map.Entry<String, Stats>> getWidgetStats() {
+        return sorted(byWidget);
+    }
+
+    private static <K> List<Map.Entry<K, Stats>> sorted(Map<K, Stats> map) {
+        List<Map.Entry<K, Stats>> res = new ArrayList<>(map.entrySet());
+        res.sort(Comparator.comparingLong((Map.Entry<K, Stats> e) -> e.getValue().getTotalNanos()).reversed());
+        return res;
+    }
+
+    /**
+     * Write all collected data as CSV: one row per type, position and widget, with totals and histogram buckets.
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public static void exportCSV(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            StringBuilder header = new StringBuilder("kind,category,type,dimension,x,y,z,count,total_ns,mean_ns,max_ns");
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                header.append(",lt_").append(Stats.bucketLimit(i)).append("ns");
+            }
+            out.println(header);
+            for (Map.Entry<String, Stats> e : getTypeStats()) {
+                String[] parts = e.getKey().split("/", 2);
+                out.println(csvRow("type", parts[0], parts[1], "", "", "", "", e.getValue()));
+            }
+            for (Map.Entry<PosKey, Stats> e : sorted(byPos)) {
+                PosKey key = e.getKey();
+                BlockPos pos = key.pos().pos();
+                out.println(csvRow("position", key.category().getName(), key.type(), key.pos().dimension().location().toString(),
+                        Integer.toString(pos.getX()), Integer.toString(pos.getY()), Integer.toString(pos.getZ()), e.getValue()));
+            }
+            for (Map.Entry<String, Stats> e : getWidgetStats()) {
+                out.println(csvRow("widget", Category.DRONE.getName(), e.getKey(), "", "", "", "", e.getValue()));
+            }
+        }
+    }
+
+    private static String csvRow(String kind, String category, String type, String dim, String x, String y, String z, Stats stats) {
+        StringJoiner row = new StringJoiner(",");
+        row.add(kind).add(category).add(type).add(dim).add(x).add(y).add(z)
+                .add(Long.toString(stats.getCount()))
+                .add(Long.toString(stats.getTotalNanos()))
+                .add(Long.toString(stats.getMeanNanos()))
+                .add(Long.toString(stats.getMaxNanos()));
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            row.add(Long.toString(stats.getBucket(i)));
+        }
+        return row.toString();
+    }
+
+    public record PosKey(Category category, String type, GlobalPos pos) {
+    }
+
+    public static class Stats {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            // bucket i holds times up to 2^(i+8) ns, i.e. the first bucket is up to 256ns
+            int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(nanos) - 8);
+            histogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)]++;
+        }
+
+        static long bucketLimit(int bucket) {
+            return 1L << (bucket + 8);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getBucket(int bucket) {
+            return histogram[bucket];
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.drone;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import me.desht.pneumaticcraft.api.item.IProgrammable;
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.common.config.ConfigHelper;
+import me.desht.pneumaticcraft.common.drone.progwidgets.IProgWidget;
+import me.desht.pneumaticcraft.common.drone.progwidgets.WidgetSerializer;
+import me.desht.pneumaticcraft.lib.Log;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import javax.annotation.Nullable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-world store of drone programs, keyed by a hash of the program's serialized widgets, enabled by the
+ * {@code shared_drone_programs} advanced config setting. Drones save just the hash of their program, so any number of
+ * drones running the same program share a single saved copy of it.
+ * <p>
+ * Each stored program has a count of the saved drones which refer to it. A drone takes a reference when it's saved
+ * with a program it didn't already refer to, and drops its old reference at the same time, or when it's destroyed.
+ * Programs with no references are removed the next time the store is saved after they've been unreferenced for long
+ * enough that every chunk which could still mention them has been saved. Whenever a program is added or a reference
+ * is taken or dropped, the store (and only the store) is written to disk at the end of the tick, so a crash can't
+ * leave saved drones referring to a program the store never wrote.
+ * <p>
+ * Stored programs are shared as NBT only; each drone deserializes its own widget instances, since widgets hold
+ * per-drone state (e.g. areas resolved against the drone's variables). Drone items always carry their program
+ * inline, since items can move between worlds and their programs are needed client-side. Programs built in code by
+ * the basic drones are specific to where the drone was deployed, so those are also saved inline.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class DroneProgramStore extends SavedData {
+    private static final String DATA_NAME = "PneumaticCraftDronePrograms";
+    private static final String NBT_PROGRAM_HASH = "programHash";
+    // two autosave intervals
+    private static final long SWEEP_DELAY = 12000L;
+
+    private static boolean flushPending;
+
+    private final Map<String, ListTag> programs = new HashMap<>();
+    private final Object2IntOpenHashMap<String> refCounts = new Object2IntOpenHashMap<>();
+    // game time at which each program lost its last reference
+    private final Object2LongOpenHashMap<String> unreferencedSince = new Object2LongOpenHashMap<>();
+
+    private DroneProgramStore() {
+    }
+
+    private static DroneProgramStore load(CompoundTag tag) {
+        DroneProgramStore store = new DroneProgramStore();
+        CompoundTag sub = tag.getCompound("programs");
+        CompoundTag refs = tag.getCompound("refs");
+        long now = getGameTime();
+        for (String hash : sub.getAllKeys()) {
+            store.programs.put(hash, sub.getList(hash, Tag.TAG_COMPOUND));
+            int count = refs.getInt(hash);
+            if (count > 0) {
+                store.refCounts.put(hash, count);
+            } else {
+                store.unreferencedSince.put(hash, now);
+            }
+        }
+        return store;
+    }
+
+    private static DroneProgramStore getInstance() {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        return server == null ? null : server.overworld().getDataStorage().computeIfAbsent(DroneProgramStore::load, DroneProgramStore::new, DATA_NAME);
+    }
+
+    private static long getGameTime() {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        return server == null ? 0L : server.overworld().getGameTime();
+    }
+
+    public static boolean isEnabled() {
+        return ConfigHelper.common().advanced.sharedDronePrograms.get();
+    }
+
+    /**
+     * Write a drone's program to its saved data: as a reference to the program store if shared programs are enabled
+     * (and the drone allows it), or inline otherwise. The drone's reference to the store is moved from its previous
+     * program if that differs.
+     *
+     * @param widgets the program
+     * @param tag the drone's saved data
+     * @param prevHash the hash of the program the drone previously referred to, if any
+     * @param shareable false if the program should always be saved inline
+     * @return the hash of the program the drone now refers to, or null if it was saved inline
+     */
+    @Nullable
+    public static String writeProgram(List<IProgWidget> widgets, CompoundTag tag, @Nullable String prevHash, boolean shareable) {
+        DroneProgramStore store = getInstance();
+        if (store == null || !shareable || !isEnabled() || widgets.isEmpty()) {
+            WidgetSerializer.putWidgetsToNBT(widgets, tag);
+            if (store != null) store.release(prevHash);
+            return null;
+        }
+
+        CompoundTag inline = new CompoundTag();
+        WidgetSerializer.putWidgetsToNBT(widgets, inline);
+        String hash = hash(inline);
+        // the program may have gone missing even if the drone already refers to it (e.g. if the store was reset)
+        if (store.programs.putIfAbsent(hash, inline.getList(IProgrammable.NBT_WIDGETS, Tag.TAG_COMPOUND)) == null) {
+            store.markChanged();
+        }
+        if (!hash.equals(prevHash) || !store.refCounts.containsKey(hash)) {
+            store.refCounts.addTo(hash, 1);
+            store.unreferencedSince.removeLong(hash);
+            if (!hash.equals(prevHash)) store.release(prevHash);
+            store.markChanged();
+        }
+        tag.putString(NBT_PROGRAM_HASH, hash);
+        return hash;
+    }
+
+    /**
+     * Read a drone's program from its saved data, whether stored as a reference or (as in older saves) inline.
+     *
+     * @param tag the drone's saved data
+     * @return the program, newly deserialized
+     */
+    public static List<IProgWidget> readProgram(CompoundTag tag) {
+        String hash = getProgramHash(tag);
+        if (hash == null) {
+            return WidgetSerializer.getWidgetsFromNBT(tag);
+        }
+
+        DroneProgramStore store = getInstance();
+        ListTag program = store == null ? null : store.programs.get(hash);
+        if (program == null) {
+            Log.error("drone program %s missing from program store! drone will have no program", hash);
+            program = new ListTag();
+        }
+        CompoundTag inline = new CompoundTag();
+        inline.put(IProgrammable.NBT_WIDGETS, program);
+        return WidgetSerializer.getWidgetsFromNBT(inline);
+    }
+
+    /**
+     * Get the hash of the stored program which a drone's saved data refers to.
+     *
+     * @param tag the drone's saved data
+     * @return the program hash, or null if the program is saved inline
+     */
+    @Nullable
+    public static String getProgramHash(CompoundTag tag) {
+        return tag.contains(NBT_PROGRAM_HASH, Tag.TAG_STRING) ? tag.getString(NBT_PROGRAM_HASH) : null;
+    }
+
+    /**
+     * Drop a drone's reference to a stored program, when the drone is destroyed.
+     *
+     * @param hash the program hash; may be null, in which case nothing is done
+     */
+    public static void releaseProgram(@Nullable String hash) {
+        DroneProgramStore store = hash == null ? null : getInstance();
+        if (store != null) store.release(hash);
+    }
+
+    private void release(@Nullable String hash) {
+        if (hash == null || !refCounts.containsKey(hash)) return;
+
+        if (refCounts.addTo(hash, -1) <= 1) {
+            refCounts.removeInt(hash);
+            unreferencedSince.put(hash, getGameTime());
+        }
+        markChanged();
+    }
+
+    private void markChanged() {
+        setDirty();
+        flushPending = true;
+    }
+
+    private static String hash(CompoundTag tag) {
+        HashingOutputStream out = new HashingOutputStream(Hashing.sha256(), ByteStreams.nullOutputStream());
+        try (DataOutputStream data = new DataOutputStream(out)) {
+            NbtIo.write(tag, data);
+        } catch (IOException e) {
+            // can't happen when writing to a null stream
+            throw new IllegalStateException(e);
+        }
+        return out.hash().toString();
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        // by now, chunks saved before a program lost its last reference have been saved again without it
+        long now = getGameTime();
+        unreferencedSince.object2LongEntrySet().removeIf(e -> {
+            if (now - e.getLongValue() >= SWEEP_DELAY) {
+                programs.remove(e.getKey());
+                return true;
+            }
+            return false;
+        });
+
+        CompoundTag sub = new CompoundTag();
+        programs.forEach(sub::put);
+        tag.put("programs", sub);
+        CompoundTag refs = new CompoundTag();
+        refCounts.forEach(refs::putInt);
+        tag.put("refs", refs);
+        return tag;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && flushPending) {
+            flushPending = false;
+            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+            DroneProgramStore store = getInstance();
+            if (server != null && store != null) {
+                // just this store; the overworld's saved data lives in the world's top-level data folder
+                Path dataFolder = DimensionType.getStorageFolder(Level.OVERWORLD, server.getWorldPath(LevelResource.ROOT)).resolve("data");
+                store.save(dataFolder.resolve(DATA_NAME + ".dat").toFile());
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        flushPending = false;
+    }
+}
@@ -17,29 +17,34 @@
 
 package me.desht.pneumaticcraft.common.drone;
 
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import me.desht.pneumaticcraft.common.entity.semiblock.AbstractLogisticsFrameEntity;
 import me.desht.pneumaticcraft.common.semiblock.IProvidingInventoryListener;
 import me.desht.pneumaticcraft.common.semiblock.IProvidingInventoryListener.TileEntityAndFace;
 import me.desht.pneumaticcraft.common.semiblock.ISpecificProvider;
 import me.desht.pneumaticcraft.common.semiblock.ISpecificRequester;
 import me.desht.pneumaticcraft.common.util.IOHelper;
+import net.minecraft.core.Direction;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.pathfinder.PathComputationType;
 import net.minecraftforge.common.capabilities.ForgeCapabilities;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.items.IItemHandler;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.PriorityQueue;
+import java.util.*;
 import java.util.stream.IntStream;
 
 public class LogisticsManager {
     private static final int N_PRIORITIES = 4;
 
     private final List<List<AbstractLogisticsFrameEntity>> logistics = new ArrayList<>();
+    private final Map<AbstractLogisticsFrameEntity, ProviderSnapshot> snapshots = new IdentityHashMap<>();
+    private int planningPass;
 
     public LogisticsManager() {
         for (int i = 0; i < N_PRIORITIES; i++) {
@@ -55,6 +60,10 @@ public class LogisticsManager {
         ItemStack item = holdingStack instanceof ItemStack ? (ItemStack) holdingStack : ItemStack.EMPTY;
         FluidStack fluid = holdingStack instanceof FluidStack ? (FluidStack) holdingStack : FluidStack.EMPTY;
         PriorityQueue<LogisticsTask> tasks = new PriorityQueue<>();
+        planningPass++;
+        removeDeadFrames();
+        // per-pass memo of items which each requester has been found not to want at all, as untagged stacks
+        Map<AbstractLogisticsFrameEntity, Set<Item>> unwanted = new IdentityHashMap<>();
         for (int priority = logistics.size() - 1; priority >= 0; priority--) {
             for (AbstractLogisticsFrameEntity requester : logistics.get(priority)) {
                 if (droneAccess && requester.isObstructed(PathComputationType.AIR)) continue;
@@ -82,7 +91,8 @@ public class LogisticsManager {
                             // it could be that the drone is carrying some item or fluid it can't drop off right now
                             // however it might still be able to transfer the other resource type (i.e. transfer items if
                             // it's holding a fluid, and vice versa)
-                            tryProvide(provider, requester, tasks, item.isEmpty(), fluid.isEmpty());
+                            tryProvide(provider, requester, tasks, item.isEmpty(), fluid.isEmpty(),
+                                    unwanted.computeIfAbsent(requester, k -> new ReferenceOpenHashSet<>()));
                         }
                     }
                 }
@@ -91,16 +101,36 @@ public class LogisticsManager {
         return tasks;
     }
 
-    private void tryProvide(AbstractLogisticsFrameEntity provider, AbstractLogisticsFrameEntity requester, PriorityQueue<LogisticsTask> tasks, boolean tryItems, boolean tryFluids) {
-        if (provider.getCachedTileEntity() == null) return;
+    /**
+     * Drop frames which have been removed from the world since this manager was set up, along with their snapshots,
+     * so a long-lived manager doesn't keep them (and their inventory snapshots) around.
+     */
+    private void removeDeadFrames() {
+        for (List<AbstractLogisticsFrameEntity> frames : logistics) {
+            frames.removeIf(AbstractLogisticsFrameEntity::isRemoved);
+        }
+        snapshots.keySet().removeIf(AbstractLogisticsFrameEntity::isRemoved);
+    }
 
-        if (tryItems) {
-            provider.getCachedTileEntity().getCapability(ForgeCapabilities.ITEM_HANDLER, provider.getSide()).ifPresent(itemHandler -> {
-                if (requester instanceof IProvidingInventoryListener)
-                    ((IProvidingInventoryListener) requester).notify(new TileEntityAndFace(provider.getCachedTileEntity(), provider.getSide()));
-                for (int i = 0; i < itemHandler.getSlots(); i++) {
-                    ItemStack providingStack = itemHandler.extractItem(i, 64, true);
-                    if (!providingStack.isEmpty() && (!(provider instanceof ISpecificProvider) || ((ISpecificProvider) provider).canProvide(providingStack))) {
+    private void tryProvide(AbstractLogisticsFrameEntity provider, AbstractLogisticsFrameEntity requester, PriorityQueue<LogisticsTask> tasks, boolean tryItems, boolean tryFluids, Set<Item> unwanted) {
+        BlockEntity providerTE = provider.getCachedTileEntity();
+        if (providerTE == null) return;
+
+        ProviderSnapshot snapshot = getSnapshot(provider, providerTE);
+
+        if (tryItems && snapshot.hasItemHandler) {
+            if (requester instanceof IProvidingInventoryListener)
+                ((IProvidingInventoryListener) requester).notify(new TileEntityAndFace(providerTE, provider.getSide()));
+            snapshot.itemsByType.forEach((providedItem, stacks) -> {
+                for (ItemStack providingStack : stacks) {
+                    // the memo only covers untagged stacks; a requester matching NBT may still want tagged ones
+                    if (!providingStack.hasTag() && unwanted.contains(providedItem)) continue;
+                    if (!(provider instanceof ISpecificProvider) || ((ISpecificProvider) provider).canProvide(providingStack)) {
+                        if (requester instanceof ISpecificRequester r && !providingStack.hasTag() && r.amountRequested(providingStack) <= 0) {
+                            // amountRequested() is zero regardless of stack size here; no need to check this item again
+                            unwanted.add(providedItem);
+                            continue;
+                        }
                         int requestedAmount = getRequestedAmount(requester, providingStack, true);
                         if (requestedAmount > 0) {
                             ItemStack stack = providingStack.copy();
@@ -112,23 +142,27 @@ public class LogisticsManager {
             });
         }
 
-        if (tryFluids) {
-            provider.getCachedTileEntity().getCapability(ForgeCapabilities.FLUID_HANDLER, provider.getSide()).ifPresent(fluidHandler -> {
-                FluidStack providingStack = fluidHandler.drain(16000, IFluidHandler.FluidAction.SIMULATE);
-                if (!providingStack.isEmpty()) {
-                    boolean canDrain = IntStream.range(0, fluidHandler.getTanks()).anyMatch(i -> fluidHandler.isFluidValid(i, providingStack));
-                    if (canDrain &&
-                            (!(provider instanceof ISpecificProvider) || ((ISpecificProvider) provider).canProvide(providingStack))) {
-                        int requestedAmount = getRequestedAmount(requester, providingStack, true);
-                        if (requestedAmount > 0) {
-                            FluidStack stack = providingStack.copy();
-                            stack.setAmount(requestedAmount);
-                            tasks.add(new LogisticsTask(provider, requester, stack));
-                        }
-                    }
+        if (tryFluids && !snapshot.drainableFluid.isEmpty()) {
+            FluidStack providingStack = snapshot.drainableFluid;
+            if (!(provider instanceof ISpecificProvider) || ((ISpecificProvider) provider).canProvide(providingStack)) {
+                int requestedAmount = getRequestedAmount(requester, providingStack, true);
+                if (requestedAmount > 0) {
+                    FluidStack stack = providingStack.copy();
+                    stack.setAmount(requestedAmount);
+                    tasks.add(new LogisticsTask(provider, requester, stack));
                 }
-            });
+            }
+        }
+    }
+
+    private ProviderSnapshot getSnapshot(AbstractLogisticsFrameEntity provider, BlockEntity providerTE) {
+        ProviderSnapshot snapshot = snapshots.get(provider);
+        if (snapshot == null || snapshot.checkedPass != planningPass && snapshot.isStale(providerTE, provider.getSide())) {
+            snapshot = new ProviderSnapshot(providerTE, provider.getSide());
+            snapshots.put(provider, snapshot);
         }
+        snapshot.checkedPass = planningPass;
+        return snapshot;
     }
 
     private static int getRequestedAmount(AbstractLogisticsFrameEntity requester, ItemStack providingStack, boolean honourMin) {
@@ -170,6 +204,87 @@ public class LogisticsManager {
         return providingStack.getAmount() < minOrderSize ? 0 : providingStack.getAmount();
     }
 
+    /**
+     * What a provider frame's inventory can currently provide. Taken once when first needed and reused (across
+     * planning passes, for as long as this manager is kept) until the inventory's contents change, so the provider
+     * inventory is only scanned with simulated extraction once per change rather than once per requester.
+     */
+    private static class ProviderSnapshot {
+        private final BlockEntity te;
+        private final Direction side;
+        private final boolean hasItemHandler;
+        private final long itemFingerprint;
+        private final long fluidFingerprint;
+        // extractable stacks, grouped by item (in slot order within each group)
+        private final Map<Item, List<ItemStack>> itemsByType = new Reference2ObjectLinkedOpenHashMap<>();
+        private final FluidStack drainableFluid;
+        private int checkedPass;
+
+        ProviderSnapshot(BlockEntity te, Direction side) {
+            this.te = te;
+            this.side = side;
+
+            IItemHandler itemHandler = te.getCapability(ForgeCapabilities.ITEM_HANDLER, side).orElse(null);
+            this.hasItemHandler = itemHandler != null;
+            this.itemFingerprint = fingerprint(itemHandler);
+            if (itemHandler != null) {
+                for (int i = 0; i < itemHandler.getSlots(); i++) {
+                    ItemStack providingStack = itemHandler.extractItem(i, 64, true);
+                    if (!providingStack.isEmpty()) {
+                        itemsByType.computeIfAbsent(providingStack.getItem(), k -> new ArrayList<>()).add(providingStack);
+                    }
+                }
+            }
+
+            IFluidHandler fluidHandler = te.getCapability(ForgeCapabilities.FLUID_HANDLER, side).orElse(null);
+            this.fluidFingerprint = fingerprint(fluidHandler);
+            FluidStack fluid = FluidStack.EMPTY;
+            if (fluidHandler != null) {
+                FluidStack providingStack = fluidHandler.drain(16000, IFluidHandler.FluidAction.SIMULATE);
+                if (!providingStack.isEmpty() && IntStream.range(0, fluidHandler.getTanks()).anyMatch(i -> fluidHandler.isFluidValid(i, providingStack))) {
+                    fluid = providingStack;
+                }
+            }
+            this.drainableFluid = fluid;
+        }
+
+        boolean isStale(BlockEntity te, Direction side) {
+            return te != this.te || side != this.side
+                    || itemFingerprint != fingerprint(te.getCapability(ForgeCapabilities.ITEM_HANDLER, side).orElse(null))
+                    || fluidFingerprint != fingerprint(te.getCapability(ForgeCapabilities.FLUID_HANDLER, side).orElse(null));
+        }
+
+        private static long fingerprint(IItemHandler handler) {
+            if (handler == null) return 0L;
+            long h = handler.getSlots();
+            for (int i = 0; i < handler.getSlots(); i++) {
+                ItemStack stack = handler.getStackInSlot(i);
+                if (!stack.isEmpty()) {
+                    h = 31 * h + i;
+                    h = 31 * h + System.identityHashCode(stack.getItem());
+                    h = 31 * h + stack.getCount();
+                    if (stack.getTag() != null) h = 31 * h + stack.getTag().hashCode();
+                }
+            }
+            return h;
+        }
+
+        private static long fingerprint(IFluidHandler handler) {
+            if (handler == null) return 0L;
+            long h = handler.getTanks();
+            for (int i = 0; i < handler.getTanks(); i++) {
+                FluidStack stack = handler.getFluidInTank(i);
+                if (!stack.isEmpty()) {
+                    h = 31 * h + i;
+                    h = 31 * h + System.identityHashCode(stack.getFluid());
+                    h = 31 * h + stack.getAmount();
+                    if (stack.getTag() != null) h = 31 * h + stack.getTag().hashCode();
+                }
+            }
+            return h;
+        }
+    }
+
     public static class LogisticsTask implements Comparable<LogisticsTask> {
         public final AbstractLogisticsFrameEntity provider, requester;
         public final ItemStack transportingItem;
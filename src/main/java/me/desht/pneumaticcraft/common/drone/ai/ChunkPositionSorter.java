@@ -17,6 +17,7 @@
 
 package me.desht.pneumaticcraft.common.drone.ai;
 
+import it.unimi.dsi.fastutil.longs.LongComparator;
 import me.desht.pneumaticcraft.common.drone.IDroneBase;
 import me.desht.pneumaticcraft.common.drone.progwidgets.IBlockOrdered.Ordering;
 import me.desht.pneumaticcraft.common.util.PneumaticCraftUtils;
@@ -54,13 +55,29 @@ public class ChunkPositionSorter implements Comparator<BlockPos> {
 
     @Override
     public int compare(BlockPos c1, BlockPos c2) {
-        if (order != Ordering.CLOSEST && c1.getY() != c2.getY()) {
-            return order == Ordering.HIGH_TO_LOW ? c2.getY() - c1.getY() : c1.getY() - c2.getY();
+        return compare(c1.getX(), c1.getY(), c1.getZ(), c2.getX(), c2.getY(), c2.getZ());
+    }
+
+    /**
+     * Get a comparator for positions packed with {@link BlockPos#asLong()}, which orders them exactly as this
+     * comparator does, without unpacking them to {@code BlockPos} objects.
+     *
+     * @return a packed position comparator
+     */
+    public LongComparator packed() {
+        return (l1, l2) -> compare(BlockPos.getX(l1), BlockPos.getY(l1), BlockPos.getZ(l1), BlockPos.getX(l2), BlockPos.getY(l2), BlockPos.getZ(l2));
+    }
+
+    private int compare(int x1, int y1, int z1, int x2, int y2, int z2) {
+        if (order != Ordering.CLOSEST && y1 != y2) {
+            return order == Ordering.HIGH_TO_LOW ? y2 - y1 : y1 - y2;
         } else {
-            double d = PneumaticCraftUtils.distBetweenSq(c1.getX(), c1.getY(), c1.getZ(), x, y, z)
-                    - PneumaticCraftUtils.distBetweenSq(c2.getX(), c2.getY(), c2.getZ(), x, y, z);
+            double d = PneumaticCraftUtils.distBetweenSq(x1, y1, z1, x, y, z)
+                    - PneumaticCraftUtils.distBetweenSq(x2, y2, z2, x, y, z);
             if (Math.abs(d) < EPSILON) {
-                return c1.compareTo(c2);
+                // same ordering as Vec3i#compareTo()
+                if (y1 != y2) return y1 - y2;
+                return z1 == z2 ? x1 - x2 : z1 - z2;
             } else {
                 return d < 0 ? -1 : 1;
             }
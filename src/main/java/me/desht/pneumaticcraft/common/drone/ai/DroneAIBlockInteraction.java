@@ -23,13 +23,13 @@ import me.desht.pneumaticcraft.common.drone.progwidgets.IBlockOrdered;
 import me.desht.pneumaticcraft.common.drone.progwidgets.IBlockOrdered.Ordering;
 import me.desht.pneumaticcraft.common.drone.progwidgets.ISidedWidget;
 import me.desht.pneumaticcraft.common.drone.progwidgets.ProgWidgetAreaItemBase;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.CompiledArea;
 import me.desht.pneumaticcraft.common.network.NetworkHandler;
 import me.desht.pneumaticcraft.common.network.PacketSpawnIndicatorParticles;
 import me.desht.pneumaticcraft.common.pneumatic_armor.CommonArmorHandler;
 import me.desht.pneumaticcraft.common.pneumatic_armor.CommonUpgradeHandlers;
 import me.desht.pneumaticcraft.common.upgrades.ModUpgrades;
 import me.desht.pneumaticcraft.common.util.DirectionUtil;
-import me.desht.pneumaticcraft.common.util.ThreadedSorter;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerPlayer;
@@ -45,6 +45,7 @@ import net.minecraft.world.phys.Vec3;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class DroneAIBlockInteraction<W extends ProgWidgetAreaItemBase> extends Goal {
     private static final int MAX_LOOKUPS_PER_SEARCH = 30;
@@ -54,13 +55,14 @@ public abstract class DroneAIBlockInteraction<W extends ProgWidgetAreaItemBase>
     protected final W progWidget;
     private final Ordering order;
     private BlockPos curPos;
-    private final List<BlockPos> area;
+    private final CompiledArea area;
+    private long[] searchOrder = new long[0];  // packed block positions, sorted by the drone area sorter; read-only!
     final CollisionGetter worldCache;
     private final List<BlockPos> blacklist = new ArrayList<>(); //a list of position which weren't allowed to be dug in the past.
     private int curY;
     private int lastSuccessfulY;
     private int minY, maxY;
-    private ThreadedSorter<BlockPos> sorter;
+    private CompletableFuture<long[]> pendingSort;
     private boolean aborted;
     private boolean searching; // True while the drone is searching for a coordinate, false if traveling to or processing a coordinate.
     private int searchIndex;   // The current index in the area list the drone is searching at.
@@ -76,11 +78,11 @@ public abstract class DroneAIBlockInteraction<W extends ProgWidgetAreaItemBase>
         setFlags(EnumSet.allOf(Flag.class)); // exclusive to all other AI tasks
         this.progWidget = progWidget;
         order = progWidget instanceof IBlockOrdered ? ((IBlockOrdered) progWidget).getOrder() : Ordering.CLOSEST;
-        area = progWidget.getCachedAreaList();
+        area = progWidget.getCachedArea();
         worldCache = progWidget.getChunkCache(drone.world());
 
         AABB extents = progWidget.getAreaExtents();
-        if (area.size() > 0) {
+        if (!area.isEmpty()) {
             minY = (int) extents.minY;
             maxY = (int) extents.maxY;
             if (order == Ordering.HIGH_TO_LOW) {
@@ -104,8 +106,8 @@ public abstract class DroneAIBlockInteraction<W extends ProgWidgetAreaItemBase>
                 lastSuccessfulY = curY;
                 curPos = null;
                 searchIndex = 0;
-                if (sorter == null || sorter.isDone()) {
-                    sorter = new ThreadedSorter<>(area, new ChunkPositionSorter(drone, order));
+                if (pendingSort == null || pendingSort.isDone()) {
+                    pendingSort = DroneAreaSorter.sort(area, drone.getDronePos(), order);
                 }
                 return true;
             } else {
@@ -161,15 +163,20 @@ public abstract class DroneAIBlockInteraction<W extends ProgWidgetAreaItemBase>
     public boolean canContinueToUse() {
         if (aborted) return false;
         if (searching) {
-            if (!sorter.isDone()) return true; // wait until the area is sorted according to the given ordering
+            if (!pendingSort.isDone()) return true; // wait until the area is sorted according to the given ordering
+            if (pendingSort.isCompletedExceptionally()) {
+                // a failed sort has already been logged; fall back to the unsorted area, which isYValid() copes with
+                pendingSort = CompletableFuture.completedFuture(area.toPackedArray());
+            }
+            searchOrder = pendingSort.join();
 
             boolean firstRun = true;
             int searchedBlocks = 0; // tracks the number of inspected blocks; stop searching when MAX_LOOKUPS_PER_SEARCH is reached
             while (curPos == null && curY != lastSuccessfulY && order != Ordering.CLOSEST || firstRun) {
                 firstRun = false;
                 List<BlockPos> inspectedPositions = new ArrayList<>();
-                while (!shouldAbort() && searchIndex < area.size()) {
-                    BlockPos pos = area.get(searchIndex);
+                while (!shouldAbort() && searchIndex < searchOrder.length) {
+                    BlockPos pos = BlockPos.of(searchOrder[searchIndex]);
                     searchIndex++;
                     if (isYValid(pos.getY()) && !blacklist.contains(pos) && (!respectClaims() || !DroneClaimManager.getInstance(drone.world()).isClaimed(pos))) {
                         if (!drone.getDebugger().getDebuggingPlayers().isEmpty()) inspectedPositions.add(pos);
@@ -26,6 +26,8 @@ import me.desht.pneumaticcraft.common.drone.progwidgets.ILiquidExport;
 import me.desht.pneumaticcraft.common.drone.progwidgets.ILiquidFiltered;
 import me.desht.pneumaticcraft.common.drone.progwidgets.ProgWidgetAreaItemBase;
 import me.desht.pneumaticcraft.common.drone.progwidgets.ProgWidgetInventoryBase;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.AreaShape;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.CompiledArea;
 import me.desht.pneumaticcraft.common.entity.semiblock.AbstractLogisticsFrameEntity;
 import me.desht.pneumaticcraft.common.semiblock.SemiblockTracker;
 import me.desht.pneumaticcraft.common.util.DirectionUtil;
@@ -42,6 +44,7 @@ import net.minecraftforge.fluids.FluidStack;
 
 import javax.annotation.Nonnull;
 import java.util.HashSet;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -60,7 +63,7 @@ public class DroneAILogistics extends Goal {
     private LogisticsManager getLogisticsManager() {
         if (drone.getLogisticsManager() == null) {
             // note: this is an expensive operation!  hence we cache the logistics manager object in the drone
-            Set<BlockPos> area = widget.getCachedAreaSet();
+            CompiledArea area = widget.getCachedArea();
             if (!area.isEmpty()) {
                 AABB aabb = widget.getAreaExtents();
                 Stream<ISemiBlock> semiBlocksInArea = SemiblockTracker.getInstance().getSemiblocksInArea(drone.world(), aabb);
@@ -189,6 +192,11 @@ public class DroneAILogistics extends Goal {
             area.addAll(this.area);
         }
 
+        @Override
+        protected CompiledArea compileArea() {
+            return new CompiledArea(this.area.stream().map(AreaShape::ofBlock).toList(), List.of(), 1);
+        }
+
         @Override
         public void setSides(boolean[] sides) {
         }
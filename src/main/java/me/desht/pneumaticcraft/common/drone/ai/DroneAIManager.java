@@ -20,10 +20,12 @@ package me.desht.pneumaticcraft.common.drone.ai;
 import com.google.common.collect.ImmutableList;
 import me.desht.pneumaticcraft.api.drone.SpecialVariableRetrievalEvent;
 import me.desht.pneumaticcraft.common.config.ConfigHelper;
+import me.desht.pneumaticcraft.common.debug.TickProfiler;
 import me.desht.pneumaticcraft.common.drone.IDroneBase;
 import me.desht.pneumaticcraft.common.drone.progwidgets.*;
 import me.desht.pneumaticcraft.common.item.ItemRegistry;
 import me.desht.pneumaticcraft.common.upgrades.ModUpgrades;
+import me.desht.pneumaticcraft.common.util.PickupEntityIndex;
 import me.desht.pneumaticcraft.common.variables.GlobalVariableHelper;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -31,6 +33,7 @@ import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.Tag;
 import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.ai.goal.Goal;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.item.ItemStack;
@@ -51,6 +54,7 @@ public class DroneAIManager implements IVariableProvider {
 
     private final List<WrappedGoal> goals = new ArrayList<>();
     private final List<WrappedGoal> executingGoals = new ArrayList<>();
+    private final List<Entity> magnetScratch = new ArrayList<>();
     private final ProfilerFiller theProfiler;
     private int tickCount;
     private final IDroneBase drone;
@@ -340,17 +344,28 @@ public class DroneAIManager implements IVariableProvider {
             int rangeSq = range * range;
             Vec3 v = drone.getDronePos();
             AABB aabb = new AABB(v.x, v.y, v.z, v.x, v.y, v.z).inflate(range);
-            List<ItemEntity> items = drone.world().getEntitiesOfClass(ItemEntity.class, aabb,
-                    item -> item != null
-                            && item.isAlive()
-                            && !item.hasPickUpDelay()
-                            && !ItemRegistry.getInstance().shouldSuppressMagnet(item)
-                            && drone.getDronePos().distanceToSqr(item.position()) <= rangeSq);
-            items.forEach(item -> DroneEntityAIPickupItems.tryPickupItem(drone, item));
+            magnetScratch.clear();
+            for (Entity e : PickupEntityIndex.getEntities(drone.world(), aabb, magnetScratch)) {
+                if (e instanceof ItemEntity item
+                        && item.isAlive()
+                        && !item.hasPickUpDelay()
+                        && !ItemRegistry.getInstance().shouldSuppressMagnet(item)
+                        && v.distanceToSqr(item.position()) <= rangeSq) {
+                    DroneEntityAIPickupItems.tryPickupItem(drone, item);
+                }
+            }
+            magnetScratch.clear();
         }
     }
 
     public void onUpdateTasks() {
+        long start = TickProfiler.start();
+        IProgWidget widget = activeWidget;
+        updateTasks();
+        TickProfiler.recordDrone(drone, widget, start);
+    }
+
+    private void updateTasks() {
         if (ConfigHelper.common().drones.stopDroneAI.get()) return;
 
         pickupItemsIfMagnet();
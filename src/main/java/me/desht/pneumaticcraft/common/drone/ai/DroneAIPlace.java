@@ -101,7 +101,7 @@ public class DroneAIPlace<W extends ProgWidgetAreaItemBase /*& IBlockOrdered & I
                         && worldCache.getBlockState(pos).canBeReplaced())
                 {
                     BlockPlaceContext ctx = getPlacementContext(pos, pos, droneStack);
-                    if (progWidget.getCachedAreaSet().contains(ctx.getClickedPos())) {
+                    if (progWidget.getCachedArea().contains(ctx.getClickedPos())) {
                         InteractionResult res = blockItem.place(ctx);
                         if (res.consumesAction()) {
                             drone.addAirToDrone(-PneumaticValues.DRONE_USAGE_PLACE);
@@ -0,0 +1,223 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.drone.ai;
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import me.desht.pneumaticcraft.common.drone.progwidgets.IBlockOrdered.Ordering;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.CompiledArea;
+import me.desht.pneumaticcraft.lib.Log;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorts drone areas into search order on a small shared pool of worker threads.
+ * <p>
+ * Sorting works on a snapshot of the area (a packed position array), which is only handed to drones once it's
+ * completely sorted, so drones never see a partially-sorted list. Positions are sorted relative to the middle of the
+ * block the drone is in, just as when drones sorted their own areas. Results are cached per area instance, per block
+ * the drone is in, and per {@link Ordering}, so a drone which restarts a search from where it is doesn't sort again;
+ * since each drone compiles its own areas, sorts aren't shared between drones. Cached arrays must be treated as
+ * read-only. The cache is bounded by the total number of positions held, least recently used sorts being evicted
+ * first.
+ * <p>
+ * The work queue is bounded; if it's full, the caller gets the area unsorted (and uncached) rather than waiting, so
+ * drones keep working, just with a less efficient search order.
+ */
+public class DroneAreaSorter {
+    private static final int N_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int MAX_QUEUED = 64;
+    private static final int MAX_SORTS_PER_AREA = 8;
+    private static final long MAX_CACHED_POSITIONS = 4_000_000L;  // 32MiB of packed positions
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    // keyed by area identity; entries go away when the owning widget discards its compiled area
+    private static final Map<CompiledArea, Map<SortKey, CacheEntry>> CACHE = new WeakHashMap<>();
+    private static long useCounter;  // guarded by CACHE
+
+    private static final AtomicLong sortsCompleted = new AtomicLong();
+    private static final AtomicLong totalLatencyNanos = new AtomicLong();
+    private static final AtomicLong maxLatencyNanos = new AtomicLong();
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadId = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(N_THREADS, N_THREADS, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED),
+                r -> {
+                    Thread t = new Thread(r, "PneumaticCraft Drone Area Sorter #" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Get the positions of the given area, sorted into search order for a drone at the given position.
+     *
+     * @param area the area
+     * @param dronePos the drone's position
+     * @param order the search ordering
+     * @return a future which completes with the sorted packed positions (possibly already complete)
+     */
+    public static CompletableFuture<long[]> sort(CompiledArea area, Vec3 dronePos, Ordering order) {
+        BlockPos pos = BlockPos.containing(dronePos);
+        SortKey key = new SortKey(pos.asLong(), order);
+
+        synchronized (CACHE) {
+            Map<SortKey, CacheEntry> perArea = CACHE.computeIfAbsent(area, k -> new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SortKey, CacheEntry> eldest) {
+                    return size() > MAX_SORTS_PER_AREA;
+                }
+            });
+            CacheEntry existing = perArea.get(key);
+            if (existing != null && !existing.future.isCompletedExceptionally()) {
+                cacheHits.incrementAndGet();
+                existing.lastUsed = ++useCounter;
+                return existing.future;
+            }
+
+            // work from middle of the block the drone is in, as ChunkPositionSorter does for a drone
+            ChunkPositionSorter sorter = new ChunkPositionSorter(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, order);
+            CompletableFuture<long[]> future = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            try {
+                EXECUTOR.execute(() -> {
+                    try {
+                        long[] positions = area.toPackedArray();
+                        LongArrays.quickSort(positions, sorter.packed());
+                        recordLatency(System.nanoTime() - queuedAt);
+                        future.complete(positions);
+                    } catch (Throwable t) {
+                        Log.error("drone area sort failed: " + t.getMessage());
+                        future.completeExceptionally(t);
+                    }
+                });
+                perArea.put(key, new CacheEntry(future, ++useCounter));
+                trimCache();
+                return future;
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+            }
+        }
+        // queue is full; scanning the area can take a while, so don't hold the cache lock for it
+        return CompletableFuture.completedFuture(area.toPackedArray());
+    }
+
+    /**
+     * Evict the least recently used sorted areas until the total number of cached positions is within budget.
+     * Sorts still in progress aren't counted, but there can only be a bounded number of those.
+     */
+    private static void trimCache() {
+        long total = 0L;
+        for (Map<SortKey, CacheEntry> perArea : CACHE.values()) {
+            for (CacheEntry entry : perArea.values()) {
+                total += entry.size();
+            }
+        }
+        while (total > MAX_CACHED_POSITIONS) {
+            Map<SortKey, CacheEntry> oldestMap = null;
+            SortKey oldestKey = null;
+            CacheEntry oldest = null;
+            for (Map<SortKey, CacheEntry> perArea : CACHE.values()) {
+                for (Map.Entry<SortKey, CacheEntry> e : perArea.entrySet()) {
+                    if (e.getValue().size() > 0 && (oldest == null || e.getValue().lastUsed < oldest.lastUsed)) {
+                        oldestMap = perArea;
+                        oldestKey = e.getKey();
+                        oldest = e.getValue();
+                    }
+                }
+            }
+            if (oldest == null) break;
+            oldestMap.remove(oldestKey);
+            total -= oldest.size();
+        }
+        CACHE.values().removeIf(Map::isEmpty);
+    }
+
+    private static void recordLatency(long nanos) {
+        sortsCompleted.incrementAndGet();
+        totalLatencyNanos.addAndGet(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public static int getQueueDepth() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    public static int getActiveCount() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    public static long getSortsCompleted() {
+        return sortsCompleted.get();
+    }
+
+    public static double getAverageLatencyMs() {
+        long n = sortsCompleted.get();
+        return n == 0 ? 0 : totalLatencyNanos.get() / (n * 1_000_000.0);
+    }
+
+    public static double getMaxLatencyMs() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public static long getRejected() {
+        return rejected.get();
+    }
+
+    public static void resetStats() {
+        sortsCompleted.set(0L);
+        totalLatencyNanos.set(0L);
+        maxLatencyNanos.set(0L);
+        cacheHits.set(0L);
+        rejected.set(0L);
+    }
+
+    private record SortKey(long pos, Ordering order) {
+    }
+
+    private static class CacheEntry {
+        private final CompletableFuture<long[]> future;
+        private long lastUsed;
+
+        CacheEntry(CompletableFuture<long[]> future, long lastUsed) {
+            this.future = future;
+            this.lastUsed = lastUsed;
+        }
+
+        int size() {
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join().length : 0;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.AABB;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -241,8 +242,46 @@ public class ProgWidgetArea extends ProgWidget implements IAreaProvider, IVariab
     }
 
     public void getArea(Set<BlockPos> area, AreaType areaType) {
+        AreaBounds bounds = getAreaBounds();
+        if (bounds == null) return;
+
+        final int maxSize = ConfigHelper.common().general.maxProgrammingArea.get();
+        Consumer<BlockPos> addFunc = p -> {
+            if (/*p.getY() >= 0 && p.getY() < 256 &&*/ area.add(p) && area.size() > maxSize) {
+                throw new AreaTooBigException();
+            }
+        };
+
+        try {
+            areaType.addArea(addFunc, bounds.p1, bounds.p2, bounds.minX, bounds.minY, bounds.minZ, bounds.maxX, bounds.maxY, bounds.maxZ);
+        } catch (AreaTooBigException ignored) {
+        }
+    }
+
+    /**
+     * Get a compact representation of this widget's area, which doesn't store every block position (at least for
+     * area types with simple geometry).
+     *
+     * @return the area shape, or null if this widget doesn't currently define an area (no positions set, or the
+     *         area is too large for a drone to handle)
+     */
+    @Nullable
+    public AreaShape getAreaShape() {
+        AreaBounds bounds = getAreaBounds();
+        if (bounds == null) return null;
+
+        return type.createShape(bounds.p1, bounds.p2, bounds.minX, bounds.minY, bounds.minZ, bounds.maxX, bounds.maxY, bounds.maxZ,
+                ConfigHelper.common().general.maxProgrammingArea.get());
+    }
+
+    /**
+     * Resolve this widget's area points (possibly from variables) and check the size of their bounding box.
+     *
+     * @return the area bounds, or null if there's no area
+     */
+    private AreaBounds getAreaBounds() {
         BlockPos[] areaPoints = getAreaPoints();
-        if (areaPoints[0] == null) return;
+        if (areaPoints[0] == null) return null;
 
         int minX, minY, minZ;
         int maxX, maxY, maxZ;
@@ -278,22 +317,16 @@ public class ProgWidgetArea extends ProgWidget implements IAreaProvider, IVariab
                 Log.warning(String.format("Drone @ %s (DIM %s) was killed due to excessively large area (%d > %d). See 'maxProgrammingArea' in config.",
                         drone.getDronePos().toString(), drone.world().dimension().location(), size, maxSize));
                 drone.overload("areaTooLarge", maxSize);
-                return;
+                return null;
             }
             // We're in the Programmer (no AI manager).  Continue to update the area,
             // but don't let it grow without bounds.
         }
 
-        Consumer<BlockPos> addFunc = p -> {
-            if (/*p.getY() >= 0 && p.getY() < 256 &&*/ area.add(p) && area.size() > maxSize) {
-                throw new AreaTooBigException();
-            }
-        };
+        return new AreaBounds(p1, p2, minX, minY, minZ, maxX, maxY, maxZ);
+    }
 
-        try {
-            areaType.addArea(addFunc, p1, p2, minX, minY, minZ, maxX, maxY, maxZ);
-        } catch (AreaTooBigException ignored) {
-        }
+    private record AreaBounds(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
     }
 
     private AABB getAABB() {
@@ -22,6 +22,8 @@ import me.desht.pneumaticcraft.api.drone.ProgWidgetType;
 import me.desht.pneumaticcraft.common.config.ConfigHelper;
 import me.desht.pneumaticcraft.common.core.ModProgWidgets;
 import me.desht.pneumaticcraft.common.drone.ai.DroneAIManager;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.AreaShape;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.CompiledArea;
 import me.desht.pneumaticcraft.common.util.ChunkCache;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
@@ -42,9 +44,7 @@ import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
  */
 public abstract class ProgWidgetAreaItemBase extends ProgWidget
         implements IAreaProvider, IEntityProvider, IItemFiltering, IVariableWidget {
-    private List<BlockPos> areaListCache;
-    private Set<BlockPos> areaSetCache;
-    private AABB areaExtents;
+    private CompiledArea areaCache;
     private Map<String, BlockPos> areaVariableStates;
     protected DroneAIManager aiManager;
     private boolean canCache = true;
@@ -75,8 +75,7 @@ public abstract class ProgWidgetAreaItemBase extends ProgWidget
         if (getConnectedParameters()[0] == null) {
             curInfo.add(xlate("pneumaticcraft.gui.progWidget.area.error.noArea"));
         }
-        Set<BlockPos> areaSet = getCachedAreaSet();
-        if (areaSet.size() > ConfigHelper.common().general.maxProgrammingArea.get()) {
+        if (getCachedArea().isLargerThan(ConfigHelper.common().general.maxProgrammingArea.get())) {
             curInfo.add(xlate("pneumaticcraft.gui.progWidget.area.error.areaTooBig", ConfigHelper.common().general.maxProgrammingArea.get()));
         }
         EntityFilterPair.addErrors(this, curInfo);
@@ -88,59 +87,39 @@ public abstract class ProgWidgetAreaItemBase extends ProgWidget
     }
 
     public AABB getAreaExtents() {
-        if (areaExtents == null) {
-            areaExtents = calculateExtents(getCachedAreaSet());
-        }
-        return areaExtents;
-    }
-
-    private static AABB calculateExtents(Collection<BlockPos> areaSet) {
-        if (areaSet.isEmpty()) return new AABB(BlockPos.ZERO, BlockPos.ZERO);
-
-        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
-        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
-        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
-        for (BlockPos pos : areaSet) {
-            minX = Math.min(minX, pos.getX());
-            maxX = Math.max(maxX, pos.getX());
-            minY = Math.min(minY, pos.getY());
-            maxY = Math.max(maxY, pos.getY());
-            minZ = Math.min(minZ, pos.getZ());
-            maxZ = Math.max(maxZ, pos.getZ());
-        }
-
-        return new AABB(new BlockPos(minX, minY, minZ), new BlockPos(maxX, maxY, maxZ));
+        return getCachedArea().getExtents();
     }
 
-    public List<BlockPos> getCachedAreaList() {
-        if (areaListCache != null) {
+    /**
+     * Get this widget's area (whitelist areas minus blacklist areas). The area is cached, and only recalculated
+     * when any coordinate variables it uses have changed, or if it has non-deterministic (i.e. random) parts.
+     *
+     * @return the area
+     */
+    public CompiledArea getCachedArea() {
+        if (areaCache != null) {
             if (!canCache || updateVariables()) {
-                areaSetCache = new HashSet<>(areaListCache.size());
-                getArea(areaSetCache);
-                areaExtents = null;
-                areaListCache = new ArrayList<>(areaSetCache.size());
-                areaListCache.addAll(areaSetCache);
+                areaCache = compileArea();
             }
         } else {
-            areaExtents = null;
-            areaSetCache = new HashSet<>();
-            getArea(areaSetCache);
-            areaListCache = new ArrayList<>(areaSetCache.size());
-            areaListCache.addAll(areaSetCache);
+            areaCache = compileArea();
             initializeVariableCache();
         }
-        return areaListCache;
+        return areaCache;
     }
 
-    public Set<BlockPos> getCachedAreaSet() {
-        getCachedAreaList();
-        return areaSetCache;
+    /**
+     * Build this widget's area from its connected area widgets. Subclasses which supply their own area should
+     * override this (along with {@link #getArea(Set)}).
+     *
+     * @return the area
+     */
+    protected CompiledArea compileArea() {
+        return compileArea((ProgWidgetArea) getConnectedParameters()[0], (ProgWidgetArea) getConnectedParameters()[getParameters().size()]);
     }
 
     protected synchronized void invalidateAreaCache() {
-        areaListCache = null;
-        areaSetCache = null;
-        areaExtents = null;
+        areaCache = null;
     }
 
     private void initializeVariableCache() {
@@ -194,6 +173,25 @@ public abstract class ProgWidgetAreaItemBase extends ProgWidget
         getArea(area, (ProgWidgetArea) getConnectedParameters()[0], (ProgWidgetArea) getConnectedParameters()[getParameters().size()]);
     }
 
+    public static CompiledArea compileArea(ProgWidgetArea whitelistWidget, ProgWidgetArea blacklistWidget) {
+        if (whitelistWidget == null) return CompiledArea.EMPTY;
+        List<AreaShape> whitelist = new ArrayList<>();
+        List<AreaShape> blacklist = new ArrayList<>();
+        ProgWidgetArea widget = whitelistWidget;
+        while (widget != null) {
+            AreaShape shape = widget.getAreaShape();
+            if (shape != null) whitelist.add(shape);
+            widget = (ProgWidgetArea) widget.getConnectedParameters()[0];
+        }
+        widget = blacklistWidget;
+        while (widget != null) {
+            AreaShape shape = widget.getAreaShape();
+            if (shape != null) blacklist.add(shape);
+            widget = (ProgWidgetArea) widget.getConnectedParameters()[0];
+        }
+        return new CompiledArea(whitelist, blacklist, ConfigHelper.common().general.maxProgrammingArea.get());
+    }
+
     public static void getArea(Set<BlockPos> area, ProgWidgetArea whitelistWidget, ProgWidgetArea blacklistWidget) {
         if (whitelistWidget == null) return;
         ProgWidgetArea widget = whitelistWidget;
@@ -0,0 +1,144 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.drone.progwidgets;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import me.desht.pneumaticcraft.api.drone.ProgWidgetType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out the puzzle connections (parameters, step outputs and mirrored blacklist parameters) between the widgets
+ * of a program. Widgets are indexed in hash grids keyed by the positions that other widgets connect to, so each
+ * connection is found with a lookup rather than by checking every other widget, and the whole update is linear in the
+ * number of widgets.
+ * <p>
+ * Connections are resolved exactly as the old all-pairs scan did: where several widgets occupy the same spot, the
+ * last one in the program wins. Instances can be kept and reused (e.g. by the Programmer GUI, across edits), to avoid
+ * reallocating the grids; they're not thread-safe.
+ */
+public class PuzzleConnectionBuilder {
+    // widgets keyed by their top-left corner
+    private final Long2ObjectOpenHashMap<List<IProgWidget>> byPos = new Long2ObjectOpenHashMap<>();
+    // widgets keyed by the spot on their right edge which a blacklist parameter connects to
+    private final Long2ObjectOpenHashMap<List<IProgWidget>> byRightEdge = new Long2ObjectOpenHashMap<>();
+    private final List<List<IProgWidget>> spareLists = new ArrayList<>();
+
+    public void updateConnections(List<IProgWidget> progWidgets) {
+        try {
+            index(progWidgets);
+            connect(progWidgets);
+        } finally {
+            clear();
+        }
+    }
+
+    private void index(List<IProgWidget> progWidgets) {
+        for (IProgWidget widget : progWidgets) {
+            widget.setParent(null);
+            List<ProgWidgetType<?>> parameters = widget.getParameters();
+            for (int i = 0; i < parameters.size() * 2; i++) {
+                widget.setParameter(i, null);
+            }
+            if (widget.hasStepOutput()) widget.setOutputWidget(null);
+
+            add(byPos, key(widget.getX(), widget.getY()), widget);
+            if (widget.returnType() != null) {
+                add(byRightEdge, key(widget.getX() + widget.getWidth() / 2, widget.getY()), widget);
+            }
+        }
+    }
+
+    private void connect(List<IProgWidget> progWidgets) {
+        for (IProgWidget checkedWidget : progWidgets) {
+            // check for connection to the right of the checked widget.
+            List<ProgWidgetType<?>> parameters = checkedWidget.getParameters();
+            int rightX = checkedWidget.getX() + checkedWidget.getWidth() / 2;
+            for (int i = 0; i < parameters.size(); i++) {
+                if (!checkedWidget.canSetParameter(i)) continue;
+                for (IProgWidget widget : get(byPos, key(rightX, checkedWidget.getY() + i * 11))) {
+                    if (widget != checkedWidget && parameters.get(i) == widget.returnType()) {
+                        checkedWidget.setParameter(i, widget);
+                        widget.setParent(checkedWidget);
+                    }
+                }
+            }
+
+            // check for connection to the bottom of the checked widget.
+            if (checkedWidget.hasStepOutput()) {
+                for (IProgWidget widget : get(byPos, key(checkedWidget.getX(), checkedWidget.getY() + checkedWidget.getHeight() / 2))) {
+                    if (widget.hasStepInput()) {
+                        checkedWidget.setOutputWidget(widget);
+                    }
+                }
+            }
+        }
+
+        // go again for the blacklist (as those are mirrored)
+        for (IProgWidget checkedWidget : progWidgets) {
+            if (checkedWidget.returnType() == null) {
+                // this is a program widget rather than a parameter widget (area, item filter).
+                List<ProgWidgetType<?>> parameters = checkedWidget.getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (!checkedWidget.canSetParameter(i)) continue;
+                    for (IProgWidget widget : get(byRightEdge, key(checkedWidget.getX(), checkedWidget.getY() + i * 11))) {
+                        if (widget != checkedWidget && parameters.get(i) == widget.returnType()) {
+                            IProgWidget root = widget;
+                            while (root.getParent() != null) {
+                                root = root.getParent();
+                            }
+                            checkedWidget.setParameter(i + parameters.size(), root);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void add(Long2ObjectOpenHashMap<List<IProgWidget>> grid, long key, IProgWidget widget) {
+        List<IProgWidget> list = grid.get(key);
+        if (list == null) {
+            list = spareLists.isEmpty() ? new ArrayList<>(1) : spareLists.remove(spareLists.size() - 1);
+            grid.put(key, list);
+        }
+        list.add(widget);
+    }
+
+    private static List<IProgWidget> get(Long2ObjectOpenHashMap<List<IProgWidget>> grid, long key) {
+        List<IProgWidget> list = grid.get(key);
+        return list == null ? List.of() : list;
+    }
+
+    private void clear() {
+        recycle(byPos);
+        recycle(byRightEdge);
+    }
+
+    private void recycle(Long2ObjectOpenHashMap<List<IProgWidget>> grid) {
+        for (List<IProgWidget> list : grid.values()) {
+            list.clear();
+            spareLists.add(list);
+        }
+        grid.clear();
+    }
+
+    private static long key(int x, int y) {
+        return (long) x << 32 | (y & 0xFFFFFFFFL);
+    }
+}
@@ -1,5 +1,6 @@
 package me.desht.pneumaticcraft.common.drone.progwidgets;
 
+import io.netty.buffer.Unpooled;
 import me.desht.pneumaticcraft.api.item.IProgrammable;
 import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.nbt.CompoundTag;
@@ -7,6 +8,7 @@ import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.FriendlyByteBuf;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,15 +21,34 @@ public class WidgetSerializer {
     }
 
     public static List<IProgWidget> readWidgetsFromPacket(FriendlyByteBuf buf) {
+        return readWidgetsFromPacket(buf, null);
+    }
+
+    /**
+     * Read widgets from a packet, optionally also collecting each widget's encoded form (as would be written by
+     * {@link IProgWidget#writeToPacket(FriendlyByteBuf)}), which is a cheap way of telling later whether a widget
+     * has changed.
+     *
+     * @param buf the packet buffer
+     * @param encoded if not null, receives the encoded form of each widget returned, in the same order
+     * @return the widgets
+     */
+    public static List<IProgWidget> readWidgetsFromPacket(FriendlyByteBuf buf, @Nullable List<byte[]> encoded) {
         List<IProgWidget> widgets = new ArrayList<>();
         int nWidgets = buf.readVarInt();
         for (int i = 0; i < nWidgets; i++) {
             try {
+                int start = buf.readerIndex();
                 IProgWidget widget = ProgWidget.fromPacket(buf);
                 if (!widget.isAvailable()) {
                     Log.warning("ignoring unavailable widget type " + widget.getTypeID().toString());
                 } else {
                     widgets.add(widget);
+                    if (encoded != null) {
+                        byte[] bytes = new byte[buf.readerIndex() - start];
+                        buf.getBytes(start, bytes);
+                        encoded.add(bytes);
+                    }
                 }
             } catch (IllegalStateException e) {
                 Log.warning(e.getMessage());
@@ -36,6 +57,20 @@ public class WidgetSerializer {
         return widgets;
     }
 
+    /**
+     * Get a widget's encoded packet form, as collected by {@link #readWidgetsFromPacket(FriendlyByteBuf, List)}.
+     *
+     * @param widget the widget
+     * @return the encoded widget
+     */
+    public static byte[] encodeWidget(IProgWidget widget) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        widget.writeToPacket(buf);
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
     public static List<IProgWidget> getWidgetsFromNBT(CompoundTag tag) {
         List<IProgWidget> newWidgets = new ArrayList<>();
         ListTag widgetTags = tag.getList(IProgrammable.NBT_WIDGETS, Tag.TAG_COMPOUND);
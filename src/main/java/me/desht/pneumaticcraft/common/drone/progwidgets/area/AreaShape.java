@@ -0,0 +1,217 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.drone.progwidgets.area;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Compact representation of the blocks covered by a single area widget, as created by
+ * {@link AreaType#createShape(BlockPos, BlockPos, int, int, int, int, int, int, int)}. Simple geometric shapes answer
+ * {@link #contains(int, int, int)} directly from their parameters and are iterated lazily by scanning their bounding
+ * box, so no per-block storage is needed at all; other shapes are backed by a set of packed positions.
+ * <p>
+ * Positions returned by {@link #iterator()} are packed with {@link BlockPos#asLong(int, int, int)}.
+ */
+public abstract class AreaShape {
+    protected final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    protected AreaShape(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    public abstract boolean contains(int x, int y, int z);
+
+    public boolean contains(BlockPos pos) {
+        return contains(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    protected final boolean inBounds(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Get the number of blocks in this shape, computed from the shape's parameters without visiting any blocks. For
+     * shapes where that isn't possible (see {@link #isSizeExact()}), this is an upper bound: the bounding box volume.
+     *
+     * @return the shape size, or an upper bound on it
+     */
+    public long getSize() {
+        return boundsVolume();
+    }
+
+    /**
+     * Check if {@link #getSize()} is the exact number of blocks in this shape, rather than just an upper bound.
+     *
+     * @return true if the size is exact
+     */
+    public boolean isSizeExact() {
+        return false;
+    }
+
+    protected final long boundsVolume() {
+        if (minX > maxX || minY > maxY || minZ > maxZ) return 0L;
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    /**
+     * Lazily iterate over every position in this shape, in x/y/z scan order (y descending, to match the order
+     * in which box areas have always been generated).
+     *
+     * @return an iterator of packed block positions
+     */
+    public LongIterator iterator() {
+        return new ScanIterator();
+    }
+
+    private class ScanIterator implements LongIterator {
+        private int x = minX, y = maxY, z = minZ - 1;
+        private boolean ready;
+        private boolean finished = minX > maxX || minY > maxY || minZ > maxZ;
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !finished) advance();
+            return ready;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            return BlockPos.asLong(x, y, z);
+        }
+
+        private void advance() {
+            while (true) {
+                if (++z > maxZ) {
+                    z = minZ;
+                    if (--y < minY) {
+                        y = maxY;
+                        if (++x > maxX) {
+                            finished = true;
+                            return;
+                        }
+                    }
+                }
+                if (contains(x, y, z)) {
+                    ready = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A shape containing just the given block.
+     *
+     * @param pos the block position
+     * @return the shape
+     */
+    public static AreaShape ofBlock(BlockPos pos) {
+        return new AreaShape(pos.getX(), pos.getY(), pos.getZ(), pos.getX(), pos.getY(), pos.getZ()) {
+            @Override
+            public boolean contains(int x, int y, int z) {
+                return inBounds(x, y, z);
+            }
+
+            @Override
+            public boolean isSizeExact() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * A shape with no blocks at all.
+     */
+    static AreaShape empty() {
+        return new AreaShape(0, 0, 0, -1, -1, -1) {
+            @Override
+            public boolean contains(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public boolean isSizeExact() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Fallback for area types whose contents can't be tested symbolically: the positions generated by
+     * {@link AreaType#addArea} are stored in a packed long set.
+     */
+    static class Packed extends AreaShape {
+        private final LongOpenHashSet positions;
+
+        private Packed(LongOpenHashSet positions, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+            this.positions = positions;
+        }
+
+        static AreaShape of(LongOpenHashSet positions) {
+            if (positions.isEmpty()) return empty();
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            LongIterator iter = positions.iterator();
+            while (iter.hasNext()) {
+                long l = iter.nextLong();
+                int x = BlockPos.getX(l), y = BlockPos.getY(l), z = BlockPos.getZ(l);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                maxZ = Math.max(maxZ, z);
+            }
+            positions.trim();
+            return new Packed(positions, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            return positions.contains(BlockPos.asLong(x, y, z));
+        }
+
+        @Override
+        public long getSize() {
+            return positions.size();
+        }
+
+        @Override
+        public boolean isSizeExact() {
+            return true;
+        }
+
+        @Override
+        public LongIterator iterator() {
+            return positions.iterator();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package me.desht.pneumaticcraft.common.drone.progwidgets.area;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import me.desht.pneumaticcraft.common.util.LegacyAreaWidgetConverter;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -63,6 +64,36 @@ public abstract class AreaType {
      */
     public abstract void addArea(Consumer<BlockPos> areaAdder, BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
 
+    /**
+     * Create a compact representation of the area which {@link #addArea(Consumer, BlockPos, BlockPos, int, int, int, int, int, int)}
+     * would generate. The default implementation runs {@code addArea()} into a packed position set; area types
+     * with simple geometry should override this to return a shape which can be tested and iterated without storing
+     * every block.
+     *
+     * @param p1 the first raw blockpos of the area
+     * @param p2 the second raw blockpos of the area
+     * @param minX min X coord
+     * @param minY min Y coord
+     * @param minZ min Z coord
+     * @param maxX max X coord
+     * @param maxY max Y coord
+     * @param maxZ max Z coord
+     * @param maxSize the maximum number of blocks to generate; any further blocks are discarded
+     * @return the area shape
+     */
+    public AreaShape createShape(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int maxSize) {
+        LongOpenHashSet positions = new LongOpenHashSet();
+        try {
+            addArea(pos -> {
+                if (positions.add(pos.asLong()) && positions.size() > maxSize) {
+                    throw new AreaTooBigException();
+                }
+            }, p1, p2, minX, minY, minZ, maxX, maxY, maxZ);
+        } catch (AreaTooBigException ignored) {
+        }
+        return AreaShape.Packed.of(positions);
+    }
+
     /**
      * Called when loading old-style programs from pastebin etc.  Convert any old-fashioned area representations to
      * their modern equivalents.
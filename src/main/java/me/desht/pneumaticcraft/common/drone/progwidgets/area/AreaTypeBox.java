@@ -99,6 +99,11 @@ public class AreaTypeBox extends AreaType {
         }
     }
 
+    @Override
+    public AreaShape createShape(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int maxSize) {
+        return new BoxShape(boxType, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
     @Override
     public void addUIWidgets(List<AreaTypeWidget> widgets) {
         super.addUIWidgets(widgets);
@@ -129,6 +134,49 @@ public class AreaTypeBox extends AreaType {
         boxType = EnumBoxType.values()[buf.readByte()];
     }
 
+    private static class BoxShape extends AreaShape {
+        private final EnumBoxType boxType;
+
+        BoxShape(EnumBoxType boxType, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+            this.boxType = boxType;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            if (!inBounds(x, y, z)) return false;
+            return switch (boxType) {
+                case FILLED -> true;
+                case HOLLOW -> x == minX || x == maxX || y == minY || y == maxY || z == minZ || z == maxZ;
+                case FRAME -> {
+                    int axisRight = 0;
+                    if (x == minX || x == maxX) axisRight++;
+                    if (y == minY || y == maxY) axisRight++;
+                    if (z == minZ || z == maxZ) axisRight++;
+                    yield axisRight > 1;
+                }
+            };
+        }
+
+        @Override
+        public long getSize() {
+            long x = maxX - minX + 1, y = maxY - minY + 1, z = maxZ - minZ + 1;
+            // blocks on the min/max faces along each axis, and blocks strictly between them
+            long bx = Math.min(x, 2), by = Math.min(y, 2), bz = Math.min(z, 2);
+            long ix = x - bx, iy = y - by, iz = z - bz;
+            return switch (boxType) {
+                case FILLED -> x * y * z;
+                case HOLLOW -> x * y * z - ix * iy * iz;
+                case FRAME -> x * y * z - ix * iy * iz - bx * iy * iz - ix * by * iz - ix * iy * bz;
+            };
+        }
+
+        @Override
+        public boolean isSizeExact() {
+            return true;
+        }
+    }
+
     @Override
     public void convertFromLegacy(LegacyAreaWidgetConverter.EnumOldAreaType oldAreaType, int typeInfo) {
         switch (oldAreaType) {
@@ -141,6 +141,73 @@ public class AreaTypeCylinder extends AreaType {
         }
     }
 
+    @Override
+    public AreaShape createShape(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int maxSize) {
+        return switch (axis) {
+            case X -> {
+                double rad = PneumaticCraftUtils.distBetween(p1.getY(), p1.getZ(), p2.getY(), p2.getZ());
+                yield new CylinderShape(axis, cylinderType, p1, rad,
+                        minX, (int) (p1.getY() - rad - 1), (int) (p1.getZ() - rad - 1),
+                        maxX, (int) (p1.getY() + rad + 1), (int) (p1.getZ() + rad + 1));
+            }
+            case Y -> {
+                double rad = PneumaticCraftUtils.distBetween(p1.getX(), p1.getZ(), p2.getX(), p2.getZ());
+                yield new CylinderShape(axis, cylinderType, p1, rad,
+                        (int) (p1.getX() - rad - 1), minY, (int) (p1.getZ() - rad - 1),
+                        (int) (p1.getX() + rad + 1), maxY, (int) (p1.getZ() + rad + 1));
+            }
+            case Z -> {
+                double rad = PneumaticCraftUtils.distBetween(p1.getX(), p1.getY(), p2.getX(), p2.getY());
+                yield new CylinderShape(axis, cylinderType, p1, rad,
+                        (int) (p1.getX() - rad - 1), (int) (p1.getY() - rad - 1), minZ,
+                        (int) (p1.getX() + rad + 1), (int) (p1.getY() + rad + 1), maxZ);
+            }
+        };
+    }
+
+    private static class CylinderShape extends AreaShape {
+        private final EnumAxis axis;
+        private final EnumCylinderType cylinderType;
+        private final BlockPos center;
+        private final double radSq;
+        private final double innerRadiusSq;
+
+        CylinderShape(EnumAxis axis, EnumCylinderType cylinderType, BlockPos center, double rad, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+            this.axis = axis;
+            this.cylinderType = cylinderType;
+            this.center = center;
+            this.radSq = rad * rad;
+            this.innerRadiusSq = (rad - 1) * (rad - 1);
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            if (!inBounds(x, y, z)) return false;
+            double centerDistSq;
+            boolean atEnd;
+            switch (axis) {
+                case X -> {
+                    //noinspection SuspiciousNameCombination
+                    centerDistSq = PneumaticCraftUtils.distBetweenSq(center.getY(), center.getZ(), y, z);
+                    atEnd = x == minX || x == maxX;
+                }
+                case Y -> {
+                    centerDistSq = PneumaticCraftUtils.distBetweenSq(center.getX(), center.getZ(), x, z);
+                    atEnd = y == minY || y == maxY;
+                }
+                case Z -> {
+                    centerDistSq = PneumaticCraftUtils.distBetweenSq(center.getX(), center.getY(), x, y);
+                    atEnd = z == minZ || z == maxZ;
+                }
+                default -> throw new IllegalArgumentException(axis.toString());
+            }
+            return centerDistSq <= radSq && (centerDistSq >= innerRadiusSq
+                    || cylinderType == EnumCylinderType.FILLED
+                    || cylinderType == EnumCylinderType.HOLLOW && atEnd);
+        }
+    }
+
     @Override
     public void addUIWidgets(List<AreaTypeWidget> widgets) {
         super.addUIWidgets(widgets);
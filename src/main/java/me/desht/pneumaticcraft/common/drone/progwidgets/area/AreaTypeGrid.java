@@ -54,6 +54,39 @@ public class AreaTypeGrid extends AreaType{
         }
     }
     
+    @Override
+    public AreaShape createShape(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int maxSize) {
+        if (p1.equals(p2) || interval <= 0) {
+            return new GridShape(1, p1.getX(), p1.getY(), p1.getZ(), p1.getX(), p1.getY(), p1.getZ());
+        } else {
+            return new GridShape(interval, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    private static class GridShape extends AreaShape {
+        private final int interval;
+
+        GridShape(int interval, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+            this.interval = interval;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            return inBounds(x, y, z) && (x - minX) % interval == 0 && (y - minY) % interval == 0 && (z - minZ) % interval == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return (long) ((maxX - minX) / interval + 1) * ((maxY - minY) / interval + 1) * ((maxZ - minZ) / interval + 1);
+        }
+
+        @Override
+        public boolean isSizeExact() {
+            return true;
+        }
+    }
+
     @Override
     public void addUIWidgets(List<AreaTypeWidget> widgets){
         super.addUIWidgets(widgets);
@@ -80,6 +80,35 @@ public class AreaTypeSphere extends AreaType{
         }
     }
     
+    @Override
+    public AreaShape createShape(BlockPos p1, BlockPos p2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int maxSize) {
+        double radius = PneumaticCraftUtils.distBetween(p1, p2);
+        double innerRadius = sphereType == EnumSphereType.HOLLOW ? radius - 1 : 0;
+        return new SphereShape(p1, radius * radius, innerRadius * innerRadius,
+                (int) (p1.getX() - radius - 1), (int) (p1.getY() - radius - 1), (int) (p1.getZ() - radius - 1),
+                (int) (p1.getX() + radius + 1), (int) (p1.getY() + radius + 1), (int) (p1.getZ() + radius + 1));
+    }
+
+    private static class SphereShape extends AreaShape {
+        private final BlockPos center;
+        private final double radiusSq;
+        private final double innerRadiusSq;
+
+        SphereShape(BlockPos center, double radiusSq, double innerRadiusSq, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+            this.center = center;
+            this.radiusSq = radiusSq;
+            this.innerRadiusSq = innerRadiusSq;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            if (!inBounds(x, y, z)) return false;
+            double centerDistSq = PneumaticCraftUtils.distBetweenSq(center, x + 0.5, y + 0.5, z + 0.5);
+            return centerDistSq <= radiusSq && centerDistSq >= innerRadiusSq;
+        }
+    }
+
     @Override
     public void addUIWidgets(List<AreaTypeWidget> widgets){
         super.addUIWidgets(widgets);
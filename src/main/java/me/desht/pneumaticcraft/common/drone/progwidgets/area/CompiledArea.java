@@ -0,0 +1,198 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.drone.progwidgets.area;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.AABB;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The full area of a widget's whitelist and blacklist area chains, evaluated symbolically: a position is in the area
+ * if any whitelist shape contains it and no blacklist shape does. Nothing is stored per block (other than by any
+ * non-geometric {@link AreaShape}s in the chains), so memory use doesn't depend on the area's size.
+ * <p>
+ * Size and extents are computed on first use by walking the area, and are capped at the size limit given at
+ * construction time (normally {@code maxProgrammingArea}), so that absurdly large areas in the Programmer can't
+ * cause an indefinitely long scan.
+ */
+public class CompiledArea {
+    public static final CompiledArea EMPTY = new CompiledArea(List.of(), List.of(), 0);
+
+    private final List<AreaShape> whitelist;
+    private final List<AreaShape> blacklist;
+    private final int sizeLimit;
+    // computed lazily; areas may be scanned from the drone area sorter threads as well as the server thread
+    private volatile int size = -1;
+    private volatile AABB extents;
+
+    public CompiledArea(List<AreaShape> whitelist, List<AreaShape> blacklist, int sizeLimit) {
+        this.whitelist = List.copyOf(whitelist);
+        this.blacklist = List.copyOf(blacklist);
+        this.sizeLimit = sizeLimit;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return inWhitelist(x, y, z, whitelist.size()) && !inBlacklist(x, y, z);
+    }
+
+    public boolean contains(BlockPos pos) {
+        return contains(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    private boolean inWhitelist(int x, int y, int z, int limit) {
+        for (int i = 0; i < limit; i++) {
+            if (whitelist.get(i).contains(x, y, z)) return true;
+        }
+        return false;
+    }
+
+    private boolean inBlacklist(int x, int y, int z) {
+        for (AreaShape shape : blacklist) {
+            if (shape.contains(x, y, z)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lazily iterate over every distinct position in the area.
+     *
+     * @return an iterator of packed block positions (see {@link BlockPos#of(long)})
+     */
+    public LongIterator iterator() {
+        return new AreaIterator();
+    }
+
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    /**
+     * Get the number of blocks in the area. If the area is larger than the size limit, this returns
+     * {@code sizeLimit + 1}.
+     *
+     * @return the area size
+     */
+    public int size() {
+        if (size < 0) scan();
+        return size;
+    }
+
+    /**
+     * Check if the area has more than the given number of blocks. Where the shapes' own sizes are enough to decide
+     * (see {@link AreaShape#getSize()}), this doesn't walk the area at all; otherwise it falls back to {@link #size()}.
+     *
+     * @param limit the block limit, which should be no greater than this area's size limit
+     * @return true if the area is larger than the limit
+     */
+    public boolean isLargerThan(int limit) {
+        long bound = 0L;
+        for (AreaShape shape : whitelist) {
+            bound += shape.getSize();
+        }
+        if (bound <= limit) {
+            return false;
+        } else if (whitelist.size() == 1 && blacklist.isEmpty() && whitelist.get(0).isSizeExact()) {
+            return true;
+        }
+        return size() > limit;
+    }
+
+    /**
+     * Get the bounding box of the area, in the same form as has always been used for drone areas (i.e. from the
+     * minimum corner to the maximum corner block position, <em>not</em> expanded to include the maximum block).
+     *
+     * @return the area's bounding box
+     */
+    public AABB getExtents() {
+        if (extents == null) scan();
+        return extents;
+    }
+
+    /**
+     * Get all the positions in this area as a newly-allocated array of packed block positions. This is the most
+     * compact form for callers which need random access or a custom ordering.
+     *
+     * @return the positions
+     */
+    public long[] toPackedArray() {
+        LongArrayList res = new LongArrayList(Math.min(size(), sizeLimit));
+        LongIterator iter = iterator();
+        while (iter.hasNext() && res.size() < sizeLimit) {
+            res.add(iter.nextLong());
+        }
+        return res.toLongArray();
+    }
+
+    private synchronized void scan() {
+        if (extents != null) return;
+        int n = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        LongIterator iter = iterator();
+        while (iter.hasNext() && n <= sizeLimit) {
+            long l = iter.nextLong();
+            int x = BlockPos.getX(l), y = BlockPos.getY(l), z = BlockPos.getZ(l);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+            n++;
+        }
+        size = n;
+        extents = n == 0 ? new AABB(BlockPos.ZERO, BlockPos.ZERO) : new AABB(new BlockPos(minX, minY, minZ), new BlockPos(maxX, maxY, maxZ));
+    }
+
+    private class AreaIterator implements LongIterator {
+        private int shapeIdx = -1;
+        private LongIterator current;
+        private long next;
+        private boolean ready;
+
+        @Override
+        public boolean hasNext() {
+            while (!ready) {
+                if (current == null || !current.hasNext()) {
+                    if (++shapeIdx >= whitelist.size()) return false;
+                    current = whitelist.get(shapeIdx).iterator();
+                    continue;
+                }
+                long l = current.nextLong();
+                int x = BlockPos.getX(l), y = BlockPos.getY(l), z = BlockPos.getZ(l);
+                // skip positions already returned by an earlier whitelist shape, or which are blacklisted
+                if (!inWhitelist(x, y, z, shapeIdx) && !inBlacklist(x, y, z)) {
+                    next = l;
+                    ready = true;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            return next;
+        }
+    }
+}
@@ -43,6 +43,12 @@ abstract class AbstractBasicDroneEntity extends DroneEntity {
         super(type, world);
     }
 
+    @Override
+    protected boolean canShareProgram() {
+        // programs are built for wherever the drone was deployed, so they're never the same as another drone's
+        return false;
+    }
+
     void maybeAddStandbyInstruction(DroneProgramBuilder builder, ItemStack droneStack) {
         if (UpgradableItemUtils.getUpgradeCount(droneStack, ModUpgrades.STANDBY.get()) > 0) {
             builder.add(new ProgWidgetStandby());
@@ -129,6 +129,12 @@ public class AmadroneEntity extends DroneEntity {
         return false;
     }
 
+    @Override
+    protected boolean canShareProgram() {
+        // delivery programs are built for each delivery, so they're never the same as another drone's
+        return false;
+    }
+
     @Override
     public boolean shouldDropExperience() {
         return false;
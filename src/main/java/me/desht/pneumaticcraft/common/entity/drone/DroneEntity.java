@@ -209,6 +209,7 @@ public class DroneEntity extends AbstractDroneEntity implements
     private ProgressingLine oldTargetLine;
 
     public List<IProgWidget> progWidgets = new ArrayList<>();
+    private String storedProgramHash;  // program store reference held by this drone's saved data, if any
 
     private DroneFakePlayer fakePlayer;
     public Component ownerName = DEF_DRONE_NAME;
@@ -822,6 +823,15 @@ public class DroneEntity extends AbstractDroneEntity implements
         return true;
     }
 
+    /**
+     * Check if this drone's program may be saved to the per-world program store, rather than inline.
+     *
+     * @return true if the program can be shared with other drones
+     */
+    protected boolean canShareProgram() {
+        return true;
+    }
+
     /**
      * Called when a drone is right-clicked by a Pneumatic Wrench.
      */
@@ -874,6 +884,17 @@ public class DroneEntity extends AbstractDroneEntity implements
         }
     }
 
+    @Override
+    public void remove(RemovalReason reason) {
+        super.remove(reason);
+
+        if (!level().isClientSide && reason.shouldDestroy()) {
+            // saved data for this drone is going away, so it no longer needs its stored program
+            DroneProgramStore.releaseProgram(storedProgramHash);
+            storedProgramHash = null;
+        }
+    }
+
     @Override
     public void die(DamageSource damageSource) {
         super.die(damageSource);
@@ -988,7 +1009,7 @@ public class DroneEntity extends AbstractDroneEntity implements
     public void addAdditionalSaveData(CompoundTag tag) {
         super.addAdditionalSaveData(tag);
 
-        WidgetSerializer.putWidgetsToNBT(progWidgets, tag);
+        storedProgramHash = DroneProgramStore.writeProgram(progWidgets, tag, storedProgramHash, canShareProgram());
         tag.put("airHandler", getAirHandler().serializeNBT());
         tag.putFloat("propSpeed", propSpeed);
         if (disabledByHacking) tag.putBoolean("disabledByHacking", true);
@@ -1037,7 +1058,8 @@ public class DroneEntity extends AbstractDroneEntity implements
     public void readAdditionalSaveData(CompoundTag tag) {
         super.readAdditionalSaveData(tag);
 
-        progWidgets = WidgetSerializer.getWidgetsFromNBT(tag);
+        progWidgets = DroneProgramStore.readProgram(tag);
+        storedProgramHash = DroneProgramStore.getProgramHash(tag);
         ProgrammerBlockEntity.updatePuzzleConnections(progWidgets);
         propSpeed = tag.getFloat("propSpeed");
         disabledByHacking = tag.getBoolean("disabledByHacking");
@@ -19,6 +19,7 @@ package me.desht.pneumaticcraft.common.event;
 
 import me.desht.pneumaticcraft.common.block.entity.UniversalSensorBlockEntity;
 import me.desht.pneumaticcraft.common.util.GlobalBlockEntityCacheManager;
+import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 import net.minecraftforge.event.entity.player.AttackEntityEvent;
 import net.minecraftforge.event.entity.player.EntityItemPickupEvent;
@@ -29,22 +30,22 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 public class UniversalSensorHandler {
     @SubscribeEvent
     public void onInteraction(PlayerInteractEvent event) {
-        sendEventToSensors(event.getEntity().level(), event);
+        sendEventToSensors(event.getEntity().level(), event, event.getPos());
     }
 
     @SubscribeEvent
     public void onPlayerAttack(AttackEntityEvent event) {
-        sendEventToSensors(event.getEntity().level(), event);
+        sendEventToSensors(event.getEntity().level(), event, event.getEntity().blockPosition());
     }
 
     @SubscribeEvent
     public void onItemPickUp(EntityItemPickupEvent event) {
-        sendEventToSensors(event.getEntity().level(), event);
+        sendEventToSensors(event.getEntity().level(), event, event.getEntity().blockPosition());
     }
 
-    private void sendEventToSensors(Level level, Event event) {
+    private void sendEventToSensors(Level level, Event event, BlockPos eventPos) {
         if (!level.isClientSide) {
-            for (UniversalSensorBlockEntity sensor : GlobalBlockEntityCacheManager.getInstance(level).getUniversalSensors()) {
+            for (UniversalSensorBlockEntity sensor : GlobalBlockEntityCacheManager.getInstance(level).getUniversalSensorEvents().getSensorsForEvent(level, event, eventPos)) {
                 sensor.onEvent(event);
             }
         }
@@ -41,6 +41,7 @@ public enum BlockHeatProperties implements Iterable<HeatPropertiesRecipe> {
     INSTANCE;
 
     private final ArrayListMultimap<Block, HeatPropertiesRecipe> customHeatEntries = ArrayListMultimap.create();
+    private int generation;
 
     public static BlockHeatProperties getInstance() {
         return INSTANCE;
@@ -65,10 +66,22 @@ public enum BlockHeatProperties implements Iterable<HeatPropertiesRecipe> {
 
     public void clear() {
         customHeatEntries.clear();
+        generation++;
     }
 
     public void register(Block block, HeatPropertiesRecipe entry) {
         customHeatEntries.put(block, entry);
+        generation++;
+    }
+
+    /**
+     * Get a counter which changes whenever the set of custom heat entries changes, so that anything derived from
+     * them can be invalidated.
+     *
+     * @return the generation counter
+     */
+    public int getGeneration() {
+        return generation;
     }
 
     private void populateCustomHeatEntries(Level world) {
@@ -76,6 +89,7 @@ public enum BlockHeatProperties implements Iterable<HeatPropertiesRecipe> {
                         .forEach(recipe -> customHeatEntries.put(recipe.getBlock(), recipe));
 
         registerDefaultFluidValues();
+        generation++;
     }
 
     private void registerDefaultFluidValues() {
@@ -19,6 +19,7 @@ package me.desht.pneumaticcraft.common.heat;
 
 import me.desht.pneumaticcraft.api.heat.HeatBehaviour;
 import me.desht.pneumaticcraft.api.heat.IHeatExchangerLogic;
+import me.desht.pneumaticcraft.common.debug.TickProfiler;
 import me.desht.pneumaticcraft.common.heat.behaviour.HeatBehaviourManager;
 import me.desht.pneumaticcraft.common.network.GuiSynced;
 import net.minecraft.core.BlockPos;
@@ -46,6 +47,10 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
     private double thermalResistance = 1;
     private double thermalCapacity = 1;
     private final BitSet connections = new BitSet(6);
+    private int tickingNeighbours;  // connected exchangers which are themselves ticking
+    private int unsolvableNeighbours;  // connected exchangers which HeatNetworkSolver can't handle
+    private boolean queuedForSolver;  // this tick's exchanges are waiting for HeatNetworkSolver
+    private static boolean flushing;  // server thread only
 
     @Override
     public void initializeAsHull(Level world, BlockPos pos, BiPredicate<LevelAccessor,BlockPos> blockFilter, Direction... validSides) {
@@ -80,7 +85,9 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
 
     @Override
     public void addConnectedExchanger(IHeatExchangerLogic exchanger, boolean reciprocate) {
-        connectedExchangers.add(exchanger);
+        if (connectedExchangers.add(exchanger)) {
+            countNeighbour(exchanger, 1);
+        }
         if (reciprocate) {
             exchanger.addConnectedExchanger(this, false);
         }
@@ -88,12 +95,22 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
 
     @Override
     public void removeConnectedExchanger(IHeatExchangerLogic exchanger, boolean reciprocate) {
-        connectedExchangers.remove(exchanger);
+        if (connectedExchangers.remove(exchanger)) {
+            countNeighbour(exchanger, -1);
+        }
         if (reciprocate) {
             exchanger.removeConnectedExchanger(this, false);
         }
     }
 
+    private void countNeighbour(IHeatExchangerLogic exchanger, int delta) {
+        if (exchanger instanceof HeatExchangerLogicTicking) {
+            tickingNeighbours += delta;
+        } else if (!HeatNetworkSolver.canSolve(exchanger)) {
+            unsolvableNeighbours += delta;
+        }
+    }
+
     @Override
     public void initializeAmbientTemperature(Level world, BlockPos pos) {
         ambientTemperature = HeatExchangerLogicAmbient.atPosition(world, pos).getAmbientTemperature();
@@ -109,6 +126,7 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
 
     @Override
     public void setTemperature(double temperature) {
+        flushDeferredExchanges();
         this.temperature = temperature;
         this.temperatureInt = (int) temperature;
     }
@@ -165,6 +183,12 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
 
     @Override
     public void tick() {
+        long start = TickProfiler.start();
+        tickHeat();
+        TickProfiler.recordHeat(start);
+    }
+
+    private void tickHeat() {
         temperatureInt = (int) temperature;
 
         if (getThermalCapacity() < 0.1D) {
@@ -195,13 +219,63 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
                 }
             }
         }
+        if (unsolvableNeighbours == 0 && HeatNetworkSolver.isEnabled() && !queuedForSolver) {
+            queuedForSolver = true;
+            HeatNetworkSolver.queue(this);
+        } else {
+            // not solvable, or ticked more than once this tick (e.g. a Heat Sink fanned by an Air Grate)
+            exchangeWithNeighbours();
+        }
+    }
+
+    private void exchangeWithNeighbours() {
+        int divider = getDispersionDivider();
         for (IHeatExchangerLogic logic : connectedExchangers) {
-            // Counting the connected ticking heat exchangers here is important, since they will all tick;
-            // this count acts as a divider so the total heat dispersal is constant
-            exchange(logic, this, getTickingHeatExchangers());
+            exchange(logic, this, divider);
+        }
+    }
+
+    /**
+     * If this exchanger's exchanges for this tick are still waiting for the network solver, do them right now. Called
+     * before the temperature is changed from outside (e.g. a Heat Sink resetting its air exchanger after ticking it),
+     * so that the change is applied after this tick's exchanges, as it would be without the solver. Neighbours
+     * changed by these exchanges aren't themselves flushed, so a flush never cascades through the network.
+     */
+    private void flushDeferredExchanges() {
+        if (queuedForSolver && !flushing) {
+            queuedForSolver = false;
+            flushing = true;
+            try {
+                exchangeWithNeighbours();
+            } finally {
+                flushing = false;
+            }
         }
     }
 
+    /**
+     * Called by the network solver to claim this exchanger's deferred exchanges.
+     *
+     * @return true if the exchanges still need doing, false if they've already been done in place
+     */
+    boolean takeQueued() {
+        boolean res = queuedForSolver;
+        queuedForSolver = false;
+        return res;
+    }
+
+    Set<IHeatExchangerLogic> getConnectedExchangers() {
+        return connectedExchangers;
+    }
+
+    /**
+     * The connected ticking heat exchangers all tick too, so the heat dispersed on each exchange is divided by their
+     * number (plus one for this exchanger), so that the total heat dispersal is constant.
+     */
+    int getDispersionDivider() {
+        return tickingNeighbours + 1;
+    }
+
     @Override
     public double getAmbientTemperature() {
         return ambientTemperature;
@@ -230,16 +304,9 @@ public class HeatExchangerLogicTicking implements IHeatExchangerLogic {
         logic.addHeat(-deltaTemp);
     }
 
-    private int getTickingHeatExchangers() {
-        int tickingHeatExchangers = 1;
-        for (IHeatExchangerLogic logic : connectedExchangers) {
-            if (logic instanceof HeatExchangerLogicTicking) tickingHeatExchangers++;
-        }
-        return tickingHeatExchangers;
-    }
-
     @Override
     public void addHeat(double amount) {
+        flushDeferredExchanges();
         setTemperature(Mth.clamp(temperature + amount / getThermalCapacity(), 0, 2273));
     }
 
@@ -20,6 +20,7 @@ package me.desht.pneumaticcraft.common.heat;
 import me.desht.pneumaticcraft.api.PNCCapabilities;
 import me.desht.pneumaticcraft.api.crafting.recipe.HeatPropertiesRecipe;
 import me.desht.pneumaticcraft.api.heat.HeatBehaviour;
+import me.desht.pneumaticcraft.api.heat.HeatBehaviourFilter;
 import me.desht.pneumaticcraft.api.heat.IHeatExchangerLogic;
 import me.desht.pneumaticcraft.api.heat.IHeatRegistry;
 import me.desht.pneumaticcraft.api.semiblock.ISemiBlock;
@@ -76,8 +77,8 @@ public enum HeatExchangerManager implements IHeatRegistry {
     }
 
     @Override
-    public void registerHeatBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> heatBehaviour) {
-        HeatBehaviourManager.getInstance().registerBehaviour(id, heatBehaviour);
+    public void registerHeatBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> heatBehaviour, HeatBehaviourFilter filter) {
+        HeatBehaviourManager.getInstance().registerBehaviour(id, heatBehaviour, filter);
     }
 
     @Override
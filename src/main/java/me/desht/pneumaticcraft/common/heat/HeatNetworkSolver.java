@@ -0,0 +1,181 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.heat;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.desht.pneumaticcraft.api.heat.IHeatExchangerLogic;
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.common.config.ConfigHelper;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional network-level heat solver, enabled by the {@code networkSolver} heat config setting. Instead of each
+ * {@link HeatExchangerLogicTicking} exchanging heat with its neighbours as it ticks, ticking exchangers are queued
+ * here, and at the end of the server tick all queued exchangers and their neighbours are copied into flat arrays,
+ * all exchanges are done in one pass over those arrays, and the resulting temperatures are written back.
+ * <p>
+ * Exchanges use the same arithmetic as {@link HeatExchangerLogicTicking#exchange}, and are done in the order the
+ * exchangers ticked, but since they happen after everything else in the tick, results are close to but not exactly
+ * the same as per-exchanger ticking. Only ticking and constant-temperature exchangers can be modelled; a ticking
+ * exchanger with any other kind of neighbour just does its own exchanges as normal.
+ * <p>
+ * An exchanger is only queued once per tick. If a queued exchanger's temperature is changed from outside before the
+ * solve (e.g. a Heat Sink resetting its air exchanger, or a Vortex Tube adding heat), it does its exchanges in place
+ * first and drops out of the solve; see {@link HeatExchangerLogicTicking#takeQueued()}.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class HeatNetworkSolver {
+    private static final double MIN_TEMP = 0;
+    private static final double MAX_TEMP = 2273;
+
+    private static final List<HeatExchangerLogicTicking> queued = new ArrayList<>();
+
+    public static boolean isEnabled() {
+        return ConfigHelper.common().heat.networkSolver.get();
+    }
+
+    static boolean canSolve(IHeatExchangerLogic logic) {
+        return logic instanceof HeatExchangerLogicTicking || logic instanceof HeatExchangerLogicConstant;
+    }
+
+    static void queue(HeatExchangerLogicTicking logic) {
+        queued.add(logic);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && !queued.isEmpty()) {
+            List<HeatExchangerLogicTicking> pending = new ArrayList<>(queued.size());
+            for (HeatExchangerLogicTicking logic : queued) {
+                if (logic.takeQueued()) pending.add(logic);
+            }
+            queued.clear();
+            if (!pending.isEmpty()) new Network(pending).solve();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        queued.forEach(HeatExchangerLogicTicking::takeQueued);
+        queued.clear();
+    }
+
+    private static class Network {
+        private final List<IHeatExchangerLogic> nodes = new ArrayList<>();
+        private final Reference2IntMap<IHeatExchangerLogic> nodeIndex = new Reference2IntOpenHashMap<>();
+        // exchange order: for queued exchanger n, neighbours are adjacency[offsets[n]] .. adjacency[offsets[n + 1] - 1]
+        private final int[] exchangers;
+        private final int[] dividers;
+        private final int[] offsets;
+        private final int[] adjacency;
+        private double[] temperature;
+        private double[] capacity;
+        private double[] resistance;
+        private double[] ambient;
+        private boolean[] fixed;
+
+        Network(List<HeatExchangerLogicTicking> queued) {
+            nodeIndex.defaultReturnValue(-1);
+            int n = queued.size();
+            exchangers = new int[n];
+            dividers = new int[n];
+            offsets = new int[n + 1];
+            IntArrayList adj = new IntArrayList(n * 6);
+            for (int i = 0; i < n; i++) {
+                HeatExchangerLogicTicking logic = queued.get(i);
+                exchangers[i] = indexOf(logic);
+                dividers[i] = logic.getDispersionDivider();
+                offsets[i] = adj.size();
+                for (IHeatExchangerLogic neighbour : logic.getConnectedExchangers()) {
+                    adj.add(indexOf(neighbour));
+                }
+            }
+            offsets[n] = adj.size();
+            adjacency = adj.toIntArray();
+            load();
+        }
+
+        private int indexOf(IHeatExchangerLogic logic) {
+            int idx = nodeIndex.getInt(logic);
+            if (idx < 0) {
+                idx = nodes.size();
+                nodes.add(logic);
+                nodeIndex.put(logic, idx);
+            }
+            return idx;
+        }
+
+        private void load() {
+            int size = nodes.size();
+            temperature = new double[size];
+            capacity = new double[size];
+            resistance = new double[size];
+            ambient = new double[size];
+            fixed = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                IHeatExchangerLogic logic = nodes.get(i);
+                temperature[i] = logic.getTemperature();
+                capacity[i] = logic.getThermalCapacity();
+                resistance[i] = logic.getThermalResistance();
+                ambient[i] = logic.getAmbientTemperature();
+                fixed[i] = !(logic instanceof HeatExchangerLogicTicking);
+            }
+        }
+
+        void solve() {
+            for (int n = 0; n < exchangers.length; n++) {
+                int self = exchangers[n];
+                for (int a = offsets[n]; a < offsets[n + 1]; a++) {
+                    exchange(adjacency[a], self, dividers[n]);
+                }
+            }
+            for (int i = 0; i < nodes.size(); i++) {
+                if (!fixed[i]) nodes.get(i).setTemperature(temperature[i]);
+            }
+        }
+
+        private void exchange(int from, int to, double dispersionDivider) {
+            if (capacity[from] < 0.1D) {
+                if (!fixed[from]) temperature[from] = ambient[from];
+                return;
+            }
+            double deltaTemp = (temperature[from] - temperature[to]) / dispersionDivider / (resistance[to] + resistance[from]);
+
+            double maxDeltaTemp = (temperature[from] * capacity[from] - temperature[to] * capacity[to]) / 2;
+            if (maxDeltaTemp >= 0 && deltaTemp > maxDeltaTemp || maxDeltaTemp <= 0 && deltaTemp < maxDeltaTemp)
+                deltaTemp = maxDeltaTemp;
+            addHeat(to, deltaTemp);
+            addHeat(from, -deltaTemp);
+        }
+
+        private void addHeat(int node, double amount) {
+            if (!fixed[node]) {
+                double t = temperature[node] + amount / capacity[node];
+                temperature[node] = t < MIN_TEMP ? MIN_TEMP : Math.min(t, MAX_TEMP);
+            }
+        }
+    }
+}
@@ -17,51 +17,78 @@
 
 package me.desht.pneumaticcraft.common.heat.behaviour;
 
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import me.desht.pneumaticcraft.api.heat.HeatBehaviour;
+import me.desht.pneumaticcraft.api.heat.HeatBehaviourFilter;
 import me.desht.pneumaticcraft.api.heat.IHeatExchangerLogic;
+import me.desht.pneumaticcraft.common.entity.semiblock.HeatFrameEntity;
+import me.desht.pneumaticcraft.common.heat.BlockHeatProperties;
+import me.desht.pneumaticcraft.common.semiblock.SemiblockTracker;
 import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.AbstractFurnaceBlock;
+import net.minecraft.world.level.block.state.BlockState;
 import org.apache.commons.lang3.Validate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 
+/**
+ * Registry of heat behaviours, and discovery of the behaviours which apply to the neighbours of heat exchangers.
+ * <p>
+ * Discovery only creates behaviours whose {@link HeatBehaviourFilter} passes for the neighbouring block. The
+ * blockstate part of each filter is evaluated once per blockstate and cached as a list of candidate behaviours; the
+ * cache is dropped whenever behaviours are registered or the block heat properties change (e.g. on recipe reload).
+ * Filters with no blockstate conditions, like the heat frame's position-only filter, are candidates for every
+ * blockstate, so their position test still runs for every neighbour.
+ */
 public enum HeatBehaviourManager {
     INSTANCE;
 
-    private final Map<ResourceLocation, Supplier<? extends HeatBehaviour>> behaviourRegistry = new ConcurrentHashMap<>();
+    private final Map<ResourceLocation, Registration> behaviourRegistry = new ConcurrentHashMap<>();
+
+    // server thread only
+    private final Map<BlockState, List<Registration>> candidateCache = new Reference2ObjectOpenHashMap<>();
+    private int cachedGeneration = -1;
+    private volatile boolean registryChanged;
 
     public static HeatBehaviourManager getInstance() {
         return INSTANCE;
     }
 
     public void registerDefaultBehaviours() {
-        registerBehaviour(HeatBehaviourFurnace.ID, HeatBehaviourFurnace::new);
-        registerBehaviour(HeatBehaviourHeatFrame.ID, HeatBehaviourHeatFrame::new);
+        registerBehaviour(HeatBehaviourFurnace.ID, HeatBehaviourFurnace::new,
+                new HeatBehaviourFilter().blockClass(AbstractFurnaceBlock.class));
+        registerBehaviour(HeatBehaviourHeatFrame.ID, HeatBehaviourHeatFrame::new,
+                new HeatBehaviourFilter().position((level, pos) -> SemiblockTracker.getInstance().getSemiblock(level, pos) instanceof HeatFrameEntity));
 
         // this handles all custom non-tile-entity blocks and fluids, both vanilla and modded
-        registerBehaviour(HeatBehaviourCustomTransition.ID, HeatBehaviourCustomTransition::new);
+        registerBehaviour(HeatBehaviourCustomTransition.ID, HeatBehaviourCustomTransition::new,
+                new HeatBehaviourFilter().withHeatProperties());
     }
 
-    public void registerBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> behaviour) {
+    public void registerBehaviour(ResourceLocation id, Supplier<? extends HeatBehaviour> behaviour, HeatBehaviourFilter filter) {
         Validate.notNull(behaviour);
+        Validate.notNull(filter);
 
-        Supplier<? extends HeatBehaviour> existing = behaviourRegistry.put(id, behaviour);
+        Registration existing = behaviourRegistry.put(id, new Registration(behaviour, filter));
         if (existing != null) Log.warning("Overriding heat behaviour " + id);
+        registryChanged = true;
     }
 
     public <T extends HeatBehaviour> T createBehaviour(ResourceLocation id) {
-        Supplier<? extends HeatBehaviour> behaviour = behaviourRegistry.get(id);
-        if (behaviour != null) {
+        Registration registration = behaviourRegistry.get(id);
+        if (registration != null) {
             //noinspection unchecked
-            return (T) behaviour.get();
+            return (T) registration.supplier().get();
         } else {
             Log.warning("No heat behaviour found for id: " + id);
             return null;
@@ -71,12 +98,45 @@ public enum HeatBehaviourManager {
     public int addHeatBehaviours(Level world, BlockPos pos, Direction direction, BiPredicate<LevelAccessor, BlockPos> blockFilter, IHeatExchangerLogic logic, List<HeatBehaviour> list) {
         if (!blockFilter.test(world, pos)) return 0;
         int s = list.size();
-        for (Supplier<? extends HeatBehaviour> bSup : behaviourRegistry.values()) {
-            HeatBehaviour behaviour = bSup.get().initialize(logic, world, pos, direction);
-            if (behaviour.isApplicable()) {
-                list.add(behaviour);
+        for (Registration registration : getCandidates(world, world.getBlockState(pos))) {
+            if (registration.filter().matchesPosition(world, pos)) {
+                HeatBehaviour behaviour = registration.supplier().get().initialize(logic, world, pos, direction);
+                if (behaviour.isApplicable()) {
+                    list.add(behaviour);
+                }
             }
         }
         return list.size() - s;
     }
+
+    private List<Registration> getCandidates(Level world, BlockState state) {
+        int generation = BlockHeatProperties.getInstance().getGeneration();
+        if (registryChanged || generation != cachedGeneration) {
+            candidateCache.clear();
+            cachedGeneration = generation;
+            registryChanged = false;
+        }
+        List<Registration> candidates = candidateCache.get(state);
+        if (candidates == null) {
+            candidates = new ArrayList<>(1);
+            for (Registration registration : behaviourRegistry.values()) {
+                if (registration.matchesState(world, state)) {
+                    candidates.add(registration);
+                }
+            }
+            candidates = candidates.isEmpty() ? List.of() : candidates;
+            // looking up heat properties may have populated them for the first time, so check the generation again
+            if (BlockHeatProperties.getInstance().getGeneration() == cachedGeneration) {
+                candidateCache.put(state, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private record Registration(Supplier<? extends HeatBehaviour> supplier, HeatBehaviourFilter filter) {
+        boolean matchesState(Level world, BlockState state) {
+            return filter.matchesState(state)
+                    || filter.matchesHeatProperties() && BlockHeatProperties.getInstance().getCustomHeatEntry(world, state) != null;
+        }
+    }
 }
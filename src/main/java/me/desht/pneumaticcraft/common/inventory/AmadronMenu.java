@@ -328,7 +328,7 @@ public class AmadronMenu extends AbstractPneumaticCraftMenu<AbstractPneumaticCra
         // we'll restore the stock level, in EventHandlerAmadron#onAmadronFailure().
         if (!isAmadronRestock && (offer instanceof AmadronPlayerOffer || offer.getMaxStock() >= 0)) {
             offer.setStock(offer.getStock() - units);
-            if (offer instanceof AmadronPlayerOffer) AmadronPlayerOffers.save();
+            AmadronPlayerOffers.offerChanged(offer);
             NetworkHandler.sendNonLocal(new PacketAmadronStockUpdate(offer.getId(), offer.getStock()));
         }
     }
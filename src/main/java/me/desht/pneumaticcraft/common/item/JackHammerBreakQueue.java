@@ -0,0 +1,177 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.item;
+
+import me.desht.pneumaticcraft.api.PNCCapabilities;
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.api.tileentity.IAirHandlerItem;
+import me.desht.pneumaticcraft.common.config.ConfigHelper;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.ExperienceOrb;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.util.*;
+
+/**
+ * Breaks the blocks of Jackhammer veins over several ticks, so that mining a large vein doesn't stall the server.
+ * Each player gets a queue of veins to break, and up to {@code vein_blocks_per_tick} blocks are broken for each
+ * player per tick, nearest the mined block first. Air is charged as each block is broken, and mining stops if the
+ * Jackhammer runs out of air or the player stops holding it.
+ * <p>
+ * Drops from each tick's blocks are merged into as few stacks as possible, and then either dropped at the block the
+ * player originally mined, or (with a Magnet Upgrade) given straight to the player, along with any experience.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class JackHammerBreakQueue {
+    private static final Map<UUID, Deque<Job>> jobs = new HashMap<>();
+
+    static void enqueue(ServerPlayer player, ItemStack stack, BlockPos origin, Collection<BlockPos> positions, float usage, boolean magnet) {
+        List<BlockPos> sorted = new ArrayList<>(positions);
+        sorted.sort(Comparator.comparingDouble(origin::distSqr));
+        Block block = player.level().getBlockState(origin).getBlock();
+        jobs.computeIfAbsent(player.getUUID(), k -> new ArrayDeque<>())
+                .addLast(new Job(player.serverLevel(), stack, origin, block, sorted, usage, magnet));
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || jobs.isEmpty()) return;
+
+        int blocksPerTick = ConfigHelper.common().jackhammer.veinBlocksPerTick.get();
+        jobs.entrySet().removeIf(entry -> {
+            ServerPlayer player = event.getServer().getPlayerList().getPlayer(entry.getKey());
+            Deque<Job> playerJobs = entry.getValue();
+            int budget = blocksPerTick;
+            while (budget > 0 && !playerJobs.isEmpty()) {
+                Job job = playerJobs.peekFirst();
+                budget -= job.tick(player, budget);
+                if (job.remaining.isEmpty()) playerJobs.removeFirst();
+            }
+            return playerJobs.isEmpty();
+        });
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        jobs.clear();
+    }
+
+    private static class Job {
+        private final ServerLevel level;
+        private final ItemStack stack;
+        private final BlockPos origin;
+        private final Block block;
+        private final Deque<BlockPos> remaining;
+        private final float usage;
+        private final boolean magnet;
+        private final List<ItemStack> drops = new ArrayList<>();
+        private float airOwed;
+
+        Job(ServerLevel level, ItemStack stack, BlockPos origin, Block block, List<BlockPos> positions, float usage, boolean magnet) {
+            this.level = level;
+            this.stack = stack;
+            this.origin = origin;
+            this.block = block;
+            this.remaining = new ArrayDeque<>(positions);
+            this.usage = usage;
+            this.magnet = magnet;
+        }
+
+        /**
+         * Break blocks from this vein.
+         *
+         * @param player the player, or null if they're no longer online
+         * @param budget the most blocks to try to break
+         * @return the number of blocks tried
+         */
+        int tick(ServerPlayer player, int budget) {
+            if (player == null || !player.isAlive() || player.level() != level || player.getMainHandItem() != stack) {
+                remaining.clear();
+                return 0;
+            }
+            IAirHandlerItem airHandler = stack.getCapability(PNCCapabilities.AIR_HANDLER_ITEM_CAPABILITY).orElse(null);
+            if (airHandler == null) {
+                remaining.clear();
+                return 0;
+            }
+
+            int tried = 0;
+            int exp = 0;
+            while (tried < budget && !remaining.isEmpty()) {
+                if (!player.isCreative() && airHandler.getAir() - airOwed < usage) {
+                    remaining.clear();
+                    break;
+                }
+                BlockPos pos = remaining.pollFirst();
+                tried++;
+                // the vein may have changed since it was found
+                if (!level.isLoaded(pos) || level.getBlockState(pos).getBlock() != block) continue;
+
+                int blockExp = JackHammerItem.breakExtraBlock(player, stack, pos, this::addDrop);
+                if (blockExp >= 0) {
+                    exp += blockExp;
+                    if (!player.isCreative()) chargeAir(airHandler);
+                }
+            }
+            deliver(player, exp);
+            return tried;
+        }
+
+        private void chargeAir(IAirHandlerItem airHandler) {
+            // usage isn't a whole number, so keep track of the fractional part between blocks
+            airOwed += usage;
+            int whole = (int) airOwed;
+            if (whole > 0) {
+                airHandler.addAir(-whole);
+                airOwed -= whole;
+            }
+        }
+
+        private void addDrop(ItemStack drop) {
+            for (ItemStack existing : drops) {
+                if (drop.isEmpty()) return;
+                if (ItemHandlerHelper.canItemStacksStack(existing, drop)) {
+                    int n = Math.min(drop.getCount(), existing.getMaxStackSize() - existing.getCount());
+                    existing.grow(n);
+                    drop.shrink(n);
+                }
+            }
+            if (!drop.isEmpty()) drops.add(drop.copy());
+        }
+
+        private void deliver(ServerPlayer player, int exp) {
+            if (magnet) {
+                drops.forEach(drop -> ItemHandlerHelper.giveItemToPlayer(player, drop));
+                if (exp > 0) player.giveExperiencePoints(exp);
+            } else {
+                drops.forEach(drop -> Block.popResource(level, origin, drop));
+                if (exp > 0) ExperienceOrb.award(level, Vec3.atCenterOf(origin), exp);
+            }
+            drops.clear();
+        }
+    }
+}
@@ -74,7 +74,9 @@ import net.minecraftforge.network.NetworkHooks;
 import org.apache.commons.lang3.mutable.MutableBoolean;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static me.desht.pneumaticcraft.common.util.PneumaticCraftUtils.xlate;
 
@@ -196,34 +198,26 @@ public class JackHammerItem extends PressurizableItem
                         // the first block (always mined)
                         air -= usage;
 
+                        if (digMode.isVeinMining() && !brokenPos.isEmpty()) {
+                            // veins can be large, so the rest of the vein is broken over the next few ticks
+                            if (air != air0 && !player.isCreative()) {
+                                airHandler.addAir((int) (air - air0));
+                            }
+                            JackHammerBreakQueue.enqueue(serverPlayer, itemstack, pos, brokenPos, usage, magnet);
+                            return;
+                        }
+
                         // any extra blocks, based on the dig mode
                         for (BlockPos pos1 : brokenPos) {
                             if (air < usage) break;
 
-                            BlockState state1 = level.getBlockState(pos1);
-                            if (state1.getDestroySpeed(level, pos1) < 0) continue;
-
-                            int exp = ForgeHooks.onBlockBreakEvent(serverPlayer.level(), serverPlayer.gameMode.getGameModeForPlayer(), serverPlayer, pos1);
-                            if (exp == -1) {
-                                continue;
-                            }
-                            if (level.getBlockEntity(pos1) != null) {
-                                continue;
-                            }
-                            Block block = state1.getBlock();
-                            boolean removed = state1.onDestroyedByPlayer(level, pos1, player, true, level.getFluidState(pos1));
-                            if (removed) {
-                                block.destroy(level, pos1, state1);
-                                if (magnet) {
-                                    magnetHarvest(block, level, player, pos, pos1, state1, itemstack);
-                                } else {
-                                    block.playerDestroy(level, player, pos1, state1, null, itemstack);
-                                }
-                                if (exp > 0 && level instanceof ServerLevel) {
-                                    block.popExperience((ServerLevel) level, magnet ? pos : pos1, exp);
+                            Block block = level.getBlockState(pos1).getBlock();
+                            int exp = breakExtraBlock(serverPlayer, itemstack, pos1, null);
+                            if (exp >= 0) {
+                                if (exp > 0) {
+                                    block.popExperience((ServerLevel) level, pos1, exp);
                                 }
                                 air -= usage;
-                                player.awardStat(Stats.ITEM_USED.get(this));
                             }
                         }
                         if (air != air0 && !player.isCreative()) {
@@ -236,13 +230,44 @@ public class JackHammerItem extends PressurizableItem
         return !didWork.booleanValue();
     }
 
-    // just like Block#playerDestroy, except all items are dropped in the same place (the block that was mined)
-    private static void magnetHarvest(Block block, Level level, Player player, BlockPos pos0, BlockPos pos, BlockState state, ItemStack stack) {
+    /**
+     * Break one of the extra blocks mined along with the block the player actually hit.
+     *
+     * @param player the player
+     * @param stack the jackhammer
+     * @param pos the block to break
+     * @param drops if non-null, receives the block's drops instead of them being dropped at the block
+     * @return experience to drop for the block, or -1 if the block wasn't broken
+     */
+    static int breakExtraBlock(ServerPlayer player, ItemStack stack, BlockPos pos, @Nullable Consumer<ItemStack> drops) {
+        Level level = player.level();
+        BlockState state = level.getBlockState(pos);
+        if (state.getDestroySpeed(level, pos) < 0) return -1;
+
+        int exp = ForgeHooks.onBlockBreakEvent(level, player.gameMode.getGameModeForPlayer(), player, pos);
+        if (exp == -1 || level.getBlockEntity(pos) != null) {
+            return -1;
+        }
+        Block block = state.getBlock();
+        if (!state.onDestroyedByPlayer(level, pos, player, true, level.getFluidState(pos))) {
+            return -1;
+        }
+        block.destroy(level, pos, state);
+        if (drops != null) {
+            harvestTo(block, level, player, pos, state, stack, drops);
+        } else {
+            block.playerDestroy(level, player, pos, state, null, stack);
+        }
+        player.awardStat(Stats.ITEM_USED.get(stack.getItem()));
+        return exp;
+    }
+
+    // just like Block#playerDestroy, except all items go to the given consumer rather than being dropped at the block
+    private static void harvestTo(Block block, Level level, Player player, BlockPos pos, BlockState state, ItemStack stack, Consumer<ItemStack> drops) {
         player.awardStat(Stats.BLOCK_MINED.get(block));
         player.causeFoodExhaustion(0.005F);
         if (level instanceof ServerLevel serverLevel) {
-            Block.getDrops(state, serverLevel, pos, null, player, stack)
-                    .forEach((stackToSpawn) -> Block.popResource(level, pos0, stackToSpawn));
+            Block.getDrops(state, serverLevel, pos, null, player, stack).forEach(drops);
             state.spawnAfterBreak(serverLevel, pos, stack, true);
         }
     }
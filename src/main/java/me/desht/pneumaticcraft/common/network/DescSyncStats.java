@@ -0,0 +1,79 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.network;
+
+import net.minecraft.world.level.block.entity.BlockEntityType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per block entity type counters for the @DescSynced system: how many fields were polled for changes, how many of
+ * those polls actually found a change, and how many fields were explicitly marked dirty (see {@link PushSynced}).
+ * A high polled/changed ratio indicates a block entity which would benefit from push sync'ing.
+ * <p>
+ * Counters are only updated from the server thread, so they're deliberately not atomic.
+ */
+public class DescSyncStats {
+    private static final Map<BlockEntityType<?>, DescSyncStats> STATS = new ConcurrentHashMap<>();
+
+    private long polled;
+    private long changed;
+    private long pushed;
+
+    public static DescSyncStats forType(BlockEntityType<?> type) {
+        return STATS.computeIfAbsent(type, k -> new DescSyncStats());
+    }
+
+    public static Map<BlockEntityType<?>, DescSyncStats> getAllStats() {
+        return STATS;
+    }
+
+    public static void resetAll() {
+        STATS.values().forEach(DescSyncStats::reset);
+    }
+
+    public void recordPoll(int nPolled, int nChanged) {
+        polled += nPolled;
+        changed += nChanged;
+    }
+
+    public void recordPush() {
+        pushed++;
+    }
+
+    public long getPolled() {
+        return polled;
+    }
+
+    public long getChanged() {
+        return changed;
+    }
+
+    public long getPushed() {
+        return pushed;
+    }
+
+    public long getWastedPolls() {
+        return polled - changed;
+    }
+
+    private void reset() {
+        polled = changed = pushed = 0L;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.network;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.common.block.entity.AbstractPneumaticCraftBlockEntity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects block entities which have pending description updates during the server tick, and at the end of the
+ * tick sends one {@link PacketDescriptionBatch} per chunk to the players tracking that chunk.
+ * <p>
+ * Packets are built at flush time rather than queue time, so a forced sync in the meantime (which clears the block
+ * entity's dirty state) simply results in that block entity being omitted from the batch.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class DescriptionPacketBatcher {
+    private static final Map<Level, Long2ObjectMap<List<AbstractPneumaticCraftBlockEntity>>> pending = new IdentityHashMap<>();
+
+    public static void queue(AbstractPneumaticCraftBlockEntity te) {
+        pending.computeIfAbsent(te.nonNullLevel(), k -> new Long2ObjectLinkedOpenHashMap<>())
+                .computeIfAbsent(ChunkPos.asLong(te.getBlockPos()), k -> new ArrayList<>())
+                .add(te);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && !pending.isEmpty()) {
+            pending.forEach(DescriptionPacketBatcher::flushLevel);
+            pending.clear();
+        }
+    }
+
+    private static void flushLevel(Level level, Long2ObjectMap<List<AbstractPneumaticCraftBlockEntity>> byChunk) {
+        for (Long2ObjectMap.Entry<List<AbstractPneumaticCraftBlockEntity>> entry : byChunk.long2ObjectEntrySet()) {
+            ChunkPos chunkPos = new ChunkPos(entry.getLongKey());
+            List<PacketDescription> packets = new ArrayList<>(entry.getValue().size());
+            for (AbstractPneumaticCraftBlockEntity te : entry.getValue()) {
+                PacketDescription packet = te.takeQueuedDescriptionPacket();
+                if (packet != null) packets.add(packet);
+            }
+            if (!packets.isEmpty() && level.hasChunk(chunkPos.x, chunkPos.z)) {
+                NetworkHandler.sendToAllTracking(new PacketDescriptionBatch(chunkPos, packets), level, chunkPos.getWorldPosition());
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.desht.pneumaticcraft.api.lib.Names;
+import me.desht.pneumaticcraft.client.util.ClientUtils;
+import me.desht.pneumaticcraft.lib.Log;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Splits {@link ILargePayload} messages which are too big for a single packet into a {@link PacketMultiHeader}
+ * followed by a series of {@link PacketMultiPart}s, and reassembles them on the receiving side.
+ * <p>
+ * Payloads are deflate-compressed, and identified by a transfer ID (so a player can have more than one transfer in
+ * progress) and a registered payload type ID. Received parts are inflated as they arrive into a pooled buffer, and
+ * the complete payload is checked against the CRC and length sent in the header before being decoded. Buffers start
+ * small and grow as data arrives, so a header alone can't reserve much memory; and each sender can only have
+ * {@link #MAX_TRANSFERS_PER_SENDER} transfers in progress at once. Transfers which aren't completed within
+ * {@link #TRANSFER_TIMEOUT_MS} are discarded (checked every tick), as are a player's transfers when they log out.
+ * <p>
+ * The assembler's state is shared by both logical sides (in single player), so is thread-safe.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class LargePayloadAssembler {
+    private static final long TRANSFER_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_UNCOMPRESSED_SIZE = 16 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TRANSFERS_PER_SENDER = 4;
+
+    private static final List<Function<FriendlyByteBuf, ? extends ILargePayload>> decoders = new ArrayList<>();
+    private static final Reference2IntMap<Class<? extends ILargePayload>> payloadIds = new Reference2IntOpenHashMap<>();
+
+    private static final AtomicInteger nextTransferId = new AtomicInteger();
+    private static final Map<TransferKey, Transfer> transfers = new ConcurrentHashMap<>();
+
+    static {
+        payloadIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Register a type of large payload message. Must be called in the same order on both sides, during network setup.
+     *
+     * @param clazz the message class
+     * @param decoder decodes a message from its (decompressed) payload
+     * @param <T> the message type
+     */
+    static <T extends ILargePayload> void registerPayloadType(Class<T> clazz, Function<FriendlyByteBuf, T> decoder) {
+        payloadIds.put(clazz, decoders.size());
+        decoders.add(decoder);
+    }
+
+    /**
+     * Split an encoded message into the packets needed to send it.
+     *
+     * @param message the message
+     * @param buf the message's encoded payload
+     * @return a header packet, followed by one or more part packets
+     */
+    static List<Object> split(ILargePayload message, FriendlyByteBuf buf) {
+        int typeId = payloadIds.getInt(message.getClass());
+        if (typeId < 0) {
+            throw new IllegalArgumentException("unregistered large payload type: " + message.getClass().getName());
+        }
+
+        byte[] raw = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), raw);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed;
+        int compressedLength = 0;
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            compressed = new byte[Math.max(64, raw.length / 2)];
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        int transferId = nextTransferId.incrementAndGet();
+        List<Object> packets = new ArrayList<>();
+        packets.add(new PacketMultiHeader(transferId, typeId, raw.length, compressedLength, (int) crc.getValue()));
+        for (int offset = 0; offset < compressedLength; offset += ILargePayload.MAX_PAYLOAD_SIZE) {
+            int end = Math.min(offset + ILargePayload.MAX_PAYLOAD_SIZE, compressedLength);
+            packets.add(new PacketMultiPart(transferId, Arrays.copyOfRange(compressed, offset, end)));
+        }
+        return packets;
+    }
+
+    static void startTransfer(Player sender, int transferId, int typeId, int length, int compressedLength, int crc) {
+        if (typeId < 0 || typeId >= decoders.size() || length < 0 || length > MAX_UNCOMPRESSED_SIZE || compressedLength < 0) {
+            Log.error("rejecting invalid multi-part transfer %d (type %d, length %d) from %s", transferId, typeId, length, describe(sender));
+            return;
+        }
+        TransferKey key = new TransferKey(senderId(sender), transferId);
+        long inProgress = transfers.keySet().stream().filter(k -> k.player().equals(key.player()) && !k.equals(key)).count();
+        if (inProgress >= MAX_TRANSFERS_PER_SENDER) {
+            Log.error("rejecting multi-part transfer %d from %s: too many transfers in progress", transferId, describe(sender));
+            return;
+        }
+        Transfer prev = transfers.put(key, new Transfer(typeId, length, compressedLength, crc));
+        if (prev != null) prev.release();
+    }
+
+    static void receivePart(Player sender, int transferId, byte[] data) {
+        TransferKey key = new TransferKey(senderId(sender), transferId);
+        Transfer transfer = transfers.get(key);
+        if (transfer == null) {
+            Log.error("received unexpected multi-part payload %d from %s", transferId, describe(sender));
+            return;
+        }
+
+        boolean done;
+        try {
+            done = transfer.accept(data);
+        } catch (DataFormatException | IllegalStateException e) {
+            Log.error("discarding corrupt multi-part payload %d from %s: %s", transferId, describe(sender), e.getMessage());
+            transfers.remove(key);
+            transfer.release();
+            return;
+        }
+
+        if (done) {
+            transfers.remove(key);
+            try {
+                if (transfer.verify()) {
+                    decoders.get(transfer.typeId).apply(new FriendlyByteBuf(transfer.buffer)).handleLargePayload(sender);
+                } else {
+                    Log.error("discarding multi-part payload %d from %s: checksum mismatch", transferId, describe(sender));
+                }
+            } finally {
+                transfer.release();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && !transfers.isEmpty()) {
+            expireTransfers();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && !transfers.isEmpty()) {
+            expireTransfers();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        UUID id = event.getEntity().getUUID();
+        transfers.entrySet().removeIf(entry -> {
+            if (entry.getKey().player().equals(id)) {
+                entry.getValue().release();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static void expireTransfers() {
+        long now = System.currentTimeMillis();
+        transfers.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().lastActivity > TRANSFER_TIMEOUT_MS) {
+                Log.warning("discarding incomplete multi-part payload %d: timed out", entry.getKey().transferId());
+                entry.getValue().release();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static UUID senderId(Player sender) {
+        return sender == null ? ClientUtils.getClientPlayer().getUUID() : sender.getUUID();
+    }
+
+    private static String describe(Player sender) {
+        return sender == null ? "server" : sender.getName().getString() + " - " + sender.getUUID();
+    }
+
+    private record TransferKey(UUID player, int transferId) {
+    }
+
+    private static class Transfer {
+        private final int typeId;
+        private final int length;
+        private final int compressedLength;
+        private final int crc;
+        private final ByteBuf buffer;
+        private final Inflater inflater = new Inflater();
+        private int received;
+        private long lastActivity = System.currentTimeMillis();
+
+        Transfer(int typeId, int length, int compressedLength, int crc) {
+            this.typeId = typeId;
+            this.length = length;
+            this.compressedLength = compressedLength;
+            this.crc = crc;
+            this.buffer = PooledByteBufAllocator.DEFAULT.heapBuffer(Math.min(length, INITIAL_BUFFER_SIZE), length);
+        }
+
+        /**
+         * Inflate one part of the payload into the buffer.
+         *
+         * @param data the compressed part
+         * @return true if the transfer is now complete
+         */
+        synchronized boolean accept(byte[] data) throws DataFormatException {
+            received += data.length;
+            if (received > compressedLength) {
+                throw new IllegalStateException("more data than expected");
+            }
+            lastActivity = System.currentTimeMillis();
+            inflater.setInput(data);
+            while (!inflater.needsInput() && !inflater.finished()) {
+                if (buffer.writableBytes() == 0 && buffer.capacity() < length) {
+                    // grow as the data actually arrives, rather than trusting the declared length up front
+                    buffer.capacity(Math.min(length, buffer.capacity() * 2));
+                }
+                int offset = buffer.arrayOffset() + buffer.writerIndex();
+                int n = inflater.inflate(buffer.array(), offset, buffer.writableBytes());
+                if (n == 0 && (buffer.writableBytes() == 0 || inflater.needsDictionary())) {
+                    throw new IllegalStateException("payload larger than expected");
+                }
+                buffer.writerIndex(buffer.writerIndex() + n);
+            }
+            return received == compressedLength;
+        }
+
+        boolean verify() {
+            if (!inflater.finished() || buffer.readableBytes() != length) return false;
+
+            CRC32 check = new CRC32();
+            check.update(buffer.array(), buffer.arrayOffset() + buffer.readerIndex(), buffer.readableBytes());
+            return (int) check.getValue() == crc;
+        }
+
+        synchronized void release() {
+            inflater.end();
+            if (buffer.refCnt() > 0) buffer.release();
+        }
+    }
+}
@@ -49,9 +49,6 @@ import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.network.simple.SimpleChannel;
 import net.minecraftforge.server.ServerLifecycleHooks;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -63,7 +60,7 @@ import static net.minecraftforge.network.NetworkDirection.PLAY_TO_CLIENT;
 import static net.minecraftforge.network.NetworkDirection.PLAY_TO_SERVER;
 
 public class NetworkHandler {
-    private static final String PROTOCOL_VERSION = "9";
+    private static final String PROTOCOL_VERSION = "11";
     private static final SimpleChannel NETWORK = NetworkRegistry.ChannelBuilder
             .named(RL("main_channel"))
             .clientAcceptedVersions(PROTOCOL_VERSION::equals)
@@ -85,6 +82,8 @@ public class NetworkHandler {
 				PacketUpdateGPSAreaTool::toBytes, PacketUpdateGPSAreaTool::new, PacketUpdateGPSAreaTool::handle, PLAY_TO_SERVER);
 		registerMessage(PacketDescription.class,
 				PacketDescription::toBytes, PacketDescription::new, PacketDescription::process, PLAY_TO_CLIENT);
+		registerMessage(PacketDescriptionBatch.class,
+				PacketDescriptionBatch::toBytes, PacketDescriptionBatch::new, PacketDescriptionBatch::handle, PLAY_TO_CLIENT);
 		registerMessage(PacketDescriptionPacketRequest.class,
 				PacketDescriptionPacketRequest::toBytes, PacketDescriptionPacketRequest::new, PacketDescriptionPacketRequest::handle, PLAY_TO_SERVER);
 		registerMessage(PacketGuiButton.class,
@@ -173,6 +172,7 @@ public class NetworkHandler {
 				PacketMultiHeader::toBytes, PacketMultiHeader::new, PacketMultiHeader::handle);
 		registerMessage(PacketMultiPart.class,
 				PacketMultiPart::toBytes, PacketMultiPart::new, PacketMultiPart::handle);
+		LargePayloadAssembler.registerPayloadType(PacketProgrammerUpdate.class, PacketProgrammerUpdate::new);
 		registerMessage(PacketPneumaticKick.class,
 				PacketPneumaticKick::toBytes, PacketPneumaticKick::new, PacketPneumaticKick::handle, PLAY_TO_SERVER);
 		registerMessage(PacketJetBootsActivate.class,
@@ -287,21 +287,13 @@ public class NetworkHandler {
 	}
 
 	private static void sendMessage(Object message, Consumer<Object> consumer) {
-		if (message instanceof ILargePayload) {
-			// see PacketMultiHeader#receivePayload for message reassembly
-			FriendlyByteBuf buf = ((ILargePayload) message).dumpToBuffer();
+		if (message instanceof ILargePayload largePayload) {
+			// see LargePayloadAssembler for compression and message reassembly
+			FriendlyByteBuf buf = largePayload.dumpToBuffer();
 			if (buf.writerIndex() < ILargePayload.MAX_PAYLOAD_SIZE) {
 				consumer.accept(message);
 			} else {
-				List<Object> messageParts = new ArrayList<>();
-				messageParts.add(new PacketMultiHeader(buf.writerIndex(), message.getClass().getName()));
-				int offset = 0;
-				byte[] bytes = buf.array();
-				while (offset < buf.writerIndex()) {
-					messageParts.add(new PacketMultiPart(Arrays.copyOfRange(bytes, offset, Math.min(offset + ILargePayload.MAX_PAYLOAD_SIZE, buf.writerIndex()))));
-					offset += ILargePayload.MAX_PAYLOAD_SIZE;
-				}
-				messageParts.forEach(consumer);
+				LargePayloadAssembler.split(largePayload, buf).forEach(consumer);
 			}
 		} else {
 			consumer.accept(message);
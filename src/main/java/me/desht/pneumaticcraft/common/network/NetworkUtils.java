@@ -23,14 +23,26 @@ import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.items.IItemHandlerModifiable;
-import net.minecraftforge.items.ItemStackHandler;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 public class NetworkUtils {
+    /**
+     * Per-class sync metadata, built once per (class, annotation) pair on first use.
+     */
+    private static final ClassValue<Map<Class<? extends Annotation>, List<SyncedFieldInfo>>> FIELD_INFO_CACHE = new ClassValue<>() {
+        @Override
+        protected Map<Class<? extends Annotation>, List<SyncedFieldInfo>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /**
      * Get a list of all the synced fields for a syncable object
      *
@@ -40,11 +52,23 @@ public class NetworkUtils {
      */
     public static List<SyncedField<?>> getSyncedFields(Object syncable, Class<? extends Annotation> searchedAnnotation) {
         ImmutableList.Builder<SyncedField<?>> builder = ImmutableList.builder();
-        Class<?> examinedClass = syncable.getClass();
+        for (SyncedFieldInfo info : getSyncedFieldInfo(syncable.getClass(), searchedAnnotation)) {
+            info.addSyncedFields(syncable, searchedAnnotation, builder);
+        }
+        return builder.build();
+    }
+
+    private static List<SyncedFieldInfo> getSyncedFieldInfo(Class<?> syncableClass, Class<? extends Annotation> searchedAnnotation) {
+        return FIELD_INFO_CACHE.get(syncableClass).computeIfAbsent(searchedAnnotation, a -> scanClass(syncableClass, a));
+    }
+
+    private static List<SyncedFieldInfo> scanClass(Class<?> syncableClass, Class<? extends Annotation> searchedAnnotation) {
+        ImmutableList.Builder<SyncedFieldInfo> builder = ImmutableList.builder();
+        Class<?> examinedClass = syncableClass;
         while (examinedClass != null) {
             for (Field field : examinedClass.getDeclaredFields()) {
                 if (field.getAnnotation(searchedAnnotation) != null) {
-                    builder.addAll(getSyncedFieldsForField(field, syncable, searchedAnnotation));
+                    builder.add(new SyncedFieldInfo(field));
                 }
             }
             examinedClass = examinedClass.getSuperclass();
@@ -52,117 +76,76 @@ public class NetworkUtils {
         return builder.build();
     }
 
-    private static List<SyncedField<?>> getSyncedFieldsForField(Field field, Object te, Class<? extends Annotation> searchedAnnotation) {
-        boolean isLazy = field.getAnnotation(LazySynced.class) != null;
-        SyncedField<?> syncedField = getSyncedFieldForField(field, te);
-        if (syncedField != null) {
-            return Collections.singletonList(syncedField.setLazy(isLazy));
-        } else {
-            ImmutableList.Builder<SyncedField<?>> builder = ImmutableList.builder();
-            int filteredIndex = field.getAnnotation(FilteredSynced.class) != null ? field.getAnnotation(FilteredSynced.class).index() : -1;
+    private static BiFunction<Object, SyncedFieldAccessor, SyncedField<?>> getFactoryForType(Class<?> type) {
+        if (int.class.isAssignableFrom(type)) return SyncedInt::new;
+        if (float.class.isAssignableFrom(type)) return SyncedFloat::new;
+        if (double.class.isAssignableFrom(type)) return SyncedDouble::new;
+        if (boolean.class.isAssignableFrom(type)) return SyncedBoolean::new;
+        if (String.class.isAssignableFrom(type)) return SyncedString::new;
+        if (type.isEnum()) return SyncedEnum::new;
+        if (ItemStack.class.isAssignableFrom(type)) return SyncedItemStack::new;
+        if (FluidStack.class.isAssignableFrom(type)) return SyncedFluidStack::new;
+        if (IItemHandlerModifiable.class.isAssignableFrom(type)) return SyncedItemHandler::new;
+        return null;
+    }
+
+    /**
+     * Class-level description of one annotated field: everything that can be worked out without an instance.
+     * Array lengths and nested syncable objects are still resolved per-instance, since those can vary.
+     */
+    private static class SyncedFieldInfo {
+        private final SyncedFieldAccessor accessor;
+        private final boolean isLazy;
+        private final boolean isPushed;
+        private final int filteredIndex;
+        // factory for a scalar field of a syncable type
+        private final BiFunction<Object, SyncedFieldAccessor, SyncedField<?>> factory;
+        // factory for each element of an array field of a syncable component type
+        private final BiFunction<Object, SyncedFieldAccessor, SyncedField<?>> elementFactory;
+
+        SyncedFieldInfo(Field field) {
+            this.accessor = SyncedFieldAccessor.of(field);
+            this.isLazy = field.getAnnotation(LazySynced.class) != null;
+            this.isPushed = field.getAnnotation(PushSynced.class) != null;
+            FilteredSynced filtered = field.getAnnotation(FilteredSynced.class);
+            this.filteredIndex = filtered != null ? filtered.index() : -1;
+            this.factory = getFactoryForType(field.getType());
+            this.elementFactory = factory == null && field.getType().isArray() ?
+                    getFactoryForType(field.getType().getComponentType()) :
+                    null;
+        }
+
+        void addSyncedFields(Object te, Class<? extends Annotation> searchedAnnotation, ImmutableList.Builder<SyncedField<?>> builder) {
+            if (factory != null) {
+                builder.add(factory.apply(te, accessor).setLazy(isLazy).setPushed(isPushed));
+                return;
+            }
+
+            ImmutableList.Builder<SyncedField<?>> subBuilder = ImmutableList.builder();
             try {
-                field.setAccessible(true);
-                Object o = field.get(te);
-                if (o instanceof int[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedInt(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedInt(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof float[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedFloat(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedFloat(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof double[] array) {
+                Object o = accessor.get(te);
+                if (elementFactory != null) {
                     if (filteredIndex >= 0) {
-                        builder.add(new SyncedDouble(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
+                        subBuilder.add(elementFactory.apply(te, accessor).setArrayIndex(filteredIndex).setLazy(isLazy).setPushed(isPushed));
                     } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedDouble(te, field).setArrayIndex(i).setLazy(isLazy));
+                        for (int i = 0; i < Array.getLength(o); i++) {
+                            subBuilder.add(elementFactory.apply(te, accessor).setArrayIndex(i).setLazy(isLazy).setPushed(isPushed));
                         }
                     }
-                } else if (o instanceof boolean[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedBoolean(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedBoolean(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof String[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedString(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedString(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o.getClass().isArray() && o.getClass().getComponentType().isEnum()) {
-                    Object[] enumArray = (Object[]) o;
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedEnum(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < enumArray.length; i++) {
-                            builder.add(new SyncedEnum(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof ItemStack[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedItemStack(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedItemStack(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof FluidStack[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedFluidStack(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedFluidStack(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (o instanceof ItemStackHandler[] array) {
-                    if (filteredIndex >= 0) {
-                        builder.add(new SyncedItemStack(te, field).setArrayIndex(filteredIndex).setLazy(isLazy));
-                    } else {
-                        for (int i = 0; i < array.length; i++) {
-                            builder.add(new SyncedItemStack(te, field).setArrayIndex(i).setLazy(isLazy));
-                        }
-                    }
-                } else if (field.getType().isArray()) {
+                } else if (accessor.getType().isArray()) {
                     Object[] array = (Object[]) o;
                     for (Object obj : array) {
-                        builder.addAll(getSyncedFields(obj, searchedAnnotation));
+                        subBuilder.addAll(getSyncedFields(obj, searchedAnnotation));
                     }
                 } else {
-                    builder.addAll(getSyncedFields(o, searchedAnnotation));
+                    subBuilder.addAll(getSyncedFields(o, searchedAnnotation));
                 }
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 e.printStackTrace();
             }
-            List<SyncedField<?>> syncedFields = builder.build();
-            if (syncedFields.isEmpty()) Log.warning("Field " + field + " didn't produce any syncable fields!");
-            return syncedFields;
+            List<SyncedField<?>> syncedFields = subBuilder.build();
+            if (syncedFields.isEmpty()) Log.warning("Field " + accessor + " didn't produce any syncable fields!");
+            builder.addAll(syncedFields);
         }
     }
-
-    private static SyncedField<?> getSyncedFieldForField(Field field, Object te) {
-        if (int.class.isAssignableFrom(field.getType())) return new SyncedInt(te, field);
-        if (float.class.isAssignableFrom(field.getType())) return new SyncedFloat(te, field);
-        if (double.class.isAssignableFrom(field.getType())) return new SyncedDouble(te, field);
-        if (boolean.class.isAssignableFrom(field.getType())) return new SyncedBoolean(te, field);
-        if (String.class.isAssignableFrom(field.getType())) return new SyncedString(te, field);
-        if (field.getType().isEnum()) return new SyncedEnum(te, field);
-        if (ItemStack.class.isAssignableFrom(field.getType())) return new SyncedItemStack(te, field);
-        if (FluidStack.class.isAssignableFrom(field.getType())) return new SyncedFluidStack(te, field);
-        if (IItemHandlerModifiable.class.isAssignableFrom(field.getType())) return new SyncedItemHandler(te, field);
-        return null;
-    }
 }
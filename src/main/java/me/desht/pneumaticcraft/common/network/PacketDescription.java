@@ -36,9 +36,14 @@ import java.util.function.Supplier;
 /**
  * Sent to: CLIENT
  *
- * This is the primary mechanism for syncing block entity data to clients when it changes.
+ * This is the primary mechanism for syncing block entity data to clients when it changes. Updates arising from
+ * regular block entity ticking are batched per-chunk into a {@link PacketDescriptionBatch}; this packet is sent
+ * standalone when a sync is explicitly forced.
  */
 public class PacketDescription extends LocationIntPacket {
+    private static final int FLAG_FULL_SYNC = 0x01;
+    private static final int FLAG_EXTRA_DATA = 0x02;
+
     private final boolean fullSync;
     private final List<IndexedField> fields = new ArrayList<>();
     private final CompoundTag extraData;
@@ -58,30 +63,51 @@ public class PacketDescription extends LocationIntPacket {
     }
 
     public PacketDescription(FriendlyByteBuf buf) {
-        super(buf);
+        this(buf.readBlockPos(), buf);
+    }
 
-        fullSync = buf.readBoolean();
+    /**
+     * Read the packet body only; the position is supplied by the caller (see {@link PacketDescriptionBatch}).
+     */
+    PacketDescription(BlockPos pos, FriendlyByteBuf buf) {
+        super(pos);
+
+        int flags = buf.readByte();
+        fullSync = (flags & FLAG_FULL_SYNC) != 0;
         int fieldCount = buf.readVarInt();
         for (int i = 0; i < fieldCount; i++) {
             int idx = fullSync ? i : buf.readVarInt();
             byte type = buf.readByte();
             fields.add(new IndexedField(idx, type, SyncedField.fromBytes(buf, type)));
         }
-        extraData = buf.readNbt();
+        extraData = (flags & FLAG_EXTRA_DATA) != 0 ? buf.readNbt() : new CompoundTag();
     }
 
     @Override
     public void toBytes(FriendlyByteBuf buf) {
         super.toBytes(buf);
 
-        buf.writeBoolean(fullSync);
+        writeBody(buf);
+    }
+
+    /**
+     * Write the packet body only, without the position. The extra data tag is omitted entirely when empty, which
+     * is the common case for block entities which don't override {@code writeToPacket()}.
+     */
+    void writeBody(FriendlyByteBuf buf) {
+        boolean hasExtra = !extraData.isEmpty();
+        buf.writeByte((fullSync ? FLAG_FULL_SYNC : 0) | (hasExtra ? FLAG_EXTRA_DATA : 0));
         buf.writeVarInt(fields.size());
         for (IndexedField indexedField : fields) {
             if (!fullSync) buf.writeVarInt(indexedField.idx);
             buf.writeByte(indexedField.type);
             SyncedField.toBytes(buf, indexedField.value, indexedField.type);
         }
-        buf.writeNbt(extraData);
+        if (hasExtra) buf.writeNbt(extraData);
+    }
+
+    BlockPos getPos() {
+        return pos;
     }
 
     public void process(Supplier<NetworkEvent.Context> ctx) {
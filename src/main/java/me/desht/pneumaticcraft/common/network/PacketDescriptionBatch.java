@@ -0,0 +1,71 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.network;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Received on: CLIENT
+ * Sent by server at the end of each tick: all the pending description updates for block entities in one chunk.
+ * Block positions are encoded relative to the chunk: one byte for the X/Z offset and a zigzag varint for Y.
+ */
+public class PacketDescriptionBatch {
+    private final ChunkPos chunkPos;
+    private final List<PacketDescription> entries;
+
+    public PacketDescriptionBatch(ChunkPos chunkPos, List<PacketDescription> entries) {
+        this.chunkPos = chunkPos;
+        this.entries = entries;
+    }
+
+    public PacketDescriptionBatch(FriendlyByteBuf buf) {
+        chunkPos = buf.readChunkPos();
+        int n = buf.readVarInt();
+        entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int xz = buf.readUnsignedByte();
+            int zigzagY = buf.readVarInt();
+            int y = (zigzagY >>> 1) ^ -(zigzagY & 1);
+            BlockPos pos = new BlockPos(chunkPos.getMinBlockX() + (xz >> 4), y, chunkPos.getMinBlockZ() + (xz & 0xF));
+            entries.add(new PacketDescription(pos, buf));
+        }
+    }
+
+    public void toBytes(FriendlyByteBuf buf) {
+        buf.writeChunkPos(chunkPos);
+        buf.writeVarInt(entries.size());
+        for (PacketDescription entry : entries) {
+            BlockPos pos = entry.getPos();
+            buf.writeByte((pos.getX() & 0xF) << 4 | (pos.getZ() & 0xF));
+            buf.writeVarInt((pos.getY() << 1) ^ (pos.getY() >> 31));
+            entry.writeBody(buf);
+        }
+    }
+
+    public void handle(Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() -> entries.forEach(entry -> entry.processPacket(null)));
+        ctx.get().setPacketHandled(true);
+    }
+}
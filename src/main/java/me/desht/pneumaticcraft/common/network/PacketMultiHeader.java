@@ -17,89 +17,49 @@
 
 package me.desht.pneumaticcraft.common.network;
 
-import io.netty.buffer.Unpooled;
-import me.desht.pneumaticcraft.client.util.ClientUtils;
-import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.network.FriendlyByteBuf;
-import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.network.NetworkEvent;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import java.util.function.Supplier;
 
 /**
- * Received on: SERVER
- * First part of a following multi-part message from the client
+ * Received on: BOTH
+ * Announces a following multi-part transfer of a deflate-compressed {@link ILargePayload} message; see
+ * {@link LargePayloadAssembler}
  */
 public class PacketMultiHeader {
+    private final int transferId;
+    private final int payloadType;
     private final int length;
-    private final String className;
-    private static final Map<UUID, PayloadBuffer> payloadBuffers = new HashMap<>();
+    private final int compressedLength;
+    private final int crc;
 
-    PacketMultiHeader(int length, String className) {
+    PacketMultiHeader(int transferId, int payloadType, int length, int compressedLength, int crc) {
+        this.transferId = transferId;
+        this.payloadType = payloadType;
         this.length = length;
-        this.className = className;
+        this.compressedLength = compressedLength;
+        this.crc = crc;
     }
 
     PacketMultiHeader(FriendlyByteBuf buffer) {
-        length = buffer.readInt();
-        className = buffer.readUtf(32767);
+        transferId = buffer.readVarInt();
+        payloadType = buffer.readVarInt();
+        length = buffer.readVarInt();
+        compressedLength = buffer.readVarInt();
+        crc = buffer.readInt();
     }
 
     public void toBytes(FriendlyByteBuf buf) {
-        buf.writeInt(length);
-        buf.writeUtf(className);
+        buf.writeVarInt(transferId);
+        buf.writeVarInt(payloadType);
+        buf.writeVarInt(length);
+        buf.writeVarInt(compressedLength);
+        buf.writeInt(crc);
     }
 
     public void handle(Supplier<NetworkEvent.Context> ctx) {
-        ctx.get().enqueueWork(() -> {
-            try {
-                ClassLoader cl = Thread.currentThread().getContextClassLoader();
-                if (cl == null) cl = PacketMultiHeader.class.getClassLoader(); // fallback
-                Class<?> clazz = cl.loadClass(className);
-                UUID id = ctx.get().getSender() == null ? ClientUtils.getClientPlayer().getUUID() : ctx.get().getSender().getUUID();
-                payloadBuffers.put(id, new PayloadBuffer(clazz.asSubclass(ILargePayload.class), length));
-            } catch (ClassNotFoundException|ClassCastException e) {
-                e.printStackTrace();
-            }
-        });
+        ctx.get().enqueueWork(() -> LargePayloadAssembler.startTransfer(ctx.get().getSender(), transferId, payloadType, length, compressedLength, crc));
         ctx.get().setPacketHandled(true);
     }
-
-    static void receivePayload(Player player, byte[] payload) {
-        UUID id = player == null ? ClientUtils.getClientPlayer().getUUID() : player.getUUID();
-        PayloadBuffer buffer = payloadBuffers.get(id);
-        if (buffer != null) {
-            System.arraycopy(payload, 0, buffer.payload, buffer.offset, payload.length);
-            buffer.offset += ILargePayload.MAX_PAYLOAD_SIZE;
-            if (buffer.offset > buffer.payload.length) {
-                // we have the complete message
-                try {
-                    Constructor<? extends ILargePayload> ctor = buffer.clazz.getConstructor(FriendlyByteBuf.class);
-                    ILargePayload packet = ctor.newInstance(new FriendlyByteBuf(Unpooled.wrappedBuffer(buffer.payload)));
-                    packet.handleLargePayload(player);
-                    payloadBuffers.remove(id);
-                } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-                    e.printStackTrace();
-                }
-            }
-        } else {
-            Log.error("Received unexpected multi-message payload from player " + player.getName() + " - " + player.getUUID());
-        }
-    }
-
-    private static class PayloadBuffer {
-        final Class<? extends ILargePayload> clazz;
-        final byte[] payload;
-        int offset;
-
-        PayloadBuffer(Class<? extends ILargePayload> clazz, int length) {
-            this.clazz = clazz;
-            this.payload = new byte[length];
-        }
-    }
 }
@@ -23,28 +23,30 @@ import net.minecraftforge.network.NetworkEvent;
 import java.util.function.Supplier;
 
 /**
- * Received on: SERVER
- * Part of a multipart message from client (whole message too big to send at once)
+ * Received on: BOTH
+ * One chunk of compressed data for a multi-part transfer started by {@link PacketMultiHeader}
  */
 public class PacketMultiPart {
+    private final int transferId;
     private final byte[] payload;
 
-    PacketMultiPart(byte[] payload) {
+    PacketMultiPart(int transferId, byte[] payload) {
+        this.transferId = transferId;
         this.payload = payload;
     }
 
     PacketMultiPart(FriendlyByteBuf buf) {
-        payload = new byte[buf.readInt()];
-        buf.readBytes(payload);
+        transferId = buf.readVarInt();
+        payload = buf.readByteArray(ILargePayload.MAX_PAYLOAD_SIZE);
     }
 
     public void toBytes(FriendlyByteBuf buf) {
-        buf.writeInt(payload.length);
-        buf.writeBytes(payload);
+        buf.writeVarInt(transferId);
+        buf.writeByteArray(payload);
     }
 
     public void handle(Supplier<NetworkEvent.Context> ctx) {
-        ctx.get().enqueueWork(() -> PacketMultiHeader.receivePayload(ctx.get().getSender(), payload));
+        ctx.get().enqueueWork(() -> LargePayloadAssembler.receivePart(ctx.get().getSender(), transferId, payload));
         ctx.get().setPacketHandled(true);
     }
 }
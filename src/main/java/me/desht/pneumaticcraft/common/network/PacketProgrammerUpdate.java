@@ -25,6 +25,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.network.NetworkEvent;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -36,15 +37,18 @@ import java.util.function.Supplier;
  */
 public class PacketProgrammerUpdate extends LocationIntPacket implements ILargePayload {
     private final List<IProgWidget> widgets;
+    private final List<byte[]> encodedWidgets;  // only when received; lets the programmer's history spot changed widgets
 
     public PacketProgrammerUpdate(ProgrammerBlockEntity te) {
         super(te.getBlockPos());
         this.widgets = te.progWidgets;
+        this.encodedWidgets = null;
     }
 
     public PacketProgrammerUpdate(FriendlyByteBuf buffer) {
         super(buffer);
-        widgets = WidgetSerializer.readWidgetsFromPacket(buffer);
+        encodedWidgets = new ArrayList<>();
+        widgets = WidgetSerializer.readWidgetsFromPacket(buffer, encodedWidgets);
     }
 
     @Override
@@ -59,7 +63,7 @@ public class PacketProgrammerUpdate extends LocationIntPacket implements ILargeP
     }
 
     private void updateTE(Player player) {
-        PacketUtil.getBlockEntity(player, pos, ProgrammerBlockEntity.class).ifPresent(te -> te.setProgWidgets(widgets, player));
+        PacketUtil.getBlockEntity(player, pos, ProgrammerBlockEntity.class).ifPresent(te -> te.setProgWidgets(widgets, encodedWidgets, player));
     }
 
     @Override
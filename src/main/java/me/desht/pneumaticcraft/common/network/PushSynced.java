@@ -15,31 +15,20 @@
  *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
  */
 
-package me.desht.pneumaticcraft.common.util;
+package me.desht.pneumaticcraft.common.network;
 
-import java.util.Comparator;
-import java.util.List;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 
-public class ThreadedSorter<T> extends Thread {
-
-    private boolean isDone;
-    private final List<T> list;
-    private final Comparator<? super T> comparator;
-
-    public ThreadedSorter(List<T> list, Comparator<? super T> comparator) {
-        this.list = list;
-        this.comparator = comparator;
-        setName("PneumaticCraft Drone Area Sorting Thread");
-        start();
-    }
-
-    @Override
-    public void run() {
-        list.sort(comparator);
-        isDone = true;
-    }
+/**
+ * Fields marked with this and also @DescSynced are not polled for changes every tick. Instead, the holding block
+ * entity must call {@code markFieldDirty()} whenever the field is modified; the field will then be sync'd on the
+ * next server tick. Fields without this annotation continue to be polled as usual.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface PushSynced {
 
-    public boolean isDone() {
-        return isDone;
-    }
 }
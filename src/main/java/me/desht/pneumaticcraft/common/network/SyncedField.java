@@ -27,19 +27,28 @@ import org.apache.commons.lang3.ArrayUtils;
 
 import java.lang.reflect.Field;
 
+/**
+ * A single synced value (a field, or one element of an array field) of a syncable object. All field access goes
+ * through a shared {@link SyncedFieldAccessor}; the primitive subclasses override {@link #update()} to compare
+ * against an unboxed copy of the last value, so polling an unchanged primitive field never allocates.
+ */
 public abstract class SyncedField<T> {
-    private final Field field;
-    private final Object te;
+    final SyncedFieldAccessor accessor;
+    final Object te;
     private T lastValue;
-    private int arrayIndex = -1;
-    private boolean isLazy;
+    int arrayIndex = -1;
+    boolean isLazy;
+    private boolean isPushed;
 
-    SyncedField(Object te, Field field) {
-        this.field = field;
-        field.setAccessible(true);
+    SyncedField(Object te, SyncedFieldAccessor accessor) {
+        this.accessor = accessor;
         this.te = te;
     }
 
+    SyncedField(Object te, Field field) {
+        this(te, SyncedFieldAccessor.of(field));
+    }
+
     SyncedField<T> setArrayIndex(int arrayIndex) {
         this.arrayIndex = arrayIndex;
         return this;
@@ -50,11 +59,38 @@ public abstract class SyncedField<T> {
         return this;
     }
 
+    SyncedField<T> setPushed(boolean pushed) {
+        this.isPushed = pushed;
+        return this;
+    }
+
+    /**
+     * Check if this field is push-sync'd, i.e. it should not be polled each tick.
+     *
+     * @return true if the field's owner is responsible for marking it dirty
+     * @see PushSynced
+     */
+    public boolean isPushed() {
+        return isPushed;
+    }
+
+    /**
+     * Check if this synced field represents the named field (or an element of it, for array fields) of the given
+     * object.
+     *
+     * @param owner the object holding the field
+     * @param fieldName the field name
+     * @return true if this synced field matches
+     */
+    public boolean isFieldOf(Object owner, String fieldName) {
+        return te == owner && accessor.getName().equals(fieldName);
+    }
+
     @Override
     public String toString() {
         return arrayIndex == -1 ?
-                "[" + te + "/" + field.getName() + "=" + getValue() + "]" :
-                "[" + te + "/" + field.getName() + "[" + arrayIndex + "]=" + getValue() + "]";
+                "[" + te + "/" + accessor.getName() + "=" + getValue() + "]" :
+                "[" + te + "/" + accessor.getName() + "[" + arrayIndex + "]=" + getValue() + "]";
     }
 
     /**
@@ -65,18 +101,22 @@ public abstract class SyncedField<T> {
      */
     public boolean update() {
         try {
-            T value = arrayIndex >= 0 ? getValueForArray(field.get(te), arrayIndex) : retrieveValue(field, te);
+            T value = arrayIndex >= 0 ? getValueForArray(accessor.get(te), arrayIndex) : retrieveValue();
             if (lastValue == null && value != null || lastValue != null && !equals(lastValue, value)) {
                 lastValue = value == null ? null : copyWhenNecessary(value);
                 return !isLazy;
             }
         } catch (Throwable e) {
-            Log.error("A problem occurred when trying to sync the field of " + te.toString() + ". Field: " + field.toString());
-            e.printStackTrace();
+            logSyncError(e);
         }
         return false;
     }
 
+    void logSyncError(Throwable e) {
+        Log.error("A problem occurred when trying to sync the field of " + te.toString() + ". Field: " + accessor.toString());
+        e.printStackTrace();
+    }
+
     protected boolean equals(T oldValue, T newValue) {
         return oldValue.equals(newValue);
     }
@@ -85,13 +125,13 @@ public abstract class SyncedField<T> {
         return oldValue;
     }
 
-    protected T retrieveValue(Field field, Object te) throws Exception {
+    protected T retrieveValue() throws Throwable {
         //noinspection unchecked
-        return (T) field.get(te);
+        return (T) accessor.get(te);
     }
 
-    protected void injectValue(Field field, Object te, T value) throws Exception {
-        field.set(te, value);
+    protected void injectValue(T value) throws Throwable {
+        accessor.set(te, value);
     }
 
     protected abstract T getValueForArray(Object array, int index);
@@ -105,13 +145,12 @@ public abstract class SyncedField<T> {
     private void setValueInternal(T value) {
         try {
             if (arrayIndex >= 0) {
-                setValueForArray(field.get(te), arrayIndex, value);
+                setValueForArray(accessor.get(te), arrayIndex, value);
             } else {
-                injectValue(field, te, value);
+                injectValue(value);
             }
-        } catch (Exception e) {
-            Log.error("A problem occurred when trying to sync the field of " + te.toString() + ". Field: " + field.toString());
-            e.printStackTrace();
+        } catch (Throwable e) {
+            logSyncError(e);
         }
     }
 
@@ -121,11 +160,47 @@ public abstract class SyncedField<T> {
     }
 
     public static class SyncedInt extends SyncedField<Integer> {
+        private int lastInt;
+        private boolean hasValue;
 
         public SyncedInt(Object te, Field field) {
             super(te, field);
         }
 
+        SyncedInt(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
+        @Override
+        public boolean update() {
+            try {
+                int value = arrayIndex >= 0 ? ((int[]) accessor.get(te))[arrayIndex] : accessor.getInt(te);
+                if (!hasValue || value != lastInt) {
+                    lastInt = value;
+                    hasValue = true;
+                    return !isLazy;
+                }
+            } catch (Throwable e) {
+                logSyncError(e);
+            }
+            return false;
+        }
+
+        @Override
+        public Integer getValue() {
+            return hasValue ? lastInt : null;
+        }
+
+        @Override
+        protected Integer retrieveValue() throws Throwable {
+            return accessor.getInt(te);
+        }
+
+        @Override
+        protected void injectValue(Integer value) throws Throwable {
+            accessor.setInt(te, value);
+        }
+
         @Override
         protected Integer getValueForArray(Object array, int index) {
             return ((int[]) array)[index];
@@ -139,11 +214,48 @@ public abstract class SyncedField<T> {
     }
 
     public static class SyncedFloat extends SyncedField<Float> {
+        private float lastFloat;
+        private boolean hasValue;
 
         SyncedFloat(Object te, Field field) {
             super(te, field);
         }
 
+        SyncedFloat(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
+        @Override
+        public boolean update() {
+            try {
+                float value = arrayIndex >= 0 ? ((float[]) accessor.get(te))[arrayIndex] : accessor.getFloat(te);
+                // compare bit patterns, to match Float#equals() semantics
+                if (!hasValue || Float.floatToIntBits(value) != Float.floatToIntBits(lastFloat)) {
+                    lastFloat = value;
+                    hasValue = true;
+                    return !isLazy;
+                }
+            } catch (Throwable e) {
+                logSyncError(e);
+            }
+            return false;
+        }
+
+        @Override
+        public Float getValue() {
+            return hasValue ? lastFloat : null;
+        }
+
+        @Override
+        protected Float retrieveValue() throws Throwable {
+            return accessor.getFloat(te);
+        }
+
+        @Override
+        protected void injectValue(Float value) throws Throwable {
+            accessor.setFloat(te, value);
+        }
+
         @Override
         protected Float getValueForArray(Object array, int index) {
             return ((float[]) array)[index];
@@ -157,11 +269,48 @@ public abstract class SyncedField<T> {
     }
 
     public static class SyncedDouble extends SyncedField<Double> {
+        private double lastDouble;
+        private boolean hasValue;
 
         SyncedDouble(Object te, Field field) {
             super(te, field);
         }
 
+        SyncedDouble(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
+        @Override
+        public boolean update() {
+            try {
+                double value = arrayIndex >= 0 ? ((double[]) accessor.get(te))[arrayIndex] : accessor.getDouble(te);
+                // compare bit patterns, to match Double#equals() semantics
+                if (!hasValue || Double.doubleToLongBits(value) != Double.doubleToLongBits(lastDouble)) {
+                    lastDouble = value;
+                    hasValue = true;
+                    return !isLazy;
+                }
+            } catch (Throwable e) {
+                logSyncError(e);
+            }
+            return false;
+        }
+
+        @Override
+        public Double getValue() {
+            return hasValue ? lastDouble : null;
+        }
+
+        @Override
+        protected Double retrieveValue() throws Throwable {
+            return accessor.getDouble(te);
+        }
+
+        @Override
+        protected void injectValue(Double value) throws Throwable {
+            accessor.setDouble(te, value);
+        }
+
         @Override
         protected Double getValueForArray(Object array, int index) {
             return ((double[]) array)[index];
@@ -175,11 +324,47 @@ public abstract class SyncedField<T> {
     }
 
     public static class SyncedBoolean extends SyncedField<Boolean> {
+        private boolean lastBoolean;
+        private boolean hasValue;
 
         SyncedBoolean(Object te, Field field) {
             super(te, field);
         }
 
+        SyncedBoolean(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
+        @Override
+        public boolean update() {
+            try {
+                boolean value = arrayIndex >= 0 ? ((boolean[]) accessor.get(te))[arrayIndex] : accessor.getBoolean(te);
+                if (!hasValue || value != lastBoolean) {
+                    lastBoolean = value;
+                    hasValue = true;
+                    return !isLazy;
+                }
+            } catch (Throwable e) {
+                logSyncError(e);
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean getValue() {
+            return hasValue ? lastBoolean : null;
+        }
+
+        @Override
+        protected Boolean retrieveValue() throws Throwable {
+            return accessor.getBoolean(te);
+        }
+
+        @Override
+        protected void injectValue(Boolean value) throws Throwable {
+            accessor.setBoolean(te, value);
+        }
+
         @Override
         protected Boolean getValueForArray(Object array, int index) {
             return ((boolean[]) array)[index];
@@ -198,6 +383,10 @@ public abstract class SyncedField<T> {
             super(te, field);
         }
 
+        SyncedString(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
         @Override
         protected String getValueForArray(Object array, int index) {
             return ((String[]) array)[index];
@@ -219,6 +408,10 @@ public abstract class SyncedField<T> {
             super(te, field);
         }
 
+        SyncedEnum(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
         @Override
         protected Byte getValueForArray(Object array, int index) {
             return ((byte[]) array)[index];
@@ -230,19 +423,19 @@ public abstract class SyncedField<T> {
         }
 
         @Override
-        protected Byte retrieveValue(Field field, Object te) throws Exception {
-            Object[] enumTypes = field.getType().getEnumConstants();
+        protected Byte retrieveValue() throws Throwable {
             // this will be INDEX_NOT_FOUND if the enum field is null, which we can check for in injectValue()
-            return (byte) ArrayUtils.indexOf(enumTypes, field.get(te));
+            // (Byte.valueOf() is cached for the whole byte range, so this doesn't allocate)
+            Object value = accessor.get(te);
+            return (byte) (value == null ? ArrayUtils.INDEX_NOT_FOUND : ((Enum<?>) value).ordinal());
         }
 
         @Override
-        protected void injectValue(Field field, Object te, Byte value) throws Exception {
+        protected void injectValue(Byte value) throws Throwable {
             if (value == ArrayUtils.INDEX_NOT_FOUND) {
-                field.set(te, null);
+                accessor.set(te, null);
             } else {
-                Object enumType = field.getType().getEnumConstants()[value];
-                field.set(te, enumType);
+                accessor.set(te, accessor.getEnumConstants()[value]);
             }
         }
 
@@ -254,6 +447,10 @@ public abstract class SyncedField<T> {
             super(te, field);
         }
 
+        SyncedItemStack(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
         @Override
         protected ItemStack getValueForArray(Object array, int index) {
             return ((ItemStack[]) array)[index];
@@ -270,6 +467,10 @@ public abstract class SyncedField<T> {
             super(te, field);
         }
 
+        SyncedFluidStack(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
         @Override
         protected FluidStack getValueForArray(Object array, int index) {
             return ((FluidStack[]) array)[index];
@@ -292,9 +493,13 @@ public abstract class SyncedField<T> {
             super(te, field);
         }
 
+        SyncedItemHandler(Object te, SyncedFieldAccessor accessor) {
+            super(te, accessor);
+        }
+
         @Override
-        protected ItemStackHandler getValueForArray(Object array, int index) {
-            return ((ItemStackHandler[]) array)[index];
+        protected IItemHandlerModifiable getValueForArray(Object array, int index) {
+            return ((IItemHandlerModifiable[]) array)[index];
         }
 
         @Override
@@ -303,13 +508,13 @@ public abstract class SyncedField<T> {
         }
 
         @Override
-        protected IItemHandlerModifiable retrieveValue(Field field, Object te) throws Exception {
-            return (IItemHandlerModifiable) field.get(te);
+        protected IItemHandlerModifiable retrieveValue() throws Throwable {
+            return (IItemHandlerModifiable) accessor.get(te);
         }
 
         @Override
-        protected void injectValue(Field field, Object te, IItemHandlerModifiable value) throws Exception {
-            IItemHandlerModifiable handler = (IItemHandlerModifiable) field.get(te);
+        protected void injectValue(IItemHandlerModifiable value) throws Throwable {
+            IItemHandlerModifiable handler = (IItemHandlerModifiable) accessor.get(te);
             for (int i = 0; i < value.getSlots(); i++) {
                 handler.setStackInSlot(i, value.getStackInSlot(i));
             }
@@ -0,0 +1,143 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.network;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled accessor for a single synced field. Built once per {@link Field} (i.e. once per class, not per object)
+ * and shared by every {@link SyncedField} which reads or writes that field. Getters and setters are method handles
+ * whose receiver type has been erased to {@code Object}, so they can be called with {@code invokeExact()} and
+ * primitive fields are read and written without boxing.
+ */
+public final class SyncedFieldAccessor {
+    private static final Map<Field, SyncedFieldAccessor> CACHE = new ConcurrentHashMap<>();
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;  // null if the field can't be written (e.g. a final field on a record)
+    private final Object[] enumConstants;
+
+    private SyncedFieldAccessor(Field field) {
+        this.field = field;
+        field.setAccessible(true);
+
+        Class<?> type = field.getType();
+        Class<?> erasedType = type.isPrimitive() ? type : Object.class;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(erasedType, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can't access synced field " + field, e);
+        }
+        MethodHandle s;
+        try {
+            s = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, erasedType));
+        } catch (IllegalAccessException e) {
+            s = null;
+        }
+        this.setter = s;
+        this.enumConstants = type.isEnum() ? type.getEnumConstants() : null;
+    }
+
+    /**
+     * Get the (shared) accessor for the given field.
+     *
+     * @param field the field
+     * @return the accessor
+     */
+    public static SyncedFieldAccessor of(Field field) {
+        return CACHE.computeIfAbsent(field, SyncedFieldAccessor::new);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * Get the enum constants for an enum-typed field. This array is shared and must not be modified.
+     *
+     * @return the enum constants, or null if this isn't an enum field
+     */
+    Object[] getEnumConstants() {
+        return enumConstants;
+    }
+
+    public Object get(Object target) throws Throwable {
+        return (Object) getter.invokeExact(target);
+    }
+
+    public int getInt(Object target) throws Throwable {
+        return (int) getter.invokeExact(target);
+    }
+
+    public float getFloat(Object target) throws Throwable {
+        return (float) getter.invokeExact(target);
+    }
+
+    public double getDouble(Object target) throws Throwable {
+        return (double) getter.invokeExact(target);
+    }
+
+    public boolean getBoolean(Object target) throws Throwable {
+        return (boolean) getter.invokeExact(target);
+    }
+
+    public void set(Object target, Object value) throws Throwable {
+        checkWritable().invokeExact(target, value);
+    }
+
+    public void setInt(Object target, int value) throws Throwable {
+        checkWritable().invokeExact(target, value);
+    }
+
+    public void setFloat(Object target, float value) throws Throwable {
+        checkWritable().invokeExact(target, value);
+    }
+
+    public void setDouble(Object target, double value) throws Throwable {
+        checkWritable().invokeExact(target, value);
+    }
+
+    public void setBoolean(Object target, boolean value) throws Throwable {
+        checkWritable().invokeExact(target, value);
+    }
+
+    private MethodHandle checkWritable() {
+        if (setter == null) throw new IllegalStateException("synced field " + field + " is not writable!");
+        return setter;
+    }
+
+    @Override
+    public String toString() {
+        return field.toString();
+    }
+}
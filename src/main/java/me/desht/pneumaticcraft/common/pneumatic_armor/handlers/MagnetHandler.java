@@ -25,16 +25,17 @@ import me.desht.pneumaticcraft.api.upgrade.PNCUpgrade;
 import me.desht.pneumaticcraft.common.config.ConfigHelper;
 import me.desht.pneumaticcraft.common.item.ItemRegistry;
 import me.desht.pneumaticcraft.common.upgrades.ModUpgrades;
+import me.desht.pneumaticcraft.common.util.PickupEntityIndex;
 import me.desht.pneumaticcraft.lib.PneumaticValues;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EquipmentSlot;
-import net.minecraft.world.entity.ExperienceOrb;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static me.desht.pneumaticcraft.api.PneumaticRegistry.RL;
@@ -42,6 +43,8 @@ import static me.desht.pneumaticcraft.api.PneumaticRegistry.RL;
 public class MagnetHandler extends BaseArmorUpgradeHandler<IArmorExtensionData> {
     private static final ResourceLocation ID = RL("magnet");
 
+    private final List<Entity> scratch = new ArrayList<>();
+
     @Override
     public ResourceLocation getID() {
         return ID;
@@ -81,8 +84,8 @@ public class MagnetHandler extends BaseArmorUpgradeHandler<IArmorExtensionData>
         int magnetRadiusSq = magnetRadius * magnetRadius;
 
         AABB box = new AABB(player.blockPosition()).inflate(magnetRadius);
-        List<Entity> itemList = player.getCommandSenderWorld().getEntitiesOfClass(Entity.class, box,
-                e -> (e instanceof ExperienceOrb || e instanceof ItemEntity) && e.isAlive());
+        scratch.clear();
+        List<Entity> itemList = PickupEntityIndex.getEntities(player.level(), box, scratch);
 
         Vec3 playerVec = player.position();
         for (Entity item : itemList) {
@@ -97,5 +100,6 @@ public class MagnetHandler extends BaseArmorUpgradeHandler<IArmorExtensionData>
                 commonArmorHandler.addAir(EquipmentSlot.CHEST, -ConfigHelper.common().armor.magnetAirUsage.get());
             }
         }
+        scratch.clear();
     }
 }
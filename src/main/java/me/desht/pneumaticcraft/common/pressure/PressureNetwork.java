@@ -0,0 +1,197 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.pressure;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.desht.pneumaticcraft.api.tileentity.IAirHandlerMachine;
+import me.desht.pneumaticcraft.common.block.entity.PressureTubeBlockEntity;
+import me.desht.pneumaticcraft.common.config.ConfigHelper;
+import me.desht.pneumaticcraft.common.util.DirectionUtil;
+import net.minecraft.core.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A contiguous run of plain (module-less) pressure tubes which is treated as a single volume of air, enabled by the
+ * {@code pressure_networks} advanced config setting. Once per tick, the network disperses air from its pooled volume
+ * to any lower-pressure handlers connected to its edge tubes, and then shares the pooled air out among its tubes in
+ * proportion to their volume, so air crosses the whole run in a single tick instead of one tube per tick.
+ * <p>
+ * Each tube still holds its own air (so saving, manometer readings, leaks and overpressure checks all work on the
+ * tube as before); only the tube's own neighbour dispersal is skipped while it's in a network.
+ * <p>
+ * Networks are joined union-find style: a tube joining next to one or more networks merges them, the smaller network
+ * being absorbed into the larger. Splitting is done by dissolving the whole network when a tube leaves it; the
+ * remaining tubes then rejoin (and re-merge) as they next tick.
+ */
+public class PressureNetwork {
+    private final List<PressureTubeBlockEntity> members = new ArrayList<>();
+
+    // connections from edge tubes to handlers outside the network (direction is null for non-adjacent connections)
+    private final List<PressureTubeBlockEntity> edgeTubes = new ArrayList<>();
+    private final List<Direction> edgeDirs = new ArrayList<>();
+    private final List<IAirHandlerMachine> edgeHandlers = new ArrayList<>();
+    private boolean edgesDirty = true;
+
+    private final IntArrayList toDisperse = new IntArrayList();
+    private long lastTick = -1L;
+
+    public static boolean isEnabled() {
+        return ConfigHelper.common().advanced.pressureNetworks.get();
+    }
+
+    /**
+     * Add a tube to the network of its connected neighbour tubes, merging those networks if there are several, or
+     * create a new network for the tube if it has no networked neighbours.
+     *
+     * @param tube the tube, which must not currently be in a network
+     */
+    public static void join(PressureTubeBlockEntity tube) {
+        PressureNetwork network = null;
+        for (Direction dir : DirectionUtil.VALUES) {
+            if (tube.getConnectedNeighbor(dir) instanceof PressureTubeBlockEntity neighbour && neighbour.getPressureNetwork() != null) {
+                network = network == null ? neighbour.getPressureNetwork() : merge(network, neighbour.getPressureNetwork());
+            }
+        }
+        if (network == null) network = new PressureNetwork();
+        network.add(tube);
+    }
+
+    private static PressureNetwork merge(PressureNetwork n1, PressureNetwork n2) {
+        if (n1 == n2) return n1;
+
+        PressureNetwork larger = n1.members.size() >= n2.members.size() ? n1 : n2;
+        PressureNetwork smaller = larger == n1 ? n2 : n1;
+        smaller.members.forEach(larger::add);
+        smaller.members.clear();
+        return larger;
+    }
+
+    private void add(PressureTubeBlockEntity tube) {
+        members.add(tube);
+        tube.setPressureNetwork(this);
+        edgesDirty = true;
+    }
+
+    /**
+     * Break up this network, e.g. because a tube has been removed or can no longer be part of it. The remaining
+     * tubes keep their own air, and will form new networks when they next tick.
+     */
+    public void dissolve() {
+        members.forEach(tube -> tube.setPressureNetwork(null));
+        members.clear();
+        edgeTubes.clear();
+        edgeDirs.clear();
+        edgeHandlers.clear();
+    }
+
+    /**
+     * Called when the connections of a member tube to things outside the network may have changed.
+     */
+    public void markEdgesDirty() {
+        edgesDirty = true;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Called by each member tube every tick, before it ticks its air handler; does the network's work once per tick.
+     *
+     * @param gameTime the current game time
+     */
+    public void tick(long gameTime) {
+        if (gameTime == lastTick || members.isEmpty()) return;
+        lastTick = gameTime;
+
+        if (edgesDirty) {
+            findEdges();
+        }
+
+        long totalAir = 0L;
+        long totalVolume = 0L;
+        for (PressureTubeBlockEntity tube : members) {
+            IAirHandlerMachine handler = tube.getAirHandler();
+            totalAir += handler.getAir();
+            totalVolume += handler.getVolume();
+        }
+
+        totalAir -= disperseToEdges(totalAir, totalVolume);
+
+        // share out the pooled air in proportion to tube volume; any rounding remainder goes to the first tube
+        long remaining = totalAir;
+        for (int i = members.size() - 1; i >= 0; i--) {
+            IAirHandlerMachine handler = members.get(i).getAirHandler();
+            int air = i == 0 ? (int) remaining : (int) (totalAir * handler.getVolume() / totalVolume);
+            remaining -= air;
+            handler.addAir(air - handler.getAir());
+        }
+    }
+
+    private int disperseToEdges(long poolAir, long poolVolume) {
+        // the same calculation as MachineAirHandler's dispersal, with the whole network as the dispersing handler
+        float poolPressure = (float) poolAir / poolVolume;
+        long totalAir = poolAir;
+        long totalVolume = poolVolume;
+        toDisperse.clear();
+        for (int i = 0; i < edgeHandlers.size(); i++) {
+            IAirHandlerMachine handler = edgeHandlers.get(i);
+            if (handler.getPressure() < poolPressure) {
+                toDisperse.add(i);
+                totalAir += handler.getAir();
+                totalVolume += handler.getVolume();
+            }
+        }
+
+        int dispersed = 0;
+        for (int n = 0; n < toDisperse.size(); n++) {
+            int i = toDisperse.getInt(n);
+            PressureTubeBlockEntity tube = edgeTubes.get(i);
+            IAirHandlerMachine handler = edgeHandlers.get(i);
+            int totalMachineAir = (int) (totalAir * handler.getVolume() / totalVolume);
+            int maxDispersion = tube.getMaxDispersion(tube.getAirHandler(), edgeDirs.get(i));
+            int air = Math.min(maxDispersion, Math.max(0, totalMachineAir - handler.getAir()));  // no backflow
+            if (air != 0) {
+                tube.onAirDispersion(tube.getAirHandler(), edgeDirs.get(i), air);
+                handler.addAir(air);
+                dispersed += air;
+            }
+        }
+        return dispersed;
+    }
+
+    private void findEdges() {
+        edgeTubes.clear();
+        edgeDirs.clear();
+        edgeHandlers.clear();
+        for (PressureTubeBlockEntity tube : members) {
+            for (IAirHandlerMachine.Connection conn : tube.getAirHandler().getConnectedAirHandlers(tube)) {
+                Direction dir = conn.getDirection();
+                if (dir != null && tube.getCachedNeighbor(dir) instanceof PressureTubeBlockEntity neighbour && neighbour.getPressureNetwork() == this) {
+                    continue;
+                }
+                edgeTubes.add(tube);
+                edgeDirs.add(dir);
+                edgeHandlers.add(conn.getAirHandler());
+            }
+        }
+        edgesDirty = false;
+    }
+}
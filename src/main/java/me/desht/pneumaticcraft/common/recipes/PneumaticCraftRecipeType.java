@@ -20,6 +20,7 @@ package me.desht.pneumaticcraft.common.recipes;
 import me.desht.pneumaticcraft.api.crafting.recipe.AssemblyRecipe;
 import me.desht.pneumaticcraft.api.crafting.recipe.FluidMixerRecipe;
 import me.desht.pneumaticcraft.api.crafting.recipe.PneumaticCraftRecipe;
+import me.desht.pneumaticcraft.api.crafting.recipe.PressureChamberRecipe;
 import me.desht.pneumaticcraft.common.amadron.AmadronOfferManager;
 import me.desht.pneumaticcraft.common.block.entity.FluidMixerBlockEntity;
 import me.desht.pneumaticcraft.common.block.entity.PressureChamberInterfaceBlockEntity;
@@ -31,6 +32,7 @@ import me.desht.pneumaticcraft.common.network.NetworkHandler;
 import me.desht.pneumaticcraft.common.network.PacketClearRecipeCache;
 import me.desht.pneumaticcraft.common.recipes.machine.AssemblyRecipeImpl;
 import me.desht.pneumaticcraft.common.recipes.machine.HeatFrameCoolingRecipeImpl;
+import me.desht.pneumaticcraft.common.recipes.machine.PressureChamberRecipeIndex;
 import me.desht.pneumaticcraft.lib.Log;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
@@ -93,6 +95,9 @@ public class PneumaticCraftRecipeType<T extends PneumaticCraftRecipe> implements
             } else if (this == ModRecipeTypes.FLUID_MIXER.get()) {
                 List<FluidMixerRecipe> l = recipes.stream().filter(r -> r instanceof FluidMixerRecipe).map(r -> (FluidMixerRecipe)r).toList();
                 FluidMixerBlockEntity.cacheRecipeFluids(l);
+            } else if (this == ModRecipeTypes.PRESSURE_CHAMBER.get()) {
+                List<PressureChamberRecipe> l = cachedRecipes.values().stream().filter(r -> r instanceof PressureChamberRecipe).map(r -> (PressureChamberRecipe)r).toList();
+                PressureChamberRecipeIndex.cacheRecipes(l);
             }
         }
 
@@ -128,6 +133,7 @@ public class PneumaticCraftRecipeType<T extends PneumaticCraftRecipe> implements
 
         HeatFrameCoolingRecipeImpl.cacheMaxThresholdTemp(Collections.emptyList());  // clear the cached temp
         FluidMixerBlockEntity.clearCachedFluids();
+        PressureChamberRecipeIndex.clear();
         PressureChamberInterfaceBlockEntity.clearCachedItems();
         ThermopneumaticProcessingPlantBlockEntity.clearCachedItemsAndFluids();
         AmadronOfferManager.getInstance().rebuildRequired();
@@ -0,0 +1,174 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.recipes.machine;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import me.desht.pneumaticcraft.api.crafting.ingredient.NoNBTIngredient;
+import me.desht.pneumaticcraft.api.crafting.ingredient.StackedIngredient;
+import me.desht.pneumaticcraft.api.crafting.recipe.PressureChamberRecipe;
+import me.desht.pneumaticcraft.common.core.ModRecipeTypes;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.common.crafting.CompoundIngredient;
+import net.minecraftforge.common.crafting.PartialNBTIngredient;
+import net.minecraftforge.common.crafting.StrictNBTIngredient;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.*;
+
+/**
+ * Index of Pressure Chamber recipes by the items their ingredients can match, so that the chamber only needs to call
+ * {@link PressureChamberRecipe#findIngredients(IItemHandler)} on recipes which could possibly be satisfied by what's
+ * in the chamber.
+ * <p>
+ * Matching is by item only (tags are resolved to their items when the index is built, and NBT is ignored), so the
+ * index only ever narrows the candidate list; {@code findIngredients()} still does the real check. Recipes with any
+ * ingredient whose matching items can't be enumerated up front (e.g. fluid container ingredients, or non-standard
+ * recipes like pressure enchanting) are always returned as candidates.
+ * <p>
+ * Built when {@link me.desht.pneumaticcraft.common.recipes.PneumaticCraftRecipeType} caches the Pressure Chamber
+ * recipes and dropped whenever the recipe caches are cleared (i.e. on datapack and tag reload).
+ */
+public class PressureChamberRecipeIndex {
+    private static PressureChamberRecipeIndex instance;
+
+    private final List<PressureChamberRecipe> recipes;
+    private final Map<Item, IntList> itemToRecipes = new Reference2ObjectOpenHashMap<>();
+    // per recipe: the set of items matched by each ingredient; null for unindexed recipes
+    private final List<List<Set<Item>>> ingredientItems = new ArrayList<>();
+    private final IntList unindexed = new IntArrayList();
+
+    private PressureChamberRecipeIndex(Collection<PressureChamberRecipe> recipes) {
+        this.recipes = List.copyOf(recipes);
+
+        for (int idx = 0; idx < this.recipes.size(); idx++) {
+            List<Set<Item>> perIngredient = getIngredientItems(this.recipes.get(idx));
+            ingredientItems.add(perIngredient);
+            if (perIngredient == null) {
+                unindexed.add(idx);
+            } else {
+                Set<Item> allItems = new ReferenceOpenHashSet<>();
+                perIngredient.forEach(allItems::addAll);
+                for (Item item : allItems) {
+                    itemToRecipes.computeIfAbsent(item, k -> new IntArrayList()).add(idx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called from {@link me.desht.pneumaticcraft.common.recipes.PneumaticCraftRecipeType} when Pressure Chamber
+     * recipes are (re)cached.
+     *
+     * @param recipes all known Pressure Chamber recipes
+     */
+    public static void cacheRecipes(Collection<PressureChamberRecipe> recipes) {
+        instance = new PressureChamberRecipeIndex(recipes);
+    }
+
+    public static void clear() {
+        instance = null;
+    }
+
+    /**
+     * Get the recipes which might be craftable from the items in the given handler, in recipe cache order. Every
+     * recipe which could return a non-empty list from {@code findIngredients()} is included.
+     *
+     * @param level the level, used to (re)build the recipe cache if necessary
+     * @param handler the items currently in the chamber
+     * @return a list of candidate recipes
+     */
+    public static List<PressureChamberRecipe> getCandidateRecipes(Level level, IItemHandler handler) {
+        if (instance == null) {
+            ModRecipeTypes.PRESSURE_CHAMBER.get().getRecipes(level);  // builds the index as a side effect
+            if (instance == null) {
+                // no recipes at all (or no level to load them from)
+                return Collections.emptyList();
+            }
+        }
+        return instance.findCandidates(handler);
+    }
+
+    private List<PressureChamberRecipe> findCandidates(IItemHandler handler) {
+        Set<Item> present = new ReferenceOpenHashSet<>();
+        for (int i = 0; i < handler.getSlots(); i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (!stack.isEmpty()) present.add(stack.getItem());
+        }
+        if (present.isEmpty()) return Collections.emptyList();
+
+        BitSet candidates = new BitSet(recipes.size());
+        for (Item item : present) {
+            IntList l = itemToRecipes.get(item);
+            if (l != null) l.forEach(candidates::set);
+        }
+        unindexed.forEach(candidates::set);
+
+        List<PressureChamberRecipe> res = new ArrayList<>();
+        for (int idx = candidates.nextSetBit(0); idx >= 0; idx = candidates.nextSetBit(idx + 1)) {
+            List<Set<Item>> perIngredient = ingredientItems.get(idx);
+            if (perIngredient == null || allIngredientsPresent(perIngredient, present)) {
+                res.add(recipes.get(idx));
+            }
+        }
+        return res;
+    }
+
+    private static boolean allIngredientsPresent(List<Set<Item>> perIngredient, Set<Item> present) {
+        for (Set<Item> items : perIngredient) {
+            if (Collections.disjoint(items, present)) return false;
+        }
+        return true;
+    }
+
+    private static List<Set<Item>> getIngredientItems(PressureChamberRecipe recipe) {
+        if (!(recipe instanceof PressureChamberRecipeImpl)) return null;
+
+        List<Set<Item>> res = new ArrayList<>();
+        for (Ingredient ingredient : recipe.getInputsForDisplay()) {
+            if (!isItemBounded(ingredient)) return null;
+            Set<Item> items = new ReferenceOpenHashSet<>();
+            for (ItemStack stack : ingredient.getItems()) {
+                items.add(stack.getItem());
+            }
+            res.add(items);
+        }
+        return res;
+    }
+
+    /**
+     * Check if an ingredient can only ever match the items returned by its {@link Ingredient#getItems()} method,
+     * which is what makes it safe to index.
+     */
+    private static boolean isItemBounded(Ingredient ingredient) {
+        if (ingredient.getClass() == Ingredient.class || ingredient instanceof StackedIngredient
+                || ingredient instanceof NoNBTIngredient || ingredient instanceof StrictNBTIngredient
+                || ingredient instanceof PartialNBTIngredient) {
+            return true;
+        }
+        if (ingredient instanceof CompoundIngredient compound) {
+            return compound.getChildren().stream().allMatch(PressureChamberRecipeIndex::isItemBounded);
+        }
+        return false;
+    }
+}
@@ -213,6 +213,16 @@ public class SensorHandler implements ISensorRegistry {
             return coordinateSensor.getRedstonePulseLength();
         }
 
+        @Override
+        public Set<Class<? extends Event>> getEventTypes() {
+            return coordinateSensor.getEventTypes();
+        }
+
+        @Override
+        public boolean isRangeLimited() {
+            return coordinateSensor.isRangeLimited();
+        }
+
         @Override
         public void getAdditionalInfo(List<Component> info) {
             coordinateSensor.getAdditionalInfo(info);
@@ -0,0 +1,123 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.sensor;
+
+import me.desht.pneumaticcraft.api.universal_sensor.IEventSensorSetting;
+import me.desht.pneumaticcraft.api.universal_sensor.ISensorSetting;
+import me.desht.pneumaticcraft.common.block.entity.UniversalSensorBlockEntity;
+import me.desht.pneumaticcraft.common.util.BlockEntitySpatialIndex;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.phys.AABB;
+import net.minecraftforge.eventbus.api.Event;
+
+import java.util.*;
+
+/**
+ * Routes Forge events to only those Universal Sensors which are configured with an event sensor for that event type.
+ * Sensors whose event sensor is {@link IEventSensorSetting#isRangeLimited() range-limited} are additionally bucketed
+ * by chunk, so they're only offered events which happen near them.
+ * <p>
+ * Sensors must call {@link #update(UniversalSensorBlockEntity)} whenever their sensor setting or range changes.
+ */
+public class UniversalSensorEventRegistry {
+    // a little slack to allow for the sensors' own (slightly generous) range checks
+    private static final int RANGE_MARGIN = 2;
+
+    private final Map<Class<? extends Event>, Set<UniversalSensorBlockEntity>> unranged = new HashMap<>();
+    private final Map<Class<? extends Event>, BlockEntitySpatialIndex<UniversalSensorBlockEntity>> ranged = new HashMap<>();
+    private final Map<UniversalSensorBlockEntity, Registration> registrations = new HashMap<>();
+
+    /**
+     * (Re-)register a sensor, based on its current sensor setting and range.
+     *
+     * @param te the sensor
+     */
+    public void update(UniversalSensorBlockEntity te) {
+        remove(te);
+
+        if (te.getLevel() == null || te.isRemoved()) return;
+        ISensorSetting sensor = SensorHandler.getInstance().getSensorFromPath(te.getSensorSetting());
+        if (sensor instanceof IEventSensorSetting eventSensor) {
+            Set<Class<? extends Event>> types = eventSensor.getEventTypes();
+            boolean rangeLimited = eventSensor.isRangeLimited();
+            for (Class<? extends Event> type : types) {
+                if (rangeLimited) {
+                    ranged.computeIfAbsent(type, k -> new BlockEntitySpatialIndex<>())
+                            .update(te, new AABB(te.getBlockPos()).inflate(te.getRange() + RANGE_MARGIN));
+                } else {
+                    unranged.computeIfAbsent(type, k -> new HashSet<>()).add(te);
+                }
+            }
+            registrations.put(te, new Registration(types, rangeLimited));
+        }
+    }
+
+    public void remove(UniversalSensorBlockEntity te) {
+        Registration reg = registrations.remove(te);
+        if (reg != null) {
+            for (Class<? extends Event> type : reg.types()) {
+                if (reg.rangeLimited()) {
+                    BlockEntitySpatialIndex<UniversalSensorBlockEntity> index = ranged.get(type);
+                    if (index != null) index.remove(te);
+                } else {
+                    Set<UniversalSensorBlockEntity> set = unranged.get(type);
+                    if (set != null) set.remove(te);
+                }
+            }
+        }
+    }
+
+    public void removeFromWorld(LevelAccessor level) {
+        ranged.values().forEach(index -> index.removeFromWorld(level));
+        unranged.values().forEach(set -> set.removeIf(te -> te.getLevel() == level));
+        registrations.keySet().removeIf(te -> te.getLevel() == level);
+    }
+
+    /**
+     * Get the sensors which should be offered the given event. The returned collection is a snapshot, so it's safe
+     * for sensors to be added or removed while it's being iterated.
+     *
+     * @param level the level in which the event occurred
+     * @param event the event
+     * @param eventPos where the event occurred
+     * @return the sensors to notify
+     */
+    public Collection<UniversalSensorBlockEntity> getSensorsForEvent(Level level, Event event, BlockPos eventPos) {
+        if (registrations.isEmpty()) return Collections.emptyList();
+
+        Set<UniversalSensorBlockEntity> result = new LinkedHashSet<>();
+        unranged.forEach((type, sensors) -> {
+            if (type.isInstance(event)) {
+                for (UniversalSensorBlockEntity te : sensors) {
+                    if (te.getLevel() == level) result.add(te);
+                }
+            }
+        });
+        ranged.forEach((type, index) -> {
+            if (type.isInstance(event)) {
+                result.addAll(index.getCandidates(level, eventPos));
+            }
+        });
+        return result;
+    }
+
+    private record Registration(Set<Class<? extends Event>> types, boolean rangeLimited) {
+    }
+}
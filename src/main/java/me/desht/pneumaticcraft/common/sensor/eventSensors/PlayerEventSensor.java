@@ -61,4 +61,9 @@ abstract class PlayerEventSensor implements IEventSensorSetting {
         return 5;
     }
 
+    @Override
+    public boolean isRangeLimited() {
+        return true;
+    }
+
 }
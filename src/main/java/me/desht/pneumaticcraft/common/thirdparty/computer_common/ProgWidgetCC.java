@@ -19,9 +19,12 @@ package me.desht.pneumaticcraft.common.thirdparty.computer_common;
 
 import com.google.common.collect.ImmutableList;
 import me.desht.pneumaticcraft.api.drone.ProgWidgetType;
+import me.desht.pneumaticcraft.common.config.ConfigHelper;
 import me.desht.pneumaticcraft.common.core.ModProgWidgets;
 import me.desht.pneumaticcraft.common.drone.IDroneBase;
 import me.desht.pneumaticcraft.common.drone.progwidgets.*;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.AreaShape;
+import me.desht.pneumaticcraft.common.drone.progwidgets.area.CompiledArea;
 import me.desht.pneumaticcraft.common.entity.drone.DroneEntity;
 import me.desht.pneumaticcraft.common.recipes.RecipeCache;
 import me.desht.pneumaticcraft.common.thirdparty.ThirdPartyManager;
@@ -169,6 +172,12 @@ public class ProgWidgetCC extends ProgWidgetInventoryBase implements IBlockOrder
         area.addAll(this.area);
     }
 
+    @Override
+    protected synchronized CompiledArea compileArea() {
+        return new CompiledArea(area.stream().map(AreaShape::ofBlock).toList(), List.of(),
+                ConfigHelper.common().general.maxProgrammingArea.get());
+    }
+
     private Set<BlockPos> getArea(int x1, int y1, int z1, int x2, int y2, int z2, String areaType) throws IllegalArgumentException {
         EnumOldAreaType type = EnumOldAreaType.byName(areaType);
         if (type == null) {
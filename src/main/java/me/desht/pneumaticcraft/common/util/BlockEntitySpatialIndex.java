@@ -0,0 +1,130 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.phys.AABB;
+
+import java.util.*;
+
+/**
+ * Per-dimension spatial index of block entities which affect an area of the world (e.g. Security Station coverage).
+ * Each block entity is registered in every chunk column which its area overlaps, so looking up the block entities
+ * which might affect a given position is a single hash lookup, and the candidate list contains only block entities
+ * whose area overlaps that position's chunk.
+ * <p>
+ * Callers are responsible for keeping registrations up to date (typically from {@code clearRemoved()},
+ * {@code setRemoved()} and whenever the affected area changes), and for doing an exact area test on the candidates.
+ *
+ * @param <T> the block entity type
+ */
+public class BlockEntitySpatialIndex<T extends BlockEntity> {
+    private final Map<ResourceKey<Level>, Long2ObjectMap<List<T>>> byDimension = new HashMap<>();
+    private final Map<T, Registration> registrations = new HashMap<>();
+
+    /**
+     * Add a block entity to the index, or update its area if it's already present.
+     *
+     * @param te the block entity, which must have a level
+     * @param area the area (in block coordinates) which the block entity affects
+     */
+    public void update(T te, AABB area) {
+        remove(te);
+
+        Level level = Objects.requireNonNull(te.getLevel());
+        Long2ObjectMap<List<T>> chunkMap = byDimension.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+        int minCX = SectionPos.blockToSectionCoord(Mth.floor(area.minX));
+        int maxCX = SectionPos.blockToSectionCoord(Mth.floor(area.maxX));
+        int minCZ = SectionPos.blockToSectionCoord(Mth.floor(area.minZ));
+        int maxCZ = SectionPos.blockToSectionCoord(Mth.floor(area.maxZ));
+        long[] keys = new long[(maxCX - minCX + 1) * (maxCZ - minCZ + 1)];
+        int n = 0;
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cz = minCZ; cz <= maxCZ; cz++) {
+                long key = ChunkPos.asLong(cx, cz);
+                chunkMap.computeIfAbsent(key, k -> new ArrayList<>()).add(te);
+                keys[n++] = key;
+            }
+        }
+        registrations.put(te, new Registration(level.dimension(), keys));
+    }
+
+    /**
+     * Remove a block entity from the index. It's safe to call this for a block entity which isn't indexed.
+     *
+     * @param te the block entity
+     */
+    public void remove(T te) {
+        Registration reg = registrations.remove(te);
+        if (reg != null) {
+            Long2ObjectMap<List<T>> chunkMap = byDimension.get(reg.dimension());
+            if (chunkMap != null) {
+                for (long key : reg.chunkKeys()) {
+                    List<T> l = chunkMap.get(key);
+                    if (l != null) {
+                        l.remove(te);
+                        if (l.isEmpty()) chunkMap.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all block entities in the given level, e.g. when it's unloaded.
+     *
+     * @param level the level
+     */
+    public void removeFromWorld(LevelAccessor level) {
+        if (level instanceof Level l) {
+            byDimension.remove(l.dimension());
+            registrations.values().removeIf(reg -> reg.dimension().equals(l.dimension()));
+        }
+    }
+
+    /**
+     * Get the block entities whose registered area overlaps the chunk column containing the given position. The
+     * returned list is owned by the index and must not be modified or retained.
+     *
+     * @param level the level
+     * @param pos the position to check
+     * @return a (possibly empty) list of candidate block entities
+     */
+    public List<T> getCandidates(Level level, BlockPos pos) {
+        Long2ObjectMap<List<T>> chunkMap = byDimension.get(level.dimension());
+        if (chunkMap == null) return Collections.emptyList();
+        List<T> l = chunkMap.get(ChunkPos.asLong(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())));
+        return l == null ? Collections.emptyList() : l;
+    }
+
+    public int size() {
+        return registrations.size();
+    }
+
+    private record Registration(ResourceKey<Level> dimension, long[] chunkKeys) {
+    }
+}
@@ -22,6 +22,7 @@ import me.desht.pneumaticcraft.common.block.entity.AerialInterfaceBlockEntity;
 import me.desht.pneumaticcraft.common.block.entity.ChargingStationBlockEntity;
 import me.desht.pneumaticcraft.common.block.entity.SecurityStationBlockEntity;
 import me.desht.pneumaticcraft.common.block.entity.UniversalSensorBlockEntity;
+import me.desht.pneumaticcraft.common.sensor.UniversalSensorEventRegistry;
 import net.minecraft.world.level.LevelAccessor;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraftforge.event.level.LevelEvent;
@@ -50,12 +51,16 @@ public class GlobalBlockEntityCacheManager {
     private final GlobalTileEntityCache<ChargingStationBlockEntity> chargingStations = new GlobalTileEntityCache<>();
     private final GlobalTileEntityCache<SecurityStationBlockEntity> securityStations = new GlobalTileEntityCache<>();
     private final GlobalTileEntityCache<AerialInterfaceBlockEntity> aerialInterfaces = new GlobalTileEntityCache<>();
+    private final BlockEntitySpatialIndex<SecurityStationBlockEntity> securityStationIndex = new BlockEntitySpatialIndex<>();
+    private final UniversalSensorEventRegistry universalSensorEvents = new UniversalSensorEventRegistry();
 
     private void removeFromWorld(LevelAccessor level) {
         universalSensors.removeFromWorld(level);
         chargingStations.removeFromWorld(level);
         securityStations.removeFromWorld(level);
         aerialInterfaces.removeFromWorld(level);
+        securityStationIndex.removeFromWorld(level);
+        universalSensorEvents.removeFromWorld(level);
     }
 
     public static GlobalBlockEntityCacheManager getInstance(@Nullable LevelAccessor level) {
@@ -71,6 +76,13 @@ public class GlobalBlockEntityCacheManager {
         return universalSensors;
     }
 
+    /**
+     * Universal Sensors indexed by the event types (and for range-limited sensors, the area) they react to.
+     */
+    public UniversalSensorEventRegistry getUniversalSensorEvents() {
+        return universalSensorEvents;
+    }
+
     public GlobalTileEntityCache<ChargingStationBlockEntity> getChargingStations() {
         return chargingStations;
     }
@@ -79,6 +91,14 @@ public class GlobalBlockEntityCacheManager {
         return securityStations;
     }
 
+    /**
+     * Security stations indexed by the area they protect, including the extra margin which applies when another
+     * security station is being placed.
+     */
+    public BlockEntitySpatialIndex<SecurityStationBlockEntity> getSecurityStationIndex() {
+        return securityStationIndex;
+    }
+
     public GlobalTileEntityCache<AerialInterfaceBlockEntity> getAerialInterfaces() {
         return aerialInterfaces;
     }
@@ -0,0 +1,172 @@
+/*
+ * This file is part of pnc-repressurized.
+ *
+ *     pnc-repressurized is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     pnc-repressurized is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with pnc-repressurized.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package me.desht.pneumaticcraft.common.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import me.desht.pneumaticcraft.api.lib.Names;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.ExperienceOrb;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.entity.EntityTypeTest;
+import net.minecraft.world.phys.AABB;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A per-level, per-tick index of entities which can be picked up (item entities and experience orbs), bucketed by
+ * the chunk section each entity is in. Sections are filled lazily, the first time a query touches them in a given
+ * tick, and are then shared by every query in that tick; so the magnets of several players and drones working in
+ * the same area only walk the level's entity sections once between them. Omnidirectional and Liquid Hoppers without an
+ * Entity Tracker upgrade use it too, for their item entity scans.
+ * <p>
+ * The index is a snapshot: entities added later in the tick aren't seen until the next tick, and entities which have
+ * been moved or removed since are still returned, so callers should check the entity's current position and
+ * {@link Entity#isAlive()} as usual. Only for use on the server thread.
+ */
+@Mod.EventBusSubscriber(modid = Names.MOD_ID)
+public class PickupEntityIndex {
+    private static final Predicate<Entity> IS_PICKUP = e -> (e instanceof ItemEntity || e instanceof ExperienceOrb) && e.isAlive();
+    // entities are bucketed by position, so sections within this distance of a query box may hold matching entities
+    private static final double ENTITY_MARGIN = 1.0;
+
+    private static final Map<Level, PickupEntityIndex> indexes = new WeakHashMap<>();
+
+    private static final AtomicLong queries = new AtomicLong();
+    private static final AtomicLong sectionsFilled = new AtomicLong();
+    private static final AtomicLong sectionsShared = new AtomicLong();
+
+    private final Level level;
+    private final Long2ObjectOpenHashMap<List<Entity>> sections = new Long2ObjectOpenHashMap<>();
+    private final List<List<Entity>> spareLists = new ArrayList<>();
+    private long tick = Long.MIN_VALUE;
+
+    private PickupEntityIndex(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Add all the alive item entities and experience orbs whose bounding box intersects the given box to the given
+     * list. The list is not cleared first, so callers can reuse a list between queries.
+     *
+     * @param level the level
+     * @param box the box to search
+     * @param out list to add the entities to
+     * @return the list
+     */
+    public static List<Entity> getEntities(Level level, AABB box, List<Entity> out) {
+        return indexes.computeIfAbsent(level, PickupEntityIndex::new).query(box, out);
+    }
+
+    private List<Entity> query(AABB box, List<Entity> out) {
+        long now = level.getGameTime();
+        if (now != tick) {
+            recycle();
+            tick = now;
+        }
+        queries.incrementAndGet();
+
+        int minX = SectionPos.posToSectionCoord(box.minX - ENTITY_MARGIN);
+        int minY = SectionPos.posToSectionCoord(box.minY - ENTITY_MARGIN);
+        int minZ = SectionPos.posToSectionCoord(box.minZ - ENTITY_MARGIN);
+        int maxX = SectionPos.posToSectionCoord(box.maxX + ENTITY_MARGIN);
+        int maxY = SectionPos.posToSectionCoord(box.maxY + ENTITY_MARGIN);
+        int maxZ = SectionPos.posToSectionCoord(box.maxZ + ENTITY_MARGIN);
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sz = minZ; sz <= maxZ; sz++) {
+                for (int sy = minY; sy <= maxY; sy++) {
+                    List<Entity> entities = getSection(sx, sy, sz);
+                    for (int i = 0; i < entities.size(); i++) {
+                        Entity e = entities.get(i);
+                        if (e.isAlive() && e.getBoundingBox().intersects(box)) {
+                            out.add(e);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private List<Entity> getSection(int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        List<Entity> entities = sections.get(key);
+        if (entities != null) {
+            sectionsShared.incrementAndGet();
+            return entities;
+        }
+
+        entities = spareLists.isEmpty() ? new ArrayList<>() : spareLists.remove(spareLists.size() - 1);
+        int x0 = SectionPos.sectionToBlockCoord(sx), y0 = SectionPos.sectionToBlockCoord(sy), z0 = SectionPos.sectionToBlockCoord(sz);
+        level.getEntities(EntityTypeTest.forClass(Entity.class), new AABB(x0, y0, z0, x0 + 16, y0 + 16, z0 + 16), IS_PICKUP, entities);
+        // only keep entities positioned in this section (others, overlapping its edge, belong to a neighbouring section)
+        int n = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            Entity e = entities.get(i);
+            if (SectionPos.blockToSectionCoord(e.getBlockX()) == sx
+                    && SectionPos.blockToSectionCoord(e.getBlockY()) == sy
+                    && SectionPos.blockToSectionCoord(e.getBlockZ()) == sz) {
+                entities.set(n++, e);
+            }
+        }
+        entities.subList(n, entities.size()).clear();
+        sections.put(key, entities);
+        sectionsFilled.incrementAndGet();
+        return entities;
+    }
+
+    private void recycle() {
+        for (List<Entity> list : sections.values()) {
+            list.clear();
+            spareLists.add(list);
+        }
+        sections.clear();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        indexes.clear();
+    }
+
+    public static long getQueries() {
+        return queries.get();
+    }
+
+    public static long getSectionsFilled() {
+        return sectionsFilled.get();
+    }
+
+    public static long getSectionsShared() {
+        return sectionsShared.get();
+    }
+
+    public static void resetStats() {
+        queries.set(0L);
+        sectionsFilled.set(0L);
+        sectionsShared.set(0L);
+    }
+}